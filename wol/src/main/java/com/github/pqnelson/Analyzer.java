@@ -0,0 +1,806 @@
+package com.github.pqnelson;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.github.pqnelson.expr.Expr;
+import com.github.pqnelson.expr.Fun;
+import com.github.pqnelson.expr.LispException;
+import com.github.pqnelson.expr.Literal;
+import com.github.pqnelson.expr.Seq;
+import com.github.pqnelson.expr.Symbol;
+import com.github.pqnelson.expr.Vector;
+import com.github.pqnelson.node.ConstantNode;
+import com.github.pqnelson.node.DefNode;
+import com.github.pqnelson.node.DefmacroNode;
+import com.github.pqnelson.node.DoNode;
+import com.github.pqnelson.node.DosyncNode;
+import com.github.pqnelson.node.ExpansionNode;
+import com.github.pqnelson.node.FnNode;
+import com.github.pqnelson.node.FrameNode;
+import com.github.pqnelson.node.FutureNode;
+import com.github.pqnelson.node.GuardNode;
+import com.github.pqnelson.node.GlobalNode;
+import com.github.pqnelson.node.IfNode;
+import com.github.pqnelson.node.InvokeNode;
+import com.github.pqnelson.node.LazySeqNode;
+import com.github.pqnelson.node.LetNode;
+import com.github.pqnelson.node.LocalNode;
+import com.github.pqnelson.node.LoopNode;
+import com.github.pqnelson.node.MacroexpandNode;
+import com.github.pqnelson.node.Node;
+import com.github.pqnelson.node.Profile;
+import com.github.pqnelson.node.RecurNode;
+import com.github.pqnelson.node.ThreadNode;
+import com.github.pqnelson.node.TryNode;
+import com.github.pqnelson.node.VectorNode;
+
+/**
+ * Turn a form into a tree of executable {@link Node} objects.
+ *
+ * <p>Macros are expanded once, here, and special forms are recognized
+ * once, here. The resulting tree can be evaluated any number of times
+ * without looking at the original {@code Seq} again, unless a macro it
+ * used is redefined (see {@link ExpansionNode}).</p>
+ *
+ * <p>Local variables are resolved here too, to a {@code (depth, slot)}
+ * address in the chain of frames; only globals are looked up by name
+ * at runtime. Each {@code fn*} gets one frame per call, holding its
+ * parameters and every {@code let*}, {@code loop*} and {@code catch}
+ * binding in its body.</p>
+ *
+ * <p>Calls to pure primitives over constants are folded, an {@code if}
+ * on a constant is pruned to one branch, and a {@code let*} binding to
+ * a literal is replaced by the literal. Folds assume the primitives
+ * named keep their values, so they are guarded (see {@link
+ * GuardNode}).</p>
+ *
+ * <p>The analyzer also tracks the position of each form: a call in tail
+ * position may be handed back to the caller's trampoline, and a
+ * {@code recur} is only allowed in tail position of the innermost
+ * {@code loop*} or {@code fn*}.</p>
+ */
+public final class Analyzer {
+    private static final Symbol AMPERSAND = new Symbol("&");
+    private final Env env;
+    private Local locals;
+    private FrameScope frame;
+    /** The profile of the function being analyzed, for tiering. */
+    private Profile profile = new Profile();
+    /**
+     * Set when a local is referenced before its {@code let*} binding has
+     * been evaluated, so the {@code let*} knows to clear its slots.
+     */
+    private boolean sawPendingLocal = false;
+    /**
+     * How many frames out from the current one the farthest pending
+     * local referenced so far lies, or -1 if there is none.
+     */
+    private int pendingDepth = -1;
+    /** Where a {@code recur} goes, if there is a loop to go back to. */
+    private RecurTarget recur = null;
+
+    /*
+     * The position of a form, as a bit set: whether a call there may
+     * return a TailCall, and whether a recur there is allowed.
+     */
+    private static final int NOT_TAIL = 0;
+    private static final int TAIL_CALL = 1;
+    private static final int TAIL_RECUR = 2;
+    private static final int TAIL = TAIL_CALL | TAIL_RECUR;
+
+    /**
+     * The frame being laid out for one function body (or top-level form).
+     */
+    private static final class FrameScope {
+        final FrameScope outer;
+        int size = 0;
+
+        FrameScope(final FrameScope outer) {
+            this.outer = outer;
+        }
+
+        int allocate() {
+            return this.size++;
+        }
+    }
+
+    /**
+     * The innermost {@code loop*} or {@code fn*}: the slots a
+     * {@code recur} rebinds.
+     */
+    private static final class RecurTarget {
+        /** The target around this one, in this frame or an outer one. */
+        final RecurTarget outer;
+        final FrameScope frame;
+        final int[] slots;
+        final Profile profile;
+        boolean isUsed = false;
+        /**
+         * The closures made in the same frame, which must not see the
+         * slots change under them if there turns out to be a recur.
+         */
+        final List<FnNode> closures = new ArrayList<>();
+
+        RecurTarget(final RecurTarget outer,
+                    final FrameScope frame,
+                    final int[] slots,
+                    final Profile profile) {
+            this.outer = outer;
+            this.frame = frame;
+            this.slots = slots;
+            this.profile = profile;
+        }
+    }
+
+    /**
+     * The analyzed bindings of a {@code let*} or {@code loop*}.
+     */
+    private static final class Bindings {
+        final int[] slots;
+        final Node[] inits;
+        final boolean clearsSlots;
+
+        Bindings(final int[] slots,
+                 final Node[] inits,
+                 final boolean clearsSlots) {
+            this.slots = slots;
+            this.inits = inits;
+            this.clearsSlots = clearsSlots;
+        }
+    }
+
+    /**
+     * An immutable list of the local variables in scope, innermost first.
+     *
+     * <p>A pending local is a {@code let*} binding whose initializer has
+     * not run yet. A local with a constant is a {@code let*} binding to
+     * a literal, which references use directly.</p>
+     */
+    private static final class Local {
+        final String name;
+        final FrameScope frame;
+        final int slot;
+        final boolean isPending;
+        final Expr constant;
+        final Local next;
+
+        Local(final String name,
+              final FrameScope frame,
+              final int slot,
+              final boolean isPending,
+              final Local next) {
+            this(name, frame, slot, isPending, null, next);
+        }
+
+        Local(final String name,
+              final FrameScope frame,
+              final int slot,
+              final boolean isPending,
+              final Expr constant,
+              final Local next) {
+            this.name = name;
+            this.frame = frame;
+            this.slot = slot;
+            this.isPending = isPending;
+            this.constant = constant;
+            this.next = next;
+        }
+    }
+
+    /**
+     * A snapshot of the lexical context of a call site, so the site can
+     * be analyzed again later (e.g., when its operator becomes a macro).
+     */
+    public static final class Context {
+        private final Env env;
+        private final Local locals;
+        private final FrameScope frame;
+        private final int tail;
+        private final RecurTarget recur;
+        private final Profile profile;
+
+        private Context(final Analyzer analyzer, final int tail) {
+            this.env = analyzer.env;
+            this.locals = analyzer.locals;
+            this.frame = analyzer.frame;
+            this.tail = tail;
+            this.recur = analyzer.recur;
+            this.profile = analyzer.profile;
+        }
+
+        /**
+         * Analyze a form as if it appeared at the call site.
+         *
+         * <p>The frame of the call site was laid out long ago, so any
+         * locals the form binds live in a fresh frame of their own.</p>
+         */
+        public Node analyze(final Expr form) throws Throwable {
+            Analyzer analyzer = new Analyzer(this.env);
+            analyzer.locals = this.locals;
+            analyzer.frame = new FrameScope(this.frame);
+            analyzer.recur = this.recur;
+            analyzer.profile = this.profile;
+            final Node node = analyzer.analyze(form, this.tail);
+            return new FrameNode(analyzer.frame.size, node);
+        }
+    }
+
+    public Analyzer(final Env env) {
+        this.env = env;
+        this.locals = null;
+        this.frame = new FrameScope(null);
+    }
+
+    /**
+     * Analyze a top-level form relative to the given environment.
+     *
+     * @param form The form to analyze.
+     * @param env The environment holding the global bindings.
+     * @return The executable node tree for the form, to be run with a
+     *         {@code null} frame.
+     */
+    public static Node analyze(final Expr form, final Env env)
+            throws Throwable {
+        Analyzer analyzer = new Analyzer(env);
+        final Node node = analyzer.analyze(form, NOT_TAIL);
+        if (0 == analyzer.frame.size) {
+            return node;
+        }
+        return new FrameNode(analyzer.frame.size, node);
+    }
+
+    private Local lookup(final Symbol s, final Local start) {
+        for (Local l = start; null != l; l = l.next) {
+            if (l.name.equals(s.name())) {
+                return l;
+            }
+        }
+        return null;
+    }
+
+    private int depth(final FrameScope target) {
+        int d = 0;
+        for (FrameScope f = this.frame; f != target; f = f.outer) {
+            d++;
+        }
+        return d;
+    }
+
+    private int depth(final Local l) {
+        return depth(l.frame);
+    }
+
+    private Node resolve(final Symbol s, final Local start) {
+        final Local l = lookup(s, start);
+        if (null == l) {
+            return new GlobalNode(this.env, s);
+        }
+        if (l.isPending) {
+            this.sawPendingLocal = true;
+            this.pendingDepth = Math.max(this.pendingDepth, depth(l));
+            return new LocalNode(depth(l), l.slot, resolve(s, l.next));
+        }
+        if (null != l.constant) {
+            return new ConstantNode(l.constant);
+        }
+        return new LocalNode(depth(l), l.slot, null);
+    }
+
+    private int declare(final Symbol s) {
+        final int slot = this.frame.allocate();
+        this.locals = new Local(s.name(), this.frame, slot, false, this.locals);
+        return slot;
+    }
+
+    /**
+     * Find the macro named by the operator of the form, if there is one.
+     *
+     * <p>Unbound operators are not macros; the call site reports the
+     * missing binding if it is ever reached.</p>
+     */
+    private Fun macroFor(final Seq form) {
+        final Expr head = form.first();
+        if (null == head || !head.isSymbol()) {
+            return null;
+        }
+        final Symbol s = (Symbol) head;
+        if (s.isSpecialForm() || null != lookup(s, this.locals)) {
+            return null;
+        }
+        final Env e = this.env.find(s);
+        if (null == e) {
+            return null;
+        }
+        final Expr value = e.get(s);
+        return (value.isMacro() ? (Fun) value : null);
+    }
+
+    Node analyze(final Expr form, final int tail) throws Throwable {
+        if (form.isSymbol()) {
+            return resolve((Symbol) form, this.locals);
+        } else if (form.isVector()) {
+            return analyzeVector((Vector) form);
+        } else if (!form.isList()) {
+            return new ConstantNode(form);
+        }
+        Seq seq = (Seq) form;
+        if (seq.isEmpty()) {
+            return new ConstantNode(seq);
+        }
+        final long epoch = this.env.bindingEpoch();
+        final Fun macro = macroFor(seq);
+        if (null != macro) {
+            final Context context = new Context(this, tail);
+            return new ExpansionNode(this.env, seq, context, macro,
+                                     analyze(macro.invoke(seq.slice(1)), tail),
+                                     epoch);
+        }
+        final Expr rator = seq.first();
+        final Seq ast = seq.slice(1);
+        final String s = rator.isSymbol() ? ((Symbol) rator).name() : "";
+        switch (s) {
+        case "def":               return analyzeDef(ast);
+        case "let*":              return analyzeLet(ast, tail);
+        case "loop*":             return analyzeLoop(ast, tail);
+        case "recur":             return analyzeRecur(ast, tail);
+        case "do":                return analyzeBody(ast, tail);
+        case "if":                return analyzeIf(ast, tail);
+        case "fn*":               return analyzeFn(ast);
+        case "lazy-seq":          return analyzeLazySeq(ast);
+        case "dosync":            return analyzeDosync(ast);
+        case "future":            return analyzeFuture(ast);
+        case "go":
+        case "thread":            return analyzeThread(ast);
+        case "macroexpand":
+            return new MacroexpandNode(this.env, ast.first());
+        case "quote":             return new ConstantNode(ast.first());
+        case "quasiquote-expand":
+            return new ConstantNode(Evaluator.quasiquote(ast.first()));
+        case "quasiquote":
+            return analyze(Evaluator.quasiquote(ast.first()), tail);
+        case "defmacro":          return analyzeDefmacro(ast);
+        case "try":               return analyzeTry(ast, tail);
+        default:                  return analyzeInvoke(seq, tail);
+        }
+    }
+
+    private Node[] analyzeAll(final Seq forms) throws Throwable {
+        Node[] result = new Node[forms.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = analyze(forms.get(i), NOT_TAIL);
+        }
+        return result;
+    }
+
+    private Node analyzeVector(final Vector form) throws Throwable {
+        Node[] items = new Node[form.size()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = analyze(form.get(i), NOT_TAIL);
+        }
+        return new VectorNode(items);
+    }
+
+    /**
+     * Analyze a sequence of forms as an implicit {@code do}.
+     */
+    private Node analyzeBody(final Seq body, final int tail)
+            throws Throwable {
+        if (body.isEmpty()) {
+            return new ConstantNode(Literal.NIL);
+        }
+        if (1 == body.size()) {
+            return analyze(body.first(), tail);
+        }
+        Node[] nodes = new Node[body.size()];
+        final int last = nodes.length - 1;
+        for (int i = 0; i < last; i++) {
+            nodes[i] = analyze(body.get(i), NOT_TAIL);
+        }
+        nodes[last] = analyze(body.get(last), tail);
+        return new DoNode(nodes);
+    }
+
+    private Node analyzeDef(final Seq ast) throws Throwable {
+        assert (2 == ast.size())
+            : "def has " + ast.size() + " operands instead of 2";
+        /* the reader assembles (def ^:foo bar spam) as
+           (def (with-meta bar :foo) spam), where
+           (with-meta ...) is a secret macro. */
+        final Symbol name = (Symbol) Evaluator.macroexpand(ast.first(), this.env);
+        return new DefNode(this.env, name, analyze(ast.get(1), NOT_TAIL));
+    }
+
+    /**
+     * Analyze the bindings {@code [name init ...]} of a {@code let*} or
+     * {@code loop*}, leaving them in scope.
+     *
+     * <p>While analyzing the {@code i}-th initializer, the bindings from
+     * {@code i} onwards are pending: a closure created there may refer
+     * to them, and will see their values once they are bound.</p>
+     *
+     * <p>Unless the bindings may be rebound (by a {@code recur}), those
+     * bound to literals are inlined into the references to them.</p>
+     */
+    private Bindings analyzeBindings(final Vector bindings,
+                                     final boolean isRebound)
+            throws Throwable {
+        final int n = bindings.size() / 2;
+        final Local base = this.locals;
+        final boolean sawPending = this.sawPendingLocal;
+        Symbol[] names = new Symbol[n];
+        int[] slots = new int[n];
+        Node[] inits = new Node[n];
+        Expr[] constants = new Expr[n];
+        for (int i = 0; i < n; i++) {
+            names[i] = (Symbol) bindings.get(2 * i);
+            slots[i] = this.frame.allocate();
+        }
+        this.sawPendingLocal = false;
+        try {
+            for (int i = 0; i < n; i++) {
+                Local scope = base;
+                for (int j = 0; j < n; j++) {
+                    scope = new Local(names[j].name(), this.frame, slots[j],
+                                      j >= i, constants[j], scope);
+                }
+                this.locals = scope;
+                inits[i] = analyze(bindings.get(2 * i + 1), NOT_TAIL);
+                if (!isRebound && inits[i] instanceof ConstantNode
+                        && isAtom(((ConstantNode) inits[i]).value())) {
+                    constants[i] = ((ConstantNode) inits[i]).value();
+                }
+            }
+            final boolean clearsSlots = this.sawPendingLocal;
+            Local scope = base;
+            for (int j = 0; j < n; j++) {
+                scope = new Local(names[j].name(), this.frame, slots[j],
+                                  false, constants[j], scope);
+            }
+            this.locals = scope;
+            return new Bindings(slots, inits, clearsSlots);
+        } finally {
+            this.sawPendingLocal = sawPending || this.sawPendingLocal;
+        }
+    }
+
+    /**
+     * Analyze {@code (let* [name init ...] body...)}.
+     */
+    private Node analyzeLet(final Seq ast, final int tail)
+            throws Throwable {
+        final Local base = this.locals;
+        try {
+            final Bindings b = analyzeBindings((Vector) ast.first(), false);
+            return new LetNode(b.slots, b.inits,
+                               analyzeBody(ast.slice(1), tail),
+                               b.clearsSlots);
+        } finally {
+            this.locals = base;
+        }
+    }
+
+    /**
+     * Analyze {@code (loop* [name init ...] body...)}, which binds like
+     * {@code let*} and runs the body again whenever it ends in a
+     * {@code recur}.
+     */
+    private Node analyzeLoop(final Seq ast, final int tail)
+            throws Throwable {
+        final Local base = this.locals;
+        final RecurTarget savedRecur = this.recur;
+        try {
+            final Bindings b = analyzeBindings((Vector) ast.first(), true);
+            this.recur = new RecurTarget(savedRecur, this.frame, b.slots,
+                                         this.profile);
+            final Node body = analyzeBody(ast.slice(1), tail | TAIL_RECUR);
+            snapshotClosures(this.recur);
+            return new LoopNode(b.slots, b.inits, body, b.clearsSlots,
+                                this.profile);
+        } finally {
+            this.locals = base;
+            this.recur = savedRecur;
+        }
+    }
+
+    /**
+     * Analyze {@code (recur arg ...)}, rebinding the slots of the
+     * innermost {@code loop*} or {@code fn*}.
+     *
+     * <p>The new values are all computed before any slot is assigned,
+     * staged in fresh slots of the current frame, so no array is
+     * allocated per iteration.</p>
+     */
+    private Node analyzeRecur(final Seq ast, final int tail)
+            throws Throwable {
+        if (0 == (tail & TAIL_RECUR) || null == this.recur) {
+            throw new LispException("Can only recur from tail position");
+        }
+        final int[] slots = this.recur.slots;
+        if (ast.size() != slots.length) {
+            throw new LispException("Mismatched argument count to recur, "
+                                    + "expected: " + slots.length
+                                    + " args, got: " + ast.size());
+        }
+        final Node[] args = analyzeAll(ast);
+        int[] temps = null;
+        if (args.length > 1) {
+            temps = new int[args.length];
+            for (int i = 0; i < temps.length; i++) {
+                temps[i] = this.frame.allocate();
+            }
+        }
+        this.recur.isUsed = true;
+        return new RecurNode(depth(this.recur.frame), slots, args, temps);
+    }
+
+    private Node analyzeIf(final Seq ast, final int tail)
+            throws Throwable {
+        // ast = (test true-branch false-branch?)
+        final Node test = analyze(ast.get(0), NOT_TAIL);
+        final Node trueBranch = analyze(ast.get(1), tail);
+        final Node falseBranch = analyze(ast.get(2, Literal.NIL), tail);
+        final Expr value = constantOf(test);
+        if (null == value) {
+            return new IfNode(test, trueBranch, falseBranch);
+        }
+        final Node branch = (Literal.isFalsy(value) ? falseBranch : trueBranch);
+        if (test instanceof GuardNode) {
+            final GuardNode g = (GuardNode) test;
+            return new GuardNode(this.env, g.names(), g.values(), g.epoch(),
+                                 branch,
+                                 new IfNode(test, trueBranch, falseBranch));
+        }
+        return branch;
+    }
+
+    /**
+     * When the loop recurs, have the closures made in its body keep the
+     * values of their own trip around it.
+     */
+    private static void snapshotClosures(final RecurTarget target) {
+        if (target.isUsed) {
+            for (FnNode fn : target.closures) {
+                fn.snapshotFrame();
+            }
+        }
+    }
+
+    private FnNode analyzeFn(final Seq ast) throws Throwable {
+        // ast ::= ([params] body) OR (name [params] body)
+        final Symbol name = (ast.first().isSymbol()
+                             ? (Symbol) ast.first()
+                             : null);
+        final int nameOffset = (null == name ? 0 : 1);
+        final Vector params = (Vector) ast.get(nameOffset);
+        final int bodyIndex = nameOffset + 1;
+        Expr body;
+        if (1 + bodyIndex == ast.size()) {
+            body = ast.get(bodyIndex);
+        } else {
+            body = ast.slice(bodyIndex).cons(Symbol.DO);
+        }
+        final Local savedLocals = this.locals;
+        final FrameScope savedFrame = this.frame;
+        final RecurTarget savedRecur = this.recur;
+        final Profile savedProfile = this.profile;
+        final boolean sawPending = this.sawPendingLocal;
+        final int savedPendingDepth = this.pendingDepth;
+        this.sawPendingLocal = false;
+        this.pendingDepth = -1;
+        this.frame = new FrameScope(savedFrame);
+        this.profile = new Profile();
+        try {
+            // parameters occupy the first slots, in order
+            Local paramLocals = null;
+            for (Expr param : params) {
+                if (!AMPERSAND.equals(param)) {
+                    paramLocals = new Local(((Symbol) param).name(),
+                                            this.frame,
+                                            this.frame.allocate(),
+                                            false,
+                                            paramLocals);
+                }
+            }
+            // a recur rebinds the parameters (the rest parameter to a list)
+            int[] paramSlots = new int[this.frame.size];
+            for (int i = 0; i < paramSlots.length; i++) {
+                paramSlots[i] = i;
+            }
+            this.recur = new RecurTarget(savedRecur, this.frame, paramSlots,
+                                         this.profile);
+            int selfSlot = -1;
+            if (null != name) {
+                selfSlot = declare(name);
+            }
+            // parameters shadow the function's own name
+            for (Local l = paramLocals; null != l; l = l.next) {
+                this.locals = new Local(l.name, l.frame, l.slot, false,
+                                        this.locals);
+            }
+            Node bodyNode = analyzeBody(ast.slice(bodyIndex), TAIL);
+            if (this.recur.isUsed) {
+                snapshotClosures(this.recur);
+                bodyNode = new LoopNode(new int[0], new Node[0], bodyNode,
+                                        false, this.profile);
+            }
+            final FnNode fn = new FnNode(name, params, body, bodyNode,
+                                         this.frame.size, selfSlot,
+                                         this.profile);
+            // a closure seeing a binding of an enclosing frame before it
+            // is bound needs the frame itself; otherwise a recur of any
+            // loop around it in this frame rebinds slots it may read
+            if (this.pendingDepth < 1) {
+                for (RecurTarget t = savedRecur;
+                     null != t && savedFrame == t.frame;
+                     t = t.outer) {
+                    t.closures.add(fn);
+                }
+            }
+            return fn;
+        } finally {
+            this.sawPendingLocal = sawPending || this.sawPendingLocal;
+            this.pendingDepth = Math.max(savedPendingDepth,
+                                         this.pendingDepth - 1);
+            this.locals = savedLocals;
+            this.frame = savedFrame;
+            this.recur = savedRecur;
+            this.profile = savedProfile;
+        }
+    }
+
+    /**
+     * The body of a {@code (lazy-seq body...)} is analyzed as a function
+     * of no arguments, so it closes over its locals as a function would.
+     */
+    private Node analyzeLazySeq(final Seq ast) throws Throwable {
+        return new LazySeqNode(analyzeFn(ast.cons(new Vector())));
+    }
+
+    /**
+     * The body of a {@code (dosync body...)} is a function of no
+     * arguments too, run again whenever its transaction retries.
+     */
+    private Node analyzeDosync(final Seq ast) throws Throwable {
+        return new DosyncNode(analyzeFn(ast.cons(new Vector())));
+    }
+
+    /**
+     * The body of a {@code (future body...)} is likewise a function of
+     * no arguments, called on another thread.
+     */
+    private Node analyzeFuture(final Seq ast) throws Throwable {
+        return new FutureNode(analyzeFn(ast.cons(new Vector())));
+    }
+
+    private Node analyzeThread(final Seq ast) throws Throwable {
+        return new ThreadNode(analyzeFn(ast.cons(new Vector())));
+    }
+
+    private Node analyzeDefmacro(final Seq ast) throws Throwable {
+        // ast = (macro-name [params] body)
+        assert (ast.get(0).isSymbol()) : "macro name is not a symbol";
+        assert (ast.get(1).isVector()) : "Args are not a vector";
+        assert (ast.size() >= 2) : "macro has no body";
+        final Symbol name = (Symbol) ast.first();
+        return new DefmacroNode(this.env, name, analyzeFn(ast.slice(1)));
+    }
+
+    private static boolean isCatchClause(final Expr e) {
+        return e.isList() && Symbol.CATCH == ((Seq) e).first();
+    }
+
+    private Node analyzeTry(final Seq ast, final int tail)
+            throws Throwable {
+        // ast = (body... (catch e catch-body...)+)
+        /* CAVEAT: the body is the sublist of expressions UNTIL the
+           first catch clause, and only the first catch clause is ever
+           used. */
+        final Seq catchClauses = ast.filter(Analyzer::isCatchClause);
+        final Seq bodyForms = ast.takeWhile(e -> !isCatchClause(e));
+        if (catchClauses.isEmpty()) {
+            return analyzeBody(bodyForms, tail);
+        }
+        // tail calls in the body are bounced by the TryNode, inside the handler
+        final Node body = analyzeBody(bodyForms, TAIL_CALL | (tail & TAIL_RECUR));
+        // catchClause ~ (catch e catch-body...)
+        final Seq catchClause = (Seq) catchClauses.first();
+        final Local saved = this.locals;
+        try {
+            final int slot = declare((Symbol) catchClause.get(1));
+            return new TryNode(body, slot,
+                               analyzeBody(catchClause.slice(2), tail));
+        } finally {
+            this.locals = saved;
+        }
+    }
+
+    private Node analyzeInvoke(final Seq form, final int tail)
+            throws Throwable {
+        final Node rator = analyze(form.first(), NOT_TAIL);
+        final Node[] args = analyzeAll(form.slice(1));
+        final Node call = new InvokeNode(rator, args,
+                                         0 != (tail & TAIL_CALL),
+                                         form,
+                                         new Context(this, tail));
+        final Node folded = fold(rator, args, call);
+        return (null == folded ? call : folded);
+    }
+
+    /**
+     * Whether a value can be shared by every evaluation of the code
+     * producing it: nothing can change it in place.
+     */
+    private static boolean isAtom(final Expr value) {
+        return value.isNumber() || value.isString() || value.isKeyword()
+            || value.isSymbol() || value.isLiteral();
+    }
+
+    /**
+     * The value of a node known at analysis time, or null.
+     */
+    private static Expr constantOf(final Node node) {
+        if (node instanceof ConstantNode) {
+            return ((ConstantNode) node).value();
+        }
+        if (node instanceof GuardNode
+                && ((GuardNode) node).fast() instanceof ConstantNode) {
+            return ((ConstantNode) ((GuardNode) node).fast()).value();
+        }
+        return null;
+    }
+
+    /**
+     * Fold a call to a pure global function over constants, guarded by
+     * the function (and any folded into the arguments) staying bound;
+     * or return null when the call cannot be folded.
+     *
+     * <p>A call which throws is left for the call site to report when it
+     * is reached.</p>
+     */
+    private Node fold(final Node rator, final Node[] args, final Node call) {
+        if (!(rator instanceof GlobalNode)) {
+            return null;
+        }
+        final long epoch = this.env.bindingEpoch();
+        final Symbol name = ((GlobalNode) rator).name();
+        final Env scope = this.env.find(name);
+        final Expr f = (null == scope ? null : scope.get(name));
+        if (null == f || !f.isFunction() || !((Fun) f).isPure()) {
+            return null;
+        }
+        List<Symbol> names = new ArrayList<>();
+        List<Expr> values = new ArrayList<>();
+        names.add(name);
+        values.add(f);
+        Expr[] operands = new Expr[args.length];
+        for (int i = 0; i < args.length; i++) {
+            operands[i] = constantOf(args[i]);
+            if (null == operands[i]) {
+                return null;
+            }
+            if (args[i] instanceof GuardNode) {
+                final GuardNode g = (GuardNode) args[i];
+                if (epoch != g.epoch()) {
+                    return null;
+                }
+                names.addAll(Arrays.asList(g.names()));
+                values.addAll(Arrays.asList(g.values()));
+            }
+        }
+        final Expr result;
+        try {
+            result = ((Fun) f).invoke(Seq.of(operands));
+        } catch (Throwable e) {
+            return null;
+        }
+        if (null == result || !isAtom(result)) {
+            return null;
+        }
+        return new GuardNode(this.env,
+                             names.toArray(new Symbol[0]),
+                             values.toArray(new Expr[0]),
+                             epoch, new ConstantNode(result), call);
+    }
+}
@@ -3,24 +3,43 @@ package com.github.pqnelson;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
+import com.github.pqnelson.expr.ARef;
+import com.github.pqnelson.expr.ATransient;
+import com.github.pqnelson.expr.Atom;
+import com.github.pqnelson.expr.Chan;
 import com.github.pqnelson.expr.Expr;
 import com.github.pqnelson.expr.ICountable;
+import com.github.pqnelson.expr.Fun;
+import com.github.pqnelson.expr.Future;
+import com.github.pqnelson.expr.IDeref;
 import com.github.pqnelson.expr.IFn;
+import com.github.pqnelson.expr.IFold;
+import com.github.pqnelson.expr.IReduce;
+import com.github.pqnelson.expr.ITrampolined;
 import com.github.pqnelson.expr.Int;
 import com.github.pqnelson.expr.Keyword;
+import com.github.pqnelson.expr.LazySeq;
 import com.github.pqnelson.expr.Literal;
 import com.github.pqnelson.expr.LispException;
 import com.github.pqnelson.expr.LispIOException;
 import com.github.pqnelson.expr.LispIllegalArgumentException;
 import com.github.pqnelson.expr.LispNoSuchMethodException;
 import com.github.pqnelson.expr.Map;
+import com.github.pqnelson.expr.Promise;
+import com.github.pqnelson.expr.Range;
+import com.github.pqnelson.expr.Reduced;
+import com.github.pqnelson.expr.Ref;
 import com.github.pqnelson.expr.Seq;
 import com.github.pqnelson.expr.Str;
 import com.github.pqnelson.expr.Symbol;
+import com.github.pqnelson.expr.TailCall;
+import com.github.pqnelson.expr.Transaction;
 import com.github.pqnelson.expr.Vector;
 import com.github.pqnelson.annotations.VisibleForTesting;
 
@@ -77,16 +96,69 @@ public final class Core {
 
     private static IFn predicateFactory(final String predicateName,
                                         final Predicate<Expr> pred) {
-        return (Seq args) -> {
-            checkArity(1, args, predicateName + "_QMARK_");
-            if (pred.test(args.first())) {
-                return Literal.T;
-            } else {
-                return Literal.F;
+        return new IFn() {
+            @Override
+            public Expr invoke(final Seq args) throws LispException {
+                checkArity(1, args, predicateName + "_QMARK_");
+                return invoke1(args.first());
+            }
+
+            @Override
+            public Expr invoke1(final Expr a) {
+                return (pred.test(a) ? Literal.T : Literal.F);
+            }
+        };
+    }
+
+    /**
+     * A primitive of one argument, computed without an argument list.
+     */
+    @FunctionalInterface
+    private interface Unary {
+        Expr apply(Expr a) throws LispException;
+    }
+
+    /**
+     * A primitive of two arguments, computed without an argument list.
+     */
+    @FunctionalInterface
+    private interface Binary {
+        Expr apply(Expr a, Expr b) throws LispException;
+    }
+
+    private static IFn withFastPath(final IFn general, final Unary unary) {
+        return new IFn() {
+            @Override
+            public Expr invoke(final Seq args) throws Throwable {
+                return general.invoke(args);
+            }
+
+            @Override
+            public Expr invoke1(final Expr a) throws LispException {
+                return unary.apply(a);
+            }
+        };
+    }
+
+    private static IFn withFastPath(final IFn general, final Binary binary) {
+        return new IFn() {
+            @Override
+            public Expr invoke(final Seq args) throws Throwable {
+                return general.invoke(args);
+            }
+
+            @Override
+            public Expr invoke2(final Expr a, final Expr b)
+                    throws LispException {
+                return binary.apply(a, b);
             }
         };
     }
 
+    private static com.github.pqnelson.expr.Number num(final Expr e) {
+        return (com.github.pqnelson.expr.Number) e;
+    }
+
     /**
      * Now we have publicly exported functions.
      *
@@ -94,8 +166,12 @@ public final class Core {
      * @return The sum, defaulting to zero for an empty argument list.
      */
     public static Expr add(final Seq args) throws LispException {
-        com.github.pqnelson.expr.Number sum = new Int(0L);
-        for (Expr e : args) {
+        if (0 == args.size()) {
+            return Literal.ZERO;
+        }
+        com.github.pqnelson.expr.Number sum
+            = (com.github.pqnelson.expr.Number) args.first();
+        for (Expr e : args.slice(1)) {
             sum = sum.add((com.github.pqnelson.expr.Number) e);
         }
         return sum;
@@ -115,10 +191,11 @@ public final class Core {
 
     public static Expr multiply(final Seq args) throws LispException {
         if (0 == args.size()) {
-            return new Int(1L);
+            return Literal.ONE;
         }
-        com.github.pqnelson.expr.Number product = new Int(1L);
-        for (Expr e : args) {
+        com.github.pqnelson.expr.Number product
+            = (com.github.pqnelson.expr.Number) args.first();
+        for (Expr e : args.slice(1)) {
             product = product.multiply((com.github.pqnelson.expr.Number) e);
         }
         return product;
@@ -130,7 +207,7 @@ public final class Core {
         if (1 == args.size()) {
             final com.github.pqnelson.expr.Number denominator
                 = (com.github.pqnelson.expr.Number) (args.first());
-            return (new Int(1L)).divide(denominator);
+            return ((Int) Literal.ONE).divide(denominator);
         }
         com.github.pqnelson.expr.Number quotient
             = (com.github.pqnelson.expr.Number) args.first();
@@ -142,17 +219,25 @@ public final class Core {
 
     public static Expr count(final Seq args) throws LispException {
         checkArity(1, args, "count");
-        final ICountable coll = (ICountable) (args.first());
-        return new Int(coll.size());
+        return _count(args.first());
+    }
+
+    private static Expr _count(final Expr arg) {
+        final ICountable coll = (ICountable) arg;
+        return Int.valueOf(coll.size());
     }
 
     public static IFn list_QMARK_ = predicateFactory("list", Expr::isList);
 
     public static Expr empty_QMARK_(final Seq args) throws LispException {
         checkArity(1, args, "empty?");
-        if ((args.first().isList() && ((Seq) (args.first())).isEmpty())
-            || (args.first().isVector() && ((Vector) (args.first())).isEmpty())
-            || (args.first().isMap() && ((Map) (args.first())).isEmpty())) {
+        return _isEmpty(args.first());
+    }
+
+    private static Expr _isEmpty(final Expr arg) {
+        if ((arg.isList() && ((Seq) arg).isEmpty())
+            || (arg.isVector() && ((Vector) arg).isEmpty())
+            || (arg.isMap() && ((Map) arg).isEmpty())) {
             return Literal.T;
         }
         return Literal.F;
@@ -192,7 +277,16 @@ public final class Core {
 
     public static Expr first(final Seq args) throws LispException {
         checkArity(1, args, "first");
-        final Expr arg = _seqArg(args.first());
+        return _first(args.first());
+    }
+
+    private static Expr _first(final Expr coll) throws LispException {
+        if (coll.isVector()) {
+            // index the vector, rather than making a list view of it
+            final Vector v = (Vector) coll;
+            return (v.isEmpty() ? Literal.NIL : v.get(0));
+        }
+        final Expr arg = _seqArg(coll);
         if (arg.isNil()) {
             return arg;
         }
@@ -201,29 +295,38 @@ public final class Core {
 
     public static Expr rest(final Seq args) throws LispException {
         checkArity(1, args, "rest");
-        final Expr arg = _seqArg(args.first());
+        return _rest(args.first());
+    }
+
+    private static Expr _rest(final Expr coll) throws LispException {
+        final Expr arg = _seqArg(coll);
         if (arg.isNil()) {
             return arg;
         }
-        return ((Seq) arg).slice(1);
+        return ((Seq) arg).rest();
     }
 
     public static Expr nth(final Seq args) throws LispException {
         checkArities(Set.of(2, 3), args, "nth");
-        if (!args.get(1).isInt()) {
+        return _nth(args.first(), args.get(1), args.get(2, Literal.NIL));
+    }
+
+    private static Expr _nth(final Expr coll,
+                             final Expr index,
+                             final Expr defaultValue) throws LispException {
+        if (!index.isInt()) {
             throw new LispException("nth called with non-int index, received "
-                                    + args.get(1).type());
+                                    + index.type());
         }
-        int i = ((Int) args.get(1)).value().intValue();
-        Expr arg = args.first();
-        Expr defaultValue = args.get(2, Literal.NIL);
+        int i = (int) ((Int) index).longValue();
+        Expr arg = coll;
         if (arg.isNil()) {
             return defaultValue;
         } else if (arg.isMap() || arg.isString()) {
             arg = _seqArg(arg);
         } else if (arg.isVector()) {
             try {
-                return ((Vector) arg).get(((Int) args.get(1)), defaultValue);
+                return ((Vector) arg).get(((Int) index), defaultValue);
             } catch (NoSuchMethodException e) {
                 throw new LispNoSuchMethodException(e);
             }
@@ -251,12 +354,20 @@ public final class Core {
 
     public static Expr cons(final Seq args) throws LispException {
         checkArity(2, args, "cons");
-        Expr e = _seqArg(args.get(1));
+        return _cons(args.first(), args.get(1));
+    }
+
+    private static Expr _cons(final Expr x, final Expr seq)
+            throws LispException {
+        if (seq.isList()) {
+            return ((Seq) seq).cons(x);
+        }
+        Expr e = _seqArg(seq);
         if (e.isNil()) {
             e = new Seq();
         }
         Seq coll = (Seq) e;
-        return coll.cons(args.first());
+        return coll.cons(x);
     }
 
     public static Expr equality(final Seq args) throws LispException {
@@ -476,9 +587,12 @@ public final class Core {
     }
     public static Expr get(final Seq args) throws LispException {
         checkArities(Set.of(2,3), args, "get");
-        final Expr coll = args.first();
-        final Expr i = args.get(1);
-        final Expr defaultValue = args.get(2, Literal.NIL);
+        return _get(args.first(), args.get(1), args.get(2, Literal.NIL));
+    }
+
+    private static Expr _get(final Expr coll,
+                             final Expr i,
+                             final Expr defaultValue) throws LispException {
         if (coll.isMap()) {
             return ((Map) coll).get(i, defaultValue);
         } else if (coll.isVector()) {
@@ -506,95 +620,1524 @@ public final class Core {
             throw new LispException("assoc requires"
                                     + " an even number of bindings");
         }
-        Map map = new Map((Map)args.first());
+        if (args.first().isVector()) {
+            Vector v = (Vector) args.first();
+            for (int i = 1; i < args.size(); i += 2) {
+                v = _assocN(v, args.get(i), args.get(i + 1));
+            }
+            return v;
+        }
+        Map map = (Map) args.first();
         for (int i = 1; i < args.size(); i += 2) {
-            map.assoc(args.get(i), args.get(i + 1));
+            map = map.associate(args.get(i), args.get(i + 1));
         }
         return map;
     }
-    public static Expr assoc_BANG_(final Seq args) throws LispException {
-        if (3 > args.size()) {
-            throw new LispException("assoc requires at least a map, a key, "
-                                    + "a value; but received "
-                                    + args.size()
-                                    + " arguments");
+
+    private static Vector _assocN(final Vector v,
+                                  final Expr index,
+                                  final Expr value) throws LispException {
+        if (!index.isInt()) {
+            throw new LispIllegalArgumentException("assoc on a vector "
+                                                   + "requires an int index, "
+                                                   + "received "
+                                                   + index.type());
         }
-        if (1 != args.size() % 2) {
-            throw new LispException("assoc requires"
-                                    + " an even number of bindings");
+        final int i = (int) ((Int) index).longValue();
+        if (i < 0 || i > v.size()) {
+            throw new LispIllegalArgumentException("assoc index " + i
+                                                   + " out of bounds for "
+                                                   + "vector of size "
+                                                   + v.size());
         }
-        Map map = (Map)args.first();
-        for (int i = 1; i < args.size(); i += 2) {
-            map.assoc(args.get(i), args.get(i + 1));
+        return v.assocN(i, value);
+    }
+
+    /**
+     * Add elements to a collection, where it is cheapest: at the end of a
+     * vector, at the front of a list. Adding a {@code [k v]} pair to a
+     * map associates {@code k} to {@code v}.
+     */
+    public static Expr conj(final Seq args) throws LispException {
+        if (args.isEmpty()) {
+            return new Vector();
         }
-        return map;
+        Expr coll = args.first();
+        if (coll.isNil()) {
+            coll = new Seq();
+        }
+        if (coll.isVector()) {
+            Vector v = (Vector) coll;
+            for (int i = 1; i < args.size(); i++) {
+                v = v.conjoin(args.get(i));
+            }
+            return v;
+        } else if (coll.isList()) {
+            Seq s = (Seq) coll;
+            for (int i = 1; i < args.size(); i++) {
+                s = s.cons(args.get(i));
+            }
+            return s;
+        } else if (coll.isMap()) {
+            Map map = (Map) coll;
+            for (int i = 1; i < args.size(); i++) {
+                final Expr entry = args.get(i);
+                if (!entry.isVector() || 2 != ((Vector) entry).size()) {
+                    throw new LispIllegalArgumentException("conj on a map "
+                                                           + "requires [k v] "
+                                                           + "pairs");
+                }
+                map = map.associate(((Vector) entry).get(0),
+                                    ((Vector) entry).get(1));
+            }
+            return map;
+        }
+        throw new LispException("conj applied to unexpected type '"
+                                + coll.type() + "'");
     }
 
-    public static Expr dissoc(final Seq args) throws LispException {
-        if (1 > args.size()) {
-            throw new LispException("dissoc requires at least a map;"
-                                    + " but received "
-                                    + args.size()
-                                    + " arguments");
+    /**
+     * The last element of a vector, or the first of a list.
+     */
+    public static Expr peek(final Seq args) throws LispException {
+        checkArity(1, args, "peek");
+        final Expr coll = args.first();
+        if (coll.isNil()) {
+            return coll;
+        } else if (coll.isVector()) {
+            final Vector v = (Vector) coll;
+            return (v.isEmpty() ? Literal.NIL : v.last());
+        } else if (coll.isList()) {
+            final Seq s = (Seq) coll;
+            return (s.isEmpty() ? Literal.NIL : s.first());
         }
-        Map result = new Map((Map) args.first());
-        for (int i = 1; i < args.size(); i++) {
-            result.dissoc(args.get(i));
+        throw new LispException("peek applied to unexpected type '"
+                                + coll.type() + "'");
+    }
+
+    /**
+     * A vector without its last element, or a list without its first.
+     */
+    public static Expr pop(final Seq args) throws LispException {
+        checkArity(1, args, "pop");
+        final Expr coll = args.first();
+        if (coll.isNil()) {
+            return coll;
+        } else if (coll.isVector() && !((Vector) coll).isEmpty()) {
+            return ((Vector) coll).pop();
+        } else if (coll.isList() && !((Seq) coll).isEmpty()) {
+            return ((Seq) coll).rest();
+        } else if (coll.isVector() || coll.isList()) {
+            throw new LispIllegalArgumentException("Can't pop empty "
+                                                   + coll.type());
+        }
+        throw new LispException("pop applied to unexpected type '"
+                                + coll.type() + "'");
+    }
+
+    /**
+     * The list of integers {@code (range)}, {@code (range end)},
+     * {@code (range start end)} or {@code (range start end step)}; the
+     * first is unbounded. No element is made until it is looked at.
+     */
+    public static Expr range(final Seq args) throws LispException {
+        checkArities(Set.of(0, 1, 2, 3), args, "range");
+        for (Expr e : args) {
+            if (!e.isInt()) {
+                throw new LispIllegalArgumentException("range requires int "
+                                                       + "arguments, received "
+                                                       + e.type());
+            }
+        }
+        switch (args.size()) {
+        case 0:
+            return Range.from(0L, 1L);
+        case 1:
+            return Range.of(0L, ((Int) args.first()).longValue(), 1L);
+        case 2:
+            return Range.of(((Int) args.first()).longValue(),
+                            ((Int) args.get(1)).longValue(), 1L);
+        default:
+            return Range.of(((Int) args.first()).longValue(),
+                            ((Int) args.get(1)).longValue(),
+                            ((Int) args.get(2)).longValue());
+        }
+    }
+
+    private static Fun _fnArg(final Expr arg, final String name)
+            throws LispException {
+        if (!(arg instanceof Fun)) {
+            throw new LispIllegalArgumentException(name + " requires a "
+                                                   + "function, received "
+                                                   + arg.type());
+        }
+        return (Fun) arg;
+    }
+
+    /**
+     * The function as called by a reduction, with two arguments and no
+     * argument list.
+     */
+    private static IFn stepOf(final Fun f) {
+        return new IFn() {
+            @Override
+            public Expr invoke(final Seq args) throws Throwable {
+                return f.invoke(args);
+            }
+
+            @Override
+            public Expr invoke2(final Expr a, final Expr b) throws Throwable {
+                return f.invoke2(a, b);
+            }
+        };
+    }
+
+    /**
+     * Reduce a collection, letting it walk its own representation.
+     */
+    private static Expr _reduce(final IFn f, final Expr init, final Expr coll)
+            throws Throwable {
+        if (coll instanceof IReduce) {
+            return ((IReduce) coll).reduce(f, init);
+        }
+        final Expr xs = _seqArg(coll);
+        return (xs.isNil() ? init : ((IReduce) xs).reduce(f, init));
+    }
+
+    /**
+     * The result of a reduction without an initial value, until it has
+     * seen its first element.
+     */
+    private static final Keyword NO_RESULT = new Keyword("no-result");
+
+    /**
+     * Combine the elements of a collection with a function of two
+     * arguments, {@code (reduce f coll)} or {@code (reduce f init coll)}.
+     *
+     * <p>Without an initial value the first element is used, and an
+     * empty collection gives {@code (f)}.</p>
+     */
+    public static Expr reduce(final Seq args) throws Throwable {
+        checkArities(Set.of(2, 3), args, "reduce");
+        final Fun f = _fnArg(args.first(), "reduce");
+        if (3 == args.size()) {
+            return _reduce(stepOf(f), args.get(1), args.get(2));
+        }
+        // the first element becomes the result, so no list of the rest
+        // is made, and nothing here holds on to the head of the list
+        final Expr result = _reduce(new IFn() {
+                @Override
+                public Expr invoke(final Seq xs) throws Throwable {
+                    return this.invoke2(xs.first(), xs.get(1));
+                }
+
+                @Override
+                public Expr invoke2(final Expr a, final Expr b)
+                        throws Throwable {
+                    return (NO_RESULT == a ? b : f.invoke2(a, b));
+                }
+            }, NO_RESULT, args.get(1));
+        return (NO_RESULT == result ? f.invoke0() : result);
+    }
+
+    /**
+     * The default number of elements below which {@code fold} reduces a
+     * piece of a collection rather than splitting it.
+     */
+    static final int FOLD_CHUNK_SIZE = 512;
+
+    /**
+     * Reduce a vector or map in parallel on the common fork/join pool,
+     * {@code (fold f coll)}, {@code (fold combine f coll)} or {@code
+     * (fold n combine f coll)}.
+     *
+     * <p>The collection is split along its trie into pieces of at most
+     * {@code n} elements, 512 by default, each reduced with {@code f}
+     * starting from {@code (combine)}; the results are merged with
+     * {@code (combine left right)}. Small collections, and collections
+     * other than vectors and maps, are reduced in the calling thread.</p>
+     */
+    public static Expr fold(final Seq args) throws Throwable {
+        checkArities(Set.of(2, 3, 4), args, "fold");
+        final int last = args.size() - 1;
+        final Fun f = _fnArg(args.get(last - 1), "fold");
+        final Fun combine = (2 == args.size()
+                             ? f
+                             : _fnArg(args.get(last - 2), "fold"));
+        int n = FOLD_CHUNK_SIZE;
+        if (4 == args.size()) {
+            final Expr size = args.first();
+            if (!size.isInt() || 0 >= ((Int) size).longValue()) {
+                throw new LispIllegalArgumentException("fold requires a "
+                                                       + "positive chunk "
+                                                       + "size");
+            }
+            n = (int) Math.min(Integer.MAX_VALUE, ((Int) size).longValue());
         }
+        final Expr coll = args.get(last);
+        if (coll instanceof IFold) {
+            return ((IFold) coll).fold(n, stepOf(combine), stepOf(f));
+        }
+        return _reduce(stepOf(f), combine.invoke0(), coll);
+    }
+
+    /**
+     * One step of a reduction, called without an argument list.
+     */
+    @FunctionalInterface
+    private interface Step {
+        Expr apply(Expr result, Expr input) throws Throwable;
+    }
+
+    /**
+     * A reducing function, called with no arguments for the initial
+     * result, with the result alone once the reduction is done, and
+     * with the result so far and an element for each step.
+     */
+    private static Fun reducingFn(final IFn init,
+                                  final IFn complete,
+                                  final Step step) {
+        final Fun result = new Fun(init, 0, false);
+        result.addMethod(complete, 1, false);
+        result.addMethod(new IFn() {
+                @Override
+                public Expr invoke(final Seq args) throws Throwable {
+                    return invoke2(args.first(), args.get(1));
+                }
+
+                @Override
+                public Expr invoke2(final Expr a, final Expr b)
+                        throws Throwable {
+                    return step.apply(a, b);
+                }
+            }, 2, false);
         return result;
     }
-    public static Expr dissoc_BANG_(final Seq args) throws LispException {
-        if (1 > args.size()) {
-            throw new LispException("dissoc requires at least a map;"
-                                    + " but received "
-                                    + args.size()
-                                    + " arguments");
+
+    /**
+     * The reducing function {@code rf} with each step replaced, keeping
+     * its initial result and completion.
+     */
+    private static Fun wrap(final Fun rf, final Step step) {
+        return reducingFn(args -> rf.invoke0(),
+                          args -> rf.invoke1(args.first()),
+                          step);
+    }
+
+    /**
+     * A reducing function whose completion is the identity, unless the
+     * function given already has a completion of its own.
+     */
+    private static Fun completing(final Fun f) {
+        if (f.hasArity(1)) {
+            return f;
         }
-        Map map = (Map) args.first();
-        for (int i = 1; i < args.size(); i++) {
-            map.dissoc(args.get(i));
+        return reducingFn(args -> f.invoke0(), args -> args.first(),
+                          f::invoke2);
+    }
+
+    /**
+     * A transducer: a function from one reducing function to another.
+     */
+    private static Fun transducer(final String name,
+                                  final java.util.function.Function<Fun, Fun> xf) {
+        return new Fun(args -> xf.apply(_fnArg(args.first(), name)),
+                       1, false, new Symbol(name));
+    }
+
+    /**
+     * {@code (map f)} is the transducer applying {@code f} to each
+     * element; {@code (map f coll)} is the lazy list of the results.
+     */
+    public static Expr map(final Seq args) throws LispException {
+        checkArities(Set.of(1, 2), args, "map");
+        final Fun f = _fnArg(args.first(), "map");
+        if (2 == args.size()) {
+            return _lazyMap(f, args.get(1));
         }
-        return map;
+        return transducer("map", rf ->
+            wrap(rf, (result, input) -> rf.invoke2(result, f.invoke1(input))));
     }
-    public static Expr contains_QMARK_(final Seq args) throws LispException {
-        checkArity(2, args, "contains?");
-        Map m = (Map) args.first();
-        if (m.contains(args.get(1))) {
-            return Literal.T;
+
+    private static Seq _lazyMap(final Fun f, final Expr coll) {
+        return new LazySeq(args -> {
+                final Expr s = _seqArg(coll);
+                if (s.isNil()) {
+                    return s;
+                }
+                final Seq xs = (Seq) s;
+                final Expr y = f.invoke1(xs.first());
+                return _lazyMap(f, xs.rest()).cons(y);
+        });
+    }
+
+    /**
+     * {@code (filter pred)} is the transducer keeping the elements
+     * satisfying {@code pred}; {@code (filter pred coll)} is the lazy
+     * list of them.
+     */
+    public static Expr filter(final Seq args) throws LispException {
+        checkArities(Set.of(1, 2), args, "filter");
+        final Fun pred = _fnArg(args.first(), "filter");
+        if (2 == args.size()) {
+            return _lazyFilter(pred, args.get(1));
         }
-        return Literal.F;
+        return transducer("filter", rf ->
+            wrap(rf, (result, input) -> (Literal.isFalsy(pred.invoke1(input))
+                                         ? result
+                                         : rf.invoke2(result, input))));
     }
-    public static Expr keys(final Seq args) throws LispException {
-        checkArity(1, args, "keys");
-        return ((Map) args.first()).keys();
+
+    private static Seq _lazyFilter(final Fun pred, final Expr coll) {
+        return new LazySeq(args -> {
+                Expr s = _seqArg(coll);
+                // skip a run of rejected elements in this one step
+                while (!s.isNil()) {
+                    final Seq xs = (Seq) s;
+                    final Expr x = xs.first();
+                    if (!Literal.isFalsy(pred.invoke1(x))) {
+                        return _lazyFilter(pred, xs.rest()).cons(x);
+                    }
+                    s = _seqArg(xs.rest());
+                }
+                return s;
+        });
     }
-    public static Expr vals(final Seq args) throws LispException {
-        checkArity(1, args, "vals");
-        return ((Map) args.first()).values();
+
+    /**
+     * {@code (take n)} is the transducer keeping the first {@code n}
+     * elements, then stopping the reduction; {@code (take n coll)} is
+     * the lazy list of them.
+     */
+    public static Expr take(final Seq args) throws LispException {
+        checkArities(Set.of(1, 2), args, "take");
+        if (!args.first().isInt()) {
+            throw new LispIllegalArgumentException("take requires an int, "
+                                                   + "received "
+                                                   + args.first().type());
+        }
+        final long n = ((Int) args.first()).longValue();
+        if (2 == args.size()) {
+            return _lazyTake(n, args.get(1));
+        }
+        return transducer("take", rf -> {
+                final long[] left = {n};
+                return wrap(rf, (result, input) -> {
+                        final long k = left[0]--;
+                        final Expr next = (0 < k
+                                           ? rf.invoke2(result, input)
+                                           : result);
+                        return (1 < k ? next : Reduced.ensure(next));
+                });
+        });
     }
-    public static Expr read_string(final Seq args) throws LispException {
-        checkArity(1, args, "read-string");
-        final Str s = (Str) args.first();
-        ReadTable reader = new ReadTable(s.toString());
-        return reader.read();
+
+    private static Seq _lazyTake(final long n, final Expr coll) {
+        return new LazySeq(args -> {
+                if (0 >= n) {
+                    return Literal.NIL;
+                }
+                final Expr s = _seqArg(coll);
+                if (s.isNil()) {
+                    return s;
+                }
+                final Seq xs = (Seq) s;
+                return _lazyTake(n - 1, xs.rest()).cons(xs.first());
+        });
     }
-    public static Expr slurp(final Seq args) throws LispException {
-        try {
-            checkArity(1, args, "slurp");
-            final Path file = Path.of(args.first().toString());
-            final String content = Files.readString(file);
-            return new Str(content);
-        } catch (IOException e) {
-            throw new LispIOException(e);
+
+    /**
+     * {@code (mapcat f)} is the transducer splicing in the elements of
+     * {@code (f x)} for each element {@code x}; {@code (mapcat f coll)}
+     * is the lazy list of them.
+     */
+    public static Expr mapcat(final Seq args) throws LispException {
+        checkArities(Set.of(1, 2), args, "mapcat");
+        final Fun f = _fnArg(args.first(), "mapcat");
+        if (2 == args.size()) {
+            return _lazyCat(Literal.NIL, _lazyMap(f, args.get(1)));
         }
+        return transducer("mapcat", rf -> {
+                // a stop inside one inner collection must stop the outer
+                // reduction too, so it is wrapped once more
+                final IFn inner = new IFn() {
+                    @Override
+                    public Expr invoke(final Seq xs) throws Throwable {
+                        return invoke2(xs.first(), xs.get(1));
+                    }
+
+                    @Override
+                    public Expr invoke2(final Expr result, final Expr input)
+                            throws Throwable {
+                        final Expr next = rf.invoke2(result, input);
+                        return (next instanceof Reduced
+                                ? new Reduced(next)
+                                : next);
+                    }
+                };
+                return wrap(rf, (result, input) ->
+                            _reduce(inner, result, f.invoke1(input)));
+        });
     }
-    public static Expr list(final Seq args) throws LispException {
-        return args;
+
+    /**
+     * The elements of {@code current}, then those of each collection in
+     * the list {@code colls}, lazily.
+     */
+    private static Seq _lazyCat(final Expr current, final Expr colls) {
+        return new LazySeq(args -> {
+                Expr s = _seqArg(current);
+                Expr more = colls;
+                while (s.isNil()) {
+                    final Expr next = _seqArg(more);
+                    if (next.isNil()) {
+                        return next;
+                    }
+                    s = _seqArg(((Seq) next).first());
+                    more = ((Seq) next).rest();
+                }
+                final Seq xs = (Seq) s;
+                return _lazyCat(xs.rest(), more).cons(xs.first());
+        });
     }
 
-    public static Expr _throw(final Seq args) throws LispException {
-        final Str s = (Str) Core.str(args);
-        throw new LispException(s.value());
+    /**
+     * Compose functions, {@code ((comp f g) x)} being {@code (f (g x))};
+     * composing transducers gives the pipeline running through each
+     * stage from left to right.
+     */
+    public static Expr comp(final Seq args) throws LispException {
+        if (args.isEmpty()) {
+            return new Fun(xs -> xs.first(), 1, false, new Symbol("identity"));
+        }
+        final Fun[] fs = new Fun[args.size()];
+        for (int i = 0; i < fs.length; i++) {
+            fs[i] = _fnArg(args.get(i), "comp");
+        }
+        if (1 == fs.length) {
+            return fs[0];
+        }
+        final Fun last = fs[fs.length - 1];
+        return new Fun(new IFn() {
+                @Override
+                public Expr invoke(final Seq xs) throws Throwable {
+                    return apply(last.invoke(xs));
+                }
+
+                @Override
+                public Expr invoke1(final Expr a) throws Throwable {
+                    return apply(last.invoke1(a));
+                }
+
+                private Expr apply(final Expr value) throws Throwable {
+                    Expr result = value;
+                    for (int i = fs.length - 2; i >= 0; i--) {
+                        result = fs[i].invoke1(result);
+                    }
+                    return result;
+                }
+            }, 0, true, new Symbol("comp"));
     }
-    // public static Expr (final Seq args) throws LispException {}
+
+    /**
+     * Reduce a collection through a transducer, {@code (transduce xform
+     * f coll)} or {@code (transduce xform f init coll)}, as one loop
+     * with no intermediate collections.
+     *
+     * <p>Without an initial value {@code (f)} is used. The result is
+     * passed through the completion of {@code (xform f)} last.</p>
+     */
+    public static Expr transduce(final Seq args) throws Throwable {
+        checkArities(Set.of(3, 4), args, "transduce");
+        final Fun xform = _fnArg(args.first(), "transduce");
+        final Fun f = completing(_fnArg(args.get(1), "transduce"));
+        final Fun rf = _fnArg(xform.invoke1(f), "transduce");
+        final Expr init = (4 == args.size() ? args.get(2) : f.invoke0());
+        final Expr result = _reduce(stepOf(rf), init,
+                                    args.get(args.size() - 1));
+        return rf.invoke1(result);
+    }
+
+    /**
+     * Add the elements of a collection to another, {@code (into to
+     * from)}, or pass them through a transducer first, {@code (into to
+     * xform from)}.
+     *
+     * <p>A vector or map is built up as a transient, so only the final
+     * collection is persistent. Elements are consed onto the front of a
+     * list, as {@code conj} does.</p>
+     */
+    public static Expr into(final Seq args) throws Throwable {
+        checkArities(Set.of(2, 3), args, "into");
+        final Expr to = (args.first().isNil() ? new Seq() : args.first());
+        final Expr from = args.get(args.size() - 1);
+        Fun rf;
+        Expr init;
+        if (to.isVector() || to.isMap()) {
+            init = (to.isVector()
+                    ? ((Vector) to).asTransient()
+                    : ((Map) to).asTransient());
+            rf = reducingFn(xs -> to,
+                            xs -> ((ATransient) xs.first()).persistent(),
+                            (result, input) -> ((ATransient) result).conj(input));
+        } else if (to.isList()) {
+            init = to;
+            rf = reducingFn(xs -> to, xs -> xs.first(),
+                            (result, input) -> ((Seq) result).cons(input));
+        } else {
+            throw new LispIllegalArgumentException("into requires a list, "
+                                                   + "vector or map, received "
+                                                   + to.type());
+        }
+        if (3 == args.size()) {
+            rf = _fnArg(_fnArg(args.get(1), "into").invoke1(rf), "into");
+        }
+        return rf.invoke1(_reduce(stepOf(rf), init, from));
+    }
+    /**
+     * Call a function of no arguments on another thread, {@code
+     * (future-call f)}; {@code (future body...)} is the same with the
+     * body made into the function.
+     */
+    public static Expr future_call(final Seq args) throws LispException {
+        checkArity(1, args, "future-call");
+        final Fun f = _fnArg(args.first(), "future-call");
+        return new Future(xs -> f.invoke0());
+    }
+
+    private static IDeref _derefArg(final Expr arg, final String name)
+            throws LispException {
+        if (!(arg instanceof IDeref)) {
+            throw new LispIllegalArgumentException(name + " requires a "
+                                                   + "reference, received "
+                                                   + arg.type());
+        }
+        return (IDeref) arg;
+    }
+
+    /**
+     * The value of a reference, {@code (deref ref)} or {@code @ref},
+     * waiting for it if need be; {@code (deref ref timeout-ms
+     * timeout-val)} waits at most so many milliseconds, then gives
+     * {@code timeout-val}.
+     */
+    public static Expr deref(final Seq args) throws Throwable {
+        checkArities(Set.of(1, 3), args, "deref");
+        final IDeref ref = _derefArg(args.first(), "deref");
+        if (1 == args.size()) {
+            return ref.deref();
+        }
+        if (!args.get(1).isInt()) {
+            throw new LispIllegalArgumentException("deref requires an int "
+                                                   + "timeout, received "
+                                                   + args.get(1).type());
+        }
+        return ref.deref(((Int) args.get(1)).longValue(), args.get(2));
+    }
+
+    public static Expr realized_QMARK_(final Seq args) throws LispException {
+        checkArity(1, args, "realized?");
+        return boxBool.apply(_derefArg(args.first(), "realized?")
+                             .isRealized());
+    }
+
+    public static Expr promise(final Seq args) throws LispException {
+        checkArity(0, args, "promise");
+        return new Promise();
+    }
+
+    /**
+     * Deliver a value to a promise, {@code (deliver p val)}, giving the
+     * promise; delivering to it again does nothing and gives nil.
+     */
+    public static Expr deliver(final Seq args) throws LispException {
+        checkArity(2, args, "deliver");
+        if (!(args.first() instanceof Promise)) {
+            throw new LispIllegalArgumentException("deliver requires a "
+                                                   + "promise, received "
+                                                   + args.first().type());
+        }
+        final Promise p = (Promise) args.first();
+        return (p.deliver(args.get(1)) ? p : Literal.NIL);
+    }
+
+    /**
+     * Like {@code map}, but calling the function in futures, {@code
+     * (pmap f coll)} or {@code (pmap n f coll)}.
+     *
+     * <p>The result is lazy: at most {@code n} calls run ahead of the
+     * element being read, by default two more than there are
+     * processors.</p>
+     */
+    public static Expr pmap(final Seq args) throws LispException {
+        checkArities(Set.of(2, 3), args, "pmap");
+        int n = Runtime.getRuntime().availableProcessors() + 2;
+        if (3 == args.size()) {
+            final Expr size = args.first();
+            if (!size.isInt() || 0 >= ((Int) size).longValue()) {
+                throw new LispIllegalArgumentException("pmap requires a "
+                                                       + "positive "
+                                                       + "parallelism");
+            }
+            n = (int) Math.min(Integer.MAX_VALUE, ((Int) size).longValue());
+        }
+        final Fun f = _fnArg(args.get(args.size() - 2), "pmap");
+        final Seq futures = _launch(f, args.get(args.size() - 1));
+        return _pmapStep(futures, futures.slice(n));
+    }
+
+    /**
+     * The lazy list of futures calling {@code f} on each element, each
+     * submitted when its cell is realized.
+     */
+    private static Seq _launch(final Fun f, final Expr coll) {
+        return new LazySeq(args -> {
+                final Expr s = _seqArg(coll);
+                if (s.isNil()) {
+                    return s;
+                }
+                final Seq xs = (Seq) s;
+                final Expr x = xs.first();
+                final Future future = new Future(ys -> f.invoke1(x));
+                return _launch(f, xs.rest()).cons(future);
+        });
+    }
+
+    /**
+     * The values of the futures, realizing one more of the futures
+     * {@code ahead} for each value read, so the window of running calls
+     * keeps its size.
+     */
+    private static Seq _pmapStep(final Seq futures, final Seq ahead) {
+        return new LazySeq(args -> {
+                final Expr s = _seqArg(futures);
+                if (s.isNil()) {
+                    return s;
+                }
+                final Seq xs = (Seq) s;
+                final Expr more = _seqArg(ahead);
+                final Expr value = ((Future) xs.first()).deref();
+                return _pmapStep(xs.rest(),
+                                 (more.isNil() ? ahead : ((Seq) more).rest()))
+                    .cons(value);
+        });
+    }
+
+    private static final Keyword VALIDATOR = new Keyword("validator");
+
+    /**
+     * A new atom, {@code (atom x)} or {@code (atom x :validator f)}.
+     */
+    public static Expr atom(final Seq args) throws Throwable {
+        checkArities(Set.of(1, 3), args, "atom");
+        final Atom a = new Atom(args.first());
+        if (3 == args.size()) {
+            if (!VALIDATOR.equals(args.get(1))) {
+                throw new LispIllegalArgumentException("atom only takes a "
+                                                       + ":validator option");
+            }
+            a.setValidator(_fnArg(args.get(2), "atom"));
+        }
+        return a;
+    }
+
+    private static Atom _atomArg(final Expr arg, final String name)
+            throws LispException {
+        if (!(arg instanceof Atom)) {
+            throw new LispIllegalArgumentException(name + " requires an "
+                                                   + "atom, received "
+                                                   + arg.type());
+        }
+        return (Atom) arg;
+    }
+
+    private static ARef _refArg(final Expr arg, final String name)
+            throws LispException {
+        if (!(arg instanceof ARef)) {
+            throw new LispIllegalArgumentException(name + " requires a "
+                                                   + "reference, received "
+                                                   + arg.type());
+        }
+        return (ARef) arg;
+    }
+
+    /**
+     * Update an atom to {@code (f old args...)}, {@code (swap! a f
+     * args...)}, retrying should another thread get there first.
+     */
+    public static Expr swap_BANG_(final Seq args) throws Throwable {
+        if (args.size() < 2) {
+            throw new LispException("swap! requires an atom and a function");
+        }
+        final Atom a = _atomArg(args.first(), "swap!");
+        final Fun f = _fnArg(args.get(1), "swap!");
+        return a.swap(_applying(f, args.slice(2)));
+    }
+
+    /**
+     * The function taking {@code old} to {@code (f old extra...)}.
+     */
+    private static IFn _applying(final Fun f, final Seq extra) {
+        return new IFn() {
+                @Override
+                public Expr invoke(final Seq xs) throws Throwable {
+                    return invoke1(xs.first());
+                }
+
+                @Override
+                public Expr invoke1(final Expr old) throws Throwable {
+                    switch (extra.size()) {
+                    case 0: return f.invoke1(old);
+                    case 1: return f.invoke2(old, extra.first());
+                    default:
+                        return f.invoke(extra.cons(old));
+                    }
+                }
+            };
+    }
+
+    public static Expr reset_BANG_(final Seq args) throws Throwable {
+        checkArity(2, args, "reset!");
+        return _atomArg(args.first(), "reset!").reset(args.get(1));
+    }
+
+    /**
+     * Set an atom to a new value only if it still equals the old one,
+     * {@code (compare-and-set! a old new)}; true if it was set.
+     */
+    public static Expr compare_and_set_BANG_(final Seq args)
+            throws Throwable {
+        checkArity(3, args, "compare-and-set!");
+        final Atom a = _atomArg(args.first(), "compare-and-set!");
+        return boxBool.apply(a.compareAndSet(args.get(1), args.get(2)));
+    }
+
+    /**
+     * Call {@code (f key ref old new)} after every change to a
+     * reference, {@code (add-watch ref key f)}; a watch added under the
+     * same key replaces it.
+     */
+    public static Expr add_watch(final Seq args) throws LispException {
+        checkArity(3, args, "add-watch");
+        final ARef ref = _refArg(args.first(), "add-watch");
+        ref.addWatch(args.get(1), _fnArg(args.get(2), "add-watch"));
+        return ref;
+    }
+
+    public static Expr remove_watch(final Seq args) throws LispException {
+        checkArity(2, args, "remove-watch");
+        final ARef ref = _refArg(args.first(), "remove-watch");
+        ref.removeWatch(args.get(1));
+        return ref;
+    }
+
+    /**
+     * Set the function every new value of a reference must satisfy, or
+     * remove it with nil.
+     */
+    public static Expr set_validator_BANG_(final Seq args) throws Throwable {
+        checkArity(2, args, "set-validator!");
+        final ARef ref = _refArg(args.first(), "set-validator!");
+        ref.setValidator(args.get(1).isNil()
+                         ? null
+                         : _fnArg(args.get(1), "set-validator!"));
+        return Literal.NIL;
+    }
+
+    public static Expr get_validator(final Seq args) throws LispException {
+        checkArity(1, args, "get-validator");
+        final Fun f = _refArg(args.first(), "get-validator").validator();
+        return (null == f ? Literal.NIL : f);
+    }
+
+    /**
+     * A new ref, {@code (ref x)} or {@code (ref x :validator f)}, to be
+     * changed only inside {@code dosync}.
+     */
+    public static Expr ref(final Seq args) throws Throwable {
+        checkArities(Set.of(1, 3), args, "ref");
+        final Ref r = new Ref(args.first());
+        if (3 == args.size()) {
+            if (!VALIDATOR.equals(args.get(1))) {
+                throw new LispIllegalArgumentException("ref only takes a "
+                                                       + ":validator option");
+            }
+            r.setValidator(_fnArg(args.get(2), "ref"));
+        }
+        return r;
+    }
+
+    private static Ref _txRefArg(final Expr arg, final String name)
+            throws LispException {
+        if (!(arg instanceof Ref)) {
+            throw new LispIllegalArgumentException(name + " requires a "
+                                                   + "ref, received "
+                                                   + arg.type());
+        }
+        return (Ref) arg;
+    }
+
+    public static Expr ref_set(final Seq args) throws LispException {
+        checkArity(2, args, "ref-set");
+        return Transaction.set(_txRefArg(args.first(), "ref-set"),
+                               args.get(1));
+    }
+
+    /**
+     * Set a ref to {@code (f old args...)} in the current transaction,
+     * {@code (alter r f args...)}.
+     */
+    public static Expr alter(final Seq args) throws Throwable {
+        if (args.size() < 2) {
+            throw new LispException("alter requires a ref and a function");
+        }
+        final Ref r = _txRefArg(args.first(), "alter");
+        final Fun f = _fnArg(args.get(1), "alter");
+        return Transaction.alter(r, _applying(f, args.slice(2)));
+    }
+
+    /**
+     * Set a ref to {@code (f old args...)} in the current transaction,
+     * {@code (commute r f args...)}, applying {@code f} again to the
+     * latest value at commit; for changes, like adding to a counter,
+     * that may happen in any order.
+     */
+    public static Expr commute(final Seq args) throws Throwable {
+        if (args.size() < 2) {
+            throw new LispException("commute requires a ref and a function");
+        }
+        final Ref r = _txRefArg(args.first(), "commute");
+        final Fun f = _fnArg(args.get(1), "commute");
+        return Transaction.commute(r, _applying(f, args.slice(2)));
+    }
+
+    /**
+     * The value of a ref, which no other transaction may change before
+     * the current one commits.
+     */
+    public static Expr ensure(final Seq args) throws LispException {
+        checkArity(1, args, "ensure");
+        return Transaction.ensure(_txRefArg(args.first(), "ensure"));
+    }
+
+    /**
+     * A map counting the transactions committed and retried so far, and
+     * the nanoseconds spent committing them, in total and at most.
+     */
+    public static Expr stm_stats(final Seq args) throws LispException {
+        checkArity(0, args, "stm-stats");
+        return Transaction.stats();
+    }
+
+    private static final Keyword DROPPING = new Keyword("dropping");
+    private static final Keyword SLIDING = new Keyword("sliding");
+
+    /**
+     * A new channel: {@code (chan)} is unbuffered, {@code (chan n)} holds
+     * up to {@code n} values, and {@code (chan n :dropping)} or {@code
+     * (chan n :sliding)} never make a put wait, discarding the newest or
+     * the oldest value when full.
+     */
+    public static Expr chan(final Seq args) throws LispException {
+        checkArities(Set.of(0, 1, 2), args, "chan");
+        if (args.isEmpty()) {
+            return new Chan();
+        }
+        if (!args.first().isInt()) {
+            throw new LispIllegalArgumentException("chan requires a buffer "
+                                                   + "size, received "
+                                                   + args.first().type());
+        }
+        final long n = ((Int) args.first()).longValue();
+        Chan.Policy policy = Chan.Policy.FIXED;
+        if (2 == args.size()) {
+            if (DROPPING.equals(args.get(1))) {
+                policy = Chan.Policy.DROPPING;
+            } else if (SLIDING.equals(args.get(1))) {
+                policy = Chan.Policy.SLIDING;
+            } else {
+                throw new LispIllegalArgumentException("chan buffer must be "
+                                                       + ":dropping or "
+                                                       + ":sliding");
+            }
+        }
+        if (n < 0 || n > Integer.MAX_VALUE
+                || (0 == n && Chan.Policy.FIXED != policy)) {
+            throw new LispIllegalArgumentException("Invalid buffer size "
+                                                   + n);
+        }
+        return new Chan((int) n, policy);
+    }
+
+    private static Chan _chanArg(final Expr arg, final String name)
+            throws LispException {
+        if (!(arg instanceof Chan)) {
+            throw new LispIllegalArgumentException(name + " requires a "
+                                                   + "channel, received "
+                                                   + arg.type());
+        }
+        return (Chan) arg;
+    }
+
+    /**
+     * Put a value on a channel, {@code (>!! c x)}, waiting for room;
+     * false if the channel is closed.
+     */
+    public static Expr _GT__BANG__BANG_(final Seq args) throws Throwable {
+        checkArity(2, args, ">!!");
+        return boxBool.apply(_chanArg(args.first(), ">!!").put(args.get(1)));
+    }
+
+    /**
+     * Take a value from a channel, {@code (<!! c)}, waiting for one; nil
+     * once the channel is closed and empty.
+     */
+    public static Expr _LT__BANG__BANG_(final Seq args) throws Throwable {
+        checkArity(1, args, "<!!");
+        return _chanArg(args.first(), "<!!").take();
+    }
+
+    /**
+     * Put a value on a channel only if that needs no waiting, {@code
+     * (offer! c x)}; true if it was put.
+     */
+    public static Expr offer_BANG_(final Seq args) throws LispException {
+        checkArity(2, args, "offer!");
+        final Literal done = _chanArg(args.first(), "offer!")
+            .offer(args.get(1));
+        return (null == done ? Literal.F : done);
+    }
+
+    /**
+     * Take a value from a channel only if that needs no waiting, {@code
+     * (poll! c)}; nil if there is none.
+     */
+    public static Expr poll_BANG_(final Seq args) throws LispException {
+        checkArity(1, args, "poll!");
+        final Expr value = _chanArg(args.first(), "poll!").poll();
+        return (null == value ? Literal.NIL : value);
+    }
+
+    public static Expr close_BANG_(final Seq args) throws LispException {
+        checkArity(1, args, "close!");
+        _chanArg(args.first(), "close!").close();
+        return Literal.NIL;
+    }
+
+    private static final Keyword DEFAULT = new Keyword("default");
+    private static final Keyword PRIORITY = new Keyword("priority");
+
+    /**
+     * Complete whichever of several channel operations can go first,
+     * {@code (alts!! [c1 [c2 x] ...])}, taking from {@code c1} or putting
+     * {@code x} on {@code c2}; the value is {@code [v c]}, what was taken
+     * or whether it was put, and the channel. The options {@code
+     * :default v}, not waiting at all, and {@code :priority true},
+     * preferring the operations in order, may follow.
+     */
+    public static Expr alts_BANG__BANG_(final Seq args) throws Throwable {
+        if (args.isEmpty() || 0 == args.size() % 2
+                || !args.first().isVector()) {
+            throw new LispIllegalArgumentException("alts!! requires a vector "
+                                                   + "of operations, and "
+                                                   + "options in pairs");
+        }
+        final List<Expr> ops = new ArrayList<>();
+        for (Expr op : (Vector) args.first()) {
+            ops.add(op);
+        }
+        Expr defaultValue = null;
+        boolean priority = false;
+        for (int i = 1; i < args.size(); i += 2) {
+            if (DEFAULT.equals(args.get(i))) {
+                defaultValue = args.get(i + 1);
+            } else if (PRIORITY.equals(args.get(i))) {
+                priority = !Literal.isFalsy(args.get(i + 1));
+            } else {
+                throw new LispIllegalArgumentException("alts!! only takes "
+                                                       + ":default and "
+                                                       + ":priority options");
+            }
+        }
+        try {
+            return Chan.alts(ops, priority, defaultValue);
+        } catch (IllegalArgumentException e) {
+            throw new LispIllegalArgumentException(e.getMessage());
+        }
+    }
+
+    /**
+     * Call a function of no arguments on another thread, {@code
+     * (thread-call f)}, returning a channel which receives its value.
+     */
+    public static Expr thread_call(final Seq args) throws LispException {
+        checkArity(1, args, "thread-call");
+        final Fun f = _fnArg(args.first(), "thread-call");
+        return Chan.thread(f::invoke);
+    }
+
+    /**
+     * Associate keys to values in place, in a transient vector or map.
+     *
+     * <p>A plain map is still updated in place too, for the sake of
+     * older code, though a map shared with anything else should be made
+     * transient first.</p>
+     */
+    public static Expr assoc_BANG_(final Seq args) throws LispException {
+        if (3 > args.size()) {
+            throw new LispException("assoc requires at least a map, a key, "
+                                    + "a value; but received "
+                                    + args.size()
+                                    + " arguments");
+        }
+        if (1 != args.size() % 2) {
+            throw new LispException("assoc requires"
+                                    + " an even number of bindings");
+        }
+        final Expr coll = args.first();
+        if (coll instanceof Vector.TransientVector) {
+            Vector.TransientVector v = (Vector.TransientVector) coll;
+            for (int i = 1; i < args.size(); i += 2) {
+                final Expr index = args.get(i);
+                if (!index.isInt()) {
+                    throw new LispIllegalArgumentException("assoc! on a "
+                                                           + "vector requires "
+                                                           + "an int index, "
+                                                           + "received "
+                                                           + index.type());
+                }
+                v = v.assocN((int) ((Int) index).longValue(),
+                             args.get(i + 1));
+            }
+            return v;
+        } else if (coll instanceof Map.TransientMap) {
+            Map.TransientMap map = (Map.TransientMap) coll;
+            for (int i = 1; i < args.size(); i += 2) {
+                map = map.assoc(args.get(i), args.get(i + 1));
+            }
+            return map;
+        }
+        Map map = (Map) coll;
+        for (int i = 1; i < args.size(); i += 2) {
+            map.assoc(args.get(i), args.get(i + 1));
+        }
+        return map;
+    }
+
+    public static Expr dissoc(final Seq args) throws LispException {
+        if (1 > args.size()) {
+            throw new LispException("dissoc requires at least a map;"
+                                    + " but received "
+                                    + args.size()
+                                    + " arguments");
+        }
+        Map result = (Map) args.first();
+        for (int i = 1; i < args.size(); i++) {
+            result = result.dissociate(args.get(i));
+        }
+        return result;
+    }
+    public static Expr dissoc_BANG_(final Seq args) throws LispException {
+        if (1 > args.size()) {
+            throw new LispException("dissoc requires at least a map;"
+                                    + " but received "
+                                    + args.size()
+                                    + " arguments");
+        }
+        if (args.first() instanceof Map.TransientMap) {
+            Map.TransientMap map = (Map.TransientMap) args.first();
+            for (int i = 1; i < args.size(); i++) {
+                map = map.dissoc(args.get(i));
+            }
+            return map;
+        }
+        Map map = (Map) args.first();
+        for (int i = 1; i < args.size(); i++) {
+            map.dissoc(args.get(i));
+        }
+        return map;
+    }
+
+    /**
+     * A transient copy of a vector or map, in constant time.
+     */
+    public static Expr _transient(final Seq args) throws LispException {
+        checkArity(1, args, "transient");
+        final Expr coll = args.first();
+        if (coll.isVector()) {
+            return ((Vector) coll).asTransient();
+        } else if (coll.isMap()) {
+            return ((Map) coll).asTransient();
+        }
+        throw new LispIllegalArgumentException("transient applied to "
+                                               + "unexpected type '"
+                                               + coll.type() + "'");
+    }
+
+    private static ATransient _transientArg(final Expr arg, final String name)
+            throws LispException {
+        if (!(arg instanceof ATransient)) {
+            throw new LispIllegalArgumentException(name + " requires a "
+                                                   + "transient, received "
+                                                   + arg.type());
+        }
+        return (ATransient) arg;
+    }
+
+    /**
+     * Add elements to a transient in place: at the end of a vector, or
+     * as {@code [k v]} pairs to a map.
+     */
+    public static Expr conj_BANG_(final Seq args) throws LispException {
+        if (args.isEmpty()) {
+            return new Vector().asTransient();
+        }
+        ATransient coll = _transientArg(args.first(), "conj!");
+        for (int i = 1; i < args.size(); i++) {
+            coll = coll.conj(args.get(i));
+        }
+        return coll;
+    }
+
+    /**
+     * Remove the last element of a transient vector in place.
+     */
+    public static Expr pop_BANG_(final Seq args) throws LispException {
+        checkArity(1, args, "pop!");
+        final ATransient coll = _transientArg(args.first(), "pop!");
+        if (!(coll instanceof Vector.TransientVector)) {
+            throw new LispIllegalArgumentException("pop! requires a "
+                                                   + "transient vector");
+        }
+        return ((Vector.TransientVector) coll).pop();
+    }
+
+    /**
+     * Freeze a transient into a persistent vector or map, in constant
+     * time; the transient can no longer be used.
+     */
+    public static Expr persistent_BANG_(final Seq args)
+            throws LispException {
+        checkArity(1, args, "persistent!");
+        return _transientArg(args.first(), "persistent!").persistent();
+    }
+
+    public static Expr contains_QMARK_(final Seq args) throws LispException {
+        checkArity(2, args, "contains?");
+        return _contains(args.first(), args.get(1));
+    }
+
+    private static Expr _contains(final Expr map, final Expr key) {
+        Map m = (Map) map;
+        if (m.contains(key)) {
+            return Literal.T;
+        }
+        return Literal.F;
+    }
+    public static Expr keys(final Seq args) throws LispException {
+        checkArity(1, args, "keys");
+        return ((Map) args.first()).keys();
+    }
+    public static Expr vals(final Seq args) throws LispException {
+        checkArity(1, args, "vals");
+        return ((Map) args.first()).values();
+    }
+    public static Expr read_string(final Seq args) throws LispException {
+        checkArity(1, args, "read-string");
+        final Str s = (Str) args.first();
+        ReadTable reader = new ReadTable(s.toString());
+        return reader.read();
+    }
+    public static Expr slurp(final Seq args) throws LispException {
+        try {
+            checkArity(1, args, "slurp");
+            final Path file = Path.of(args.first().toString());
+            final String content = Files.readString(file);
+            return new Str(content);
+        } catch (IOException e) {
+            throw new LispIOException(e);
+        }
+    }
+    public static Expr list(final Seq args) throws LispException {
+        return args;
+    }
+
+    public static Expr _throw(final Seq args) throws LispException {
+        final Str s = (Str) Core.str(args);
+        throw new LispException(s.value());
+    }
+    // public static Expr (final Seq args) throws LispException {}
+
+    /*
+     * The primitives as functions with fixed-arity entry points, so a
+     * call like (+ a b) allocates no argument list. Calls with other
+     * numbers of arguments fall back on the methods above.
+     */
+
+    private static int compare(final Expr a, final Expr b, final String op)
+            throws LispException {
+        if (a instanceof Int && b instanceof Int) {
+            return Long.compare(((Int) a).longValue(), ((Int) b).longValue());
+        }
+        if (!a.isNumber() || !b.isNumber()) {
+            throw new LispException(op + " works on numbers");
+        }
+        return num(a).compareTo(num(b));
+    }
+
+    public static final IFn ADD = new IFn() {
+        @Override
+        public Expr invoke(final Seq args) throws LispException {
+            return add(args);
+        }
+
+        @Override
+        public Expr invoke0() {
+            return Literal.ZERO;
+        }
+
+        @Override
+        public Expr invoke1(final Expr a) {
+            return num(a);
+        }
+
+        @Override
+        public Expr invoke2(final Expr a, final Expr b) {
+            return num(a).add(num(b));
+        }
+    };
+
+    public static final IFn SUBTRACT = new IFn() {
+        @Override
+        public Expr invoke(final Seq args) throws LispException {
+            return subtract(args);
+        }
+
+        @Override
+        public Expr invoke0() {
+            return Literal.ZERO;
+        }
+
+        @Override
+        public Expr invoke1(final Expr a) {
+            return num(a);
+        }
+
+        @Override
+        public Expr invoke2(final Expr a, final Expr b) {
+            return num(a).subtract(num(b));
+        }
+    };
+
+    public static final IFn MULTIPLY = new IFn() {
+        @Override
+        public Expr invoke(final Seq args) throws LispException {
+            return multiply(args);
+        }
+
+        @Override
+        public Expr invoke0() {
+            return Literal.ONE;
+        }
+
+        @Override
+        public Expr invoke1(final Expr a) {
+            return num(a);
+        }
+
+        @Override
+        public Expr invoke2(final Expr a, final Expr b) {
+            return num(a).multiply(num(b));
+        }
+    };
+
+    public static final IFn DIVIDE = new IFn() {
+        @Override
+        public Expr invoke(final Seq args) throws LispException {
+            return divide(args);
+        }
+
+        @Override
+        public Expr invoke0() {
+            return Literal.ONE;
+        }
+
+        @Override
+        public Expr invoke1(final Expr a) {
+            return ((Int) Literal.ONE).divide(num(a));
+        }
+
+        @Override
+        public Expr invoke2(final Expr a, final Expr b) {
+            return num(a).divide(num(b));
+        }
+    };
+
+    public static final IFn EQUALITY = new IFn() {
+        @Override
+        public Expr invoke(final Seq args) throws LispException {
+            return equality(args);
+        }
+
+        @Override
+        public Expr invoke0() {
+            return Literal.T;
+        }
+
+        @Override
+        public Expr invoke1(final Expr a) {
+            return Literal.T;
+        }
+
+        @Override
+        public Expr invoke2(final Expr a, final Expr b) {
+            return (a.equals(b) ? Literal.T : Literal.F);
+        }
+    };
+
+    public static final IFn LESS_THAN = new IFn() {
+        @Override
+        public Expr invoke(final Seq args) throws LispException {
+            return LT(args);
+        }
+
+        @Override
+        public Expr invoke0() {
+            return Literal.T;
+        }
+
+        @Override
+        public Expr invoke1(final Expr a) {
+            return Literal.T;
+        }
+
+        @Override
+        public Expr invoke2(final Expr a, final Expr b) throws LispException {
+            return (compare(a, b, "<") < 0 ? Literal.T : Literal.F);
+        }
+    };
+
+    public static final IFn LESS_OR_EQUAL = new IFn() {
+        @Override
+        public Expr invoke(final Seq args) throws LispException {
+            return LEQ(args);
+        }
+
+        @Override
+        public Expr invoke0() {
+            return Literal.T;
+        }
+
+        @Override
+        public Expr invoke1(final Expr a) {
+            return Literal.T;
+        }
+
+        @Override
+        public Expr invoke2(final Expr a, final Expr b) throws LispException {
+            return (compare(a, b, "<=") <= 0 ? Literal.T : Literal.F);
+        }
+    };
+
+    public static final IFn GREATER_THAN = new IFn() {
+        @Override
+        public Expr invoke(final Seq args) throws LispException {
+            return GT(args);
+        }
+
+        @Override
+        public Expr invoke0() {
+            return Literal.T;
+        }
+
+        @Override
+        public Expr invoke1(final Expr a) {
+            return Literal.T;
+        }
+
+        @Override
+        public Expr invoke2(final Expr a, final Expr b) throws LispException {
+            return (compare(a, b, ">") > 0 ? Literal.T : Literal.F);
+        }
+    };
+
+    public static final IFn GREATER_OR_EQUAL = new IFn() {
+        @Override
+        public Expr invoke(final Seq args) throws LispException {
+            return GEQ(args);
+        }
+
+        @Override
+        public Expr invoke0() {
+            return Literal.T;
+        }
+
+        @Override
+        public Expr invoke1(final Expr a) {
+            return Literal.T;
+        }
+
+        @Override
+        public Expr invoke2(final Expr a, final Expr b) throws LispException {
+            return (compare(a, b, ">=") >= 0 ? Literal.T : Literal.F);
+        }
+    };
+
+    /**
+     * {@code (apply f x ... coll)} calls {@code f} on the arguments
+     * {@code x ...} followed by the items of {@code coll}.
+     *
+     * <p>That call is the last thing {@code apply} does, so when the
+     * function is trampolined it is left to the caller's trampoline:
+     * tail calls through {@code apply} take no stack.</p>
+     */
+    public static final IFn APPLY = new ITrampolined() {
+        private Seq spread(final Seq args) throws LispException {
+            if (args.size() < 2) {
+                throw new LispException("apply requires a function and "
+                                        + "a list of arguments");
+            }
+            Seq result = new Seq();
+            final int last = args.size() - 1;
+            for (int i = 1; i < last; i++) {
+                result.conj(args.get(i));
+            }
+            final Expr coll = _seqArg(args.get(last));
+            if (!coll.isNil()) {
+                for (Expr e : (Seq) coll) {
+                    result.conj(e);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public Expr invokeStep(final Seq args) throws Throwable {
+            final Seq fnArgs = spread(args);
+            final IFn f = ((Fun) args.first()).getIFn(fnArgs.size());
+            if (f instanceof ITrampolined) {
+                return new TailCall((ITrampolined) f, fnArgs);
+            }
+            return f.invoke(fnArgs);
+        }
+
+        @Override
+        public Expr invoke(final Seq args) throws Throwable {
+            return TailCall.trampoline(invokeStep(args));
+        }
+    };
+
+    public static final IFn COUNT = withFastPath(Core::count, Core::_count);
+    public static final IFn EMPTY_QMARK_
+        = withFastPath(Core::empty_QMARK_, Core::_isEmpty);
+    public static final IFn SEQ = withFastPath(Core::seq, Core::_seqArg);
+    public static final IFn FIRST = withFastPath(Core::first, Core::_first);
+    public static final IFn REST = withFastPath(Core::rest, Core::_rest);
+    public static final IFn CONS = withFastPath(Core::cons, Core::_cons);
+    public static final IFn NTH = withFastPath(Core::nth,
+        (Binary) (coll, i) -> _nth(coll, i, Literal.NIL));
+    public static final IFn GET = withFastPath(Core::get,
+        (Binary) (coll, key) -> _get(coll, key, Literal.NIL));
+    public static final IFn CONTAINS_QMARK_
+        = withFastPath(Core::contains_QMARK_, Core::_contains);
 }
@@ -1,15 +1,35 @@
 package com.github.pqnelson;
 
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 import com.github.pqnelson.expr.Expr;
+import com.github.pqnelson.expr.Fun;
 import com.github.pqnelson.expr.Seq;
 import com.github.pqnelson.expr.Symbol;
 import com.github.pqnelson.expr.Vector;
 
+/**
+ * The bindings of names to values, each held in a {@link Var}.
+ *
+ * <p>The global environment, the one without a parent, may be shared by
+ * any number of threads evaluating against it: its vars live in a
+ * concurrent map, so looking a name up never locks, and defining one
+ * either rebinds its var atomically or adds the var if there is none
+ * yet. An environment extending another is only ever used by the thread
+ * which made it, so it uses a plain map.</p>
+ */
 public final class Env {
     private final Env outer;
-    private HashMap<String, Expr> table = new HashMap<>();
+    private final java.util.Map<String, Var> table;
     private static final Symbol AMPERSAND = new Symbol("&");
+    /**
+     * How many times a binding the analyzer relies on (a macro, or a pure
+     * function it may have folded a call to) has been made or replaced
+     * here. Analyzed code keeps its assumptions while this stays put.
+     */
+    private final AtomicLong bindingEpoch = new AtomicLong();
 
     public Env() {
         this(null);
@@ -17,6 +37,9 @@ public final class Env {
 
     public Env(final Env parent) {
         this.outer = parent;
+        this.table = (null == parent
+                      ? new ConcurrentHashMap<>()
+                      : new HashMap<>());
     }
 
     /**
@@ -33,15 +56,15 @@ public final class Env {
         /* assert ((vars.size() < exprs.size()
                        && vars.get(vars.size()-2).equals(AMPERSAND))
                    || (vars.size() == exprs.size())); */
-        this.outer = parent;
+        this(parent);
         for (int i = 0; i < vars.size(); i++) {
             final Symbol s = ((Symbol) vars.get(i));
             if (s.equals(this.AMPERSAND)) {
-                String k = ((Symbol) vars.get(i + 1)).name();
-                table.put(k, exprs.slice(i));
+                final Symbol rest = (Symbol) vars.get(i + 1);
+                this.table.put(rest.name(), new Var(rest, exprs.slice(i)));
                 break;
             } else {
-                table.put(s.name(), exprs.get(i));
+                this.table.put(s.name(), new Var(s, exprs.get(i)));
             }
         }
     }
@@ -56,17 +79,83 @@ public final class Env {
         }
     }
 
+    /**
+     * The var bound to a symbol here or in an enclosing environment, or
+     * null if there is none.
+     */
+    public Var lookup(final Symbol key) {
+        final String name = key.name();
+        for (Env e = this; null != e; e = e.outer) {
+            final Var v = e.table.get(name);
+            if (null != v) {
+                return v;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The var bound to a symbol in this environment itself, or null.
+     */
+    public Var localVar(final Symbol key) {
+        return this.table.get(key.name());
+    }
+
+    /**
+     * Look up the value bound to a symbol.
+     *
+     * <p>Locals never reach here (they live in frame slots), so this is
+     * only on the path for globals; it does one lock-free hash lookup
+     * per level.</p>
+     */
     public Expr get(final Symbol key) {
-        Env e = find(key);
-        if (null == e) {
+        final Var v = this.lookup(key);
+        if (null == v) {
             throw new RuntimeException("'" + key.name() + "' not found");
-        } else {
-            return e.table.get(key.name());
         }
+        return v.get();
     }
 
+    /**
+     * Bind a symbol to a value here, rebinding its var if it has one.
+     *
+     * <p>A new var is added with {@code putIfAbsent}; if another thread
+     * added one first, this rebinds that one instead, so no binding is
+     * lost.</p>
+     */
     public Env set(final Symbol key, final Expr value) {
-        table.put(key.name(), value);
+        Var v = this.table.get(key.name());
+        Expr old = null;
+        if (null == v) {
+            v = this.table.putIfAbsent(key.name(), new Var(key, value));
+            if (null != v) {
+                old = v.bind(value);
+            }
+        } else {
+            old = v.bind(value);
+        }
+        if (isAssumed(value) || isAssumed(old)) {
+            this.bindingEpoch.incrementAndGet();
+        }
         return this;
     }
+
+    private static boolean isAssumed(final Expr value) {
+        return null != value
+            && (value.isMacro()
+                || (value.isFunction() && ((Fun) value).isPure()));
+    }
+
+    /**
+     * The number of changes to macros and pure functions bound in this
+     * environment and its ancestors; it changes whenever any of them
+     * visible here might have.
+     */
+    public long bindingEpoch() {
+        long epoch = 0;
+        for (Env e = this; null != e; e = e.outer) {
+            epoch += e.bindingEpoch.get();
+        }
+        return epoch;
+    }
 }
\ No newline at end of file
@@ -1,17 +1,10 @@
 package com.github.pqnelson;
 
-import java.util.Arrays;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
-
 import com.github.pqnelson.expr.Expr;
 import com.github.pqnelson.expr.Fun;
-import com.github.pqnelson.expr.IFn;
-import com.github.pqnelson.expr.Keyword;
 import com.github.pqnelson.expr.Literal;
 import com.github.pqnelson.expr.Map;
 import com.github.pqnelson.expr.Seq;
-import com.github.pqnelson.expr.Str;
 import com.github.pqnelson.expr.Symbol;
 import com.github.pqnelson.expr.Vector;
 
@@ -110,7 +103,7 @@ public class Evaluator {
         return false;
     }
 
-    static Expr macroexpand(Expr ast, final Env env) throws Throwable {
+    public static Expr macroexpand(Expr ast, final Env env) throws Throwable {
         while(isMacroCall(ast, env)) {
             final Symbol rator = (Symbol) ((Seq) ast).rator();
             final Fun macro = (Fun) env.get(rator);
@@ -120,268 +113,188 @@ public class Evaluator {
     }
     public static boolean debug = false;
 
-    static Expr evalLiteral(final Expr ast, final Env env) throws Throwable {
-        if (ast.isSymbol()) {
-            if (debug) {
-                System.out.println("evalLiteral() getting value of symbol '"
-                                   + ast.toString()
-                                   + "' from environment");
-            }
-            return env.get((Symbol) ast);
-        } else if (ast.isList()) {
-            Seq result = new Seq();
-            for (Expr e : (Seq) ast) {
-                result.conj(eval(e, env));
-            }
-            return result;
-        } else if (ast.isVector()) {
-            Vector result = new Vector();
-            for (Expr e : (Vector) ast) {
-                result.conj(eval(e, env));
-            }
-            return result;
-        } else {
-            return ast;
-        }
-    }
-
     /**
      * Evaluate an expression relative to a given binding environment.
      *
-     * This is almost certainly what you are looking for.
+     * <p>This is almost certainly what you are looking for. The form is
+     * first analyzed into a tree of nodes, which is then run. A top-level
+     * {@code do} is evaluated one form at a time, so a macro defined
+     * early in it is available to the forms that follow.</p>
      */
-    public static Expr eval(Expr expr, Env env) throws Throwable {
-        while (true) {
-            if (debug) {
-                System.out.println("eval given expr = " + expr);
-            }
-            if (!expr.isList()) {
-                return evalLiteral(expr, env);
-            }
-            /* begin macroexpansion */
-            expr = macroexpand(expr, env);
-            if (!expr.isList()) {
-                return evalLiteral(expr, env);
-            }
-            /* end macroexpansion */
-            Seq ast = ((Seq) expr).slice(1);
-            Expr rator = ((Seq) expr).rator();
-            String s = rator.isSymbol() ? ((Symbol) rator).name() : "";
-            switch (s) {
-            case "def": {
-                assert (2 == ast.size())
-                    : "def has " + ast.size() + " operands instead of 2";
-                /* the reader assembles (def ^:foo bar spam) as
-                   (def (with-meta bar :foo) spam), where
-                   (with-meta ...) is a secret macro. */
-                final Symbol name = (Symbol) macroexpand(ast.first(), env);
-                final Expr value = eval(ast.get(1), env);
-                env.set(name, value);
-                return value;
-            }
-            case "let*": {
-                final Vector bindings = (Vector) ast.first();
-                final Seq body = ast.slice(1);
-                Symbol key;
-                Expr val;
-                Env letEnv = new Env(env);
-                for (int i = 0; i < bindings.size(); i += 2) {
-                    key = (Symbol) bindings.get(i);
-                    val = bindings.get(i + 1);
-                    letEnv.set(key, eval(val, letEnv));
-                }
-                for (int i = 2; i < ast.size() - 1; i++) {
-                    eval(ast.get(i), letEnv);
-                }
-                expr = ast.last();
-                env = letEnv;
-                break;
-            }
-            case "do": {
-                evalLiteral(ast.butLast(), env);
-                expr = ast.last();
-                break;
-            }
-            case "if": {
-                // ast = (test true-branch false-branch?)
-                Expr test = eval(ast.get(0), env);
-                if (test.isLiteral() && ((Literal) test).isFalsy()) {
-                    expr = ast.get(2, Literal.NIL);
-                } else {
-                    expr = ast.get(1);
-                }
-                break;
-            }
-            case "fn*": {
-                // ast ::= ([params] body) OR (name [params] body)
-                final Symbol name = (ast.first().isSymbol()
-                                     ? (Symbol) ast.first()
-                                     : null);
-                final Vector params = (Vector) (null == name
-                                                ? ast.first()
-                                                : ast.get(1));
-                Expr body;
-                final int nameOffset = (null == name ? 0 : 1);
-                final int bodyIndex = nameOffset + 1;
-                if (1 + bodyIndex == ast.size()) {
-                    body = ast.get(bodyIndex);
-                } else {
-                    body = (Seq) ast.slice(bodyIndex);
-                    ((Seq) body).prepend(Symbol.DO);
-                }
-                Env current = env;
-                Fun fn;
-                if (null != name) { // recursive functions use their own name
-                    fn = new Fun (name);
-                    current.set(name, fn);
-                    IFn f = (args) -> eval(body, new Env(current, params, args));
-                    fn.addMethod(f, params, body);
-                } else { // no name? no recursion!
-                    IFn f = (args) -> eval(body, new Env(current, params, args));
-                    fn = new Fun (f, params, body, name);
-                }
-                return fn;
-            }
-            case "macroexpand":       return macroexpand(ast.first(), env);
-            case "quote":             return ast.first();
-            case "quasiquote-expand": return quasiquote(ast.first());
-            case "quasiquote":
-                expr = quasiquote(ast.first());
-                break;
-            case "defmacro": {
-                // ast = (macro-name [params] body)
-                assert (ast.get(0).isSymbol()) : "macro name is not a symbol";
-                assert (ast.get(1).isVector()) : "Args are not a vector";
-                assert (ast.size() >= 2) : "macro has no body";
-                PPrinter p = new PPrinter();
-                Symbol name = (Symbol) ast.first();
-                Seq littleMac = ast.slice(1); // = ([params] body)
-                littleMac.prepend(Symbol.FN_STAR);
-                Fun macro = (Fun) eval(littleMac, env);
-                // macro = eval (fn* [params] body)
-                macro.setMacro();
-                env.set(name, macro);
-                return macro;
-            }
-            case "try": {
-                // ast = (body... (catch e catch-body...)+)
-                /* CAVEAT: it will process the body, which is the sublist of
-                   expressions UNTIL the first {@code catch} is encountered.
-                   This is a "bug". I really want to support a richer
-                   exception handling framework, but this is the current
-                   state of things.
-                */
-                Predicate<Expr> isCatchClause = (ex) ->
-                    ex.isList() && Symbol.CATCH == ((Seq) ex).first();
-                try {
-                    Seq body = ast.takeWhile(isCatchClause.negate());
-                    body.prepend(Symbol.DO);
-                    return eval(body, env);
-                } catch (Throwable e) {
-                    // cases when the exception isn't handled
-                    if ((null == ast.get(1))
-                        || (!ast.get(1).isList())) {
-                        throw e;
-                    }
-
-                    Seq catchClauses = ast.filter(isCatchClause);
-                    if (catchClauses.isEmpty()) {
-                        throw e;
-                    }
-                    // OK, so, ast handles the exception properly
-                    // catchClause ~ (catch e catch-body...)
-                    Seq catchClause = (Seq) (catchClauses.first());
-                    String stacktrace = Arrays.stream(e.getStackTrace())
-                        .map(line -> line.toString())
-                        .collect(Collectors.joining("\n"));
-                    Map meta = new Map();
-                    meta.assoc(new Keyword("stacktrace"), new Str(stacktrace));
-                    Symbol exceptionId = (Symbol) catchClause.get(1);
-                    exceptionId = (Symbol) (exceptionId.withMeta(meta));
-                    // bind the exception identifier in a new Env
-                    Env eenv = new Env(env);
-                    eenv.set(exceptionId, new Str(e.getMessage()));
-                    env = eenv;
-                    // set the expr to `(do catch-body...)`
-                    Seq catchBody = catchClause.slice(2);
-                    catchBody.prepend(Symbol.DO);
-                    expr = catchBody;
-                }
-                break;
-            }
-            default: {
-                Seq args = (Seq) evalLiteral(ast, env);
-                Fun f = (Fun) (eval(rator, env));
-                if (!f.isInterpreted(args.size())) { // "compiled" function
-                    return f.invoke(args);
-                } else { // interpreted function
-                    expr = f.getBody(args.size());
-                    env = f.genEnv(env, args);
-                }
-            }
+    public static Expr eval(final Expr expr, final Env env) throws Throwable {
+        if (debug) {
+            System.out.println("eval given expr = " + expr);
+        }
+        if (ratorIs(expr, Symbol.DO)) {
+            Expr result = Literal.NIL;
+            for (Expr e : ((Seq) expr).slice(1)) {
+                result = eval(e, env);
             }
+            return result;
         }
+        return Analyzer.analyze(expr, env).eval(null);
     }
 
 
+    private static final Map PURE = new Map(Fun.PURE, Literal.T);
+
+    /**
+     * Mark a primitive as pure, so the analyzer may fold calls to it
+     * over constants.
+     */
+    private static Fun pure(final Fun f) {
+        return new Fun(f, PURE);
+    }
+
     public static Env initialEnv() {
         Env env = new Env();
-        env.set(new Symbol("+"), new Fun(Core::add, 0, true, new Symbol("+")));
+        env.set(new Symbol("+"), pure(new Fun(Core.ADD, 0, true, new Symbol("+"))));
         env.set(new Symbol("-"),
-                new Fun(Core::subtract, 1, true, new Symbol("-")));
-        env.set(new Symbol("*"), new Fun(Core::multiply, 0, true, new Symbol("*")));
-        env.set(new Symbol("/"), new Fun(Core::divide, 0, true, new Symbol("/")));
-        env.set(new Symbol("count"), new Fun(Core::count, 1, false, new Symbol("count")));
+                pure(new Fun(Core.SUBTRACT, 1, true, new Symbol("-"))));
+        env.set(new Symbol("*"), pure(new Fun(Core.MULTIPLY, 0, true, new Symbol("*"))));
+        env.set(new Symbol("/"), pure(new Fun(Core.DIVIDE, 0, true, new Symbol("/"))));
+        env.set(new Symbol("count"), pure(new Fun(Core.COUNT, 1, false, new Symbol("count"))));
         env.set(new Symbol("list"),
                 new Fun((Seq args) -> args, 0, true, new Symbol("list")));
         env.set(new Symbol("list?"),
-                new Fun(Core.list_QMARK_, 1, false, new Symbol("list?")));
+                pure(new Fun(Core.list_QMARK_, 1, false, new Symbol("list?"))));
         env.set(new Symbol("empty?"),
-                new Fun(Core::empty_QMARK_, 1, false, new Symbol("empty?")));
-        env.set(new Symbol("seq"), new Fun(Core::seq, 1, false, new Symbol("seq")));
-        env.set(new Symbol("first"), new Fun(Core::first, 1, false, new Symbol("first")));
-        env.set(new Symbol("nth"), new Fun(Core::nth, 2, false, new Symbol("nth")));
-        env.set(new Symbol("rest"), new Fun(Core::rest, 1, false, new Symbol("rest")));
+                pure(new Fun(Core.EMPTY_QMARK_, 1, false, new Symbol("empty?"))));
+        env.set(new Symbol("seq"), new Fun(Core.SEQ, 1, false, new Symbol("seq")));
+        env.set(new Symbol("first"), pure(new Fun(Core.FIRST, 1, false, new Symbol("first"))));
+        env.set(new Symbol("nth"), pure(new Fun(Core.NTH, 2, false, new Symbol("nth"))));
+        env.set(new Symbol("rest"), new Fun(Core.REST, 1, false, new Symbol("rest")));
         env.set(concat, new Fun(Core::concat, 0, true, concat));
-        env.set(cons, new Fun(Core::cons, 2, false, cons));
-        env.set(new Symbol("="), new Fun(Core::equality, 0, true, new Symbol("=")));
-        env.set(new Symbol("<"), new Fun(Core::LT, 0, true, new Symbol("<")));
-        env.set(new Symbol("<="), new Fun(Core::LEQ, 0, true, new Symbol("<=")));
-        env.set(new Symbol(">"), new Fun(Core::GT, 0, true, new Symbol(">")));
-        env.set(new Symbol(">="), new Fun(Core::GEQ, 0, true, new Symbol(">=")));
+        env.set(cons, new Fun(Core.CONS, 2, false, cons));
+        env.set(new Symbol("="), pure(new Fun(Core.EQUALITY, 0, true, new Symbol("="))));
+        env.set(new Symbol("<"), pure(new Fun(Core.LESS_THAN, 0, true, new Symbol("<"))));
+        env.set(new Symbol("<="), pure(new Fun(Core.LESS_OR_EQUAL, 0, true, new Symbol("<="))));
+        env.set(new Symbol(">"), pure(new Fun(Core.GREATER_THAN, 0, true, new Symbol(">"))));
+        env.set(new Symbol(">="), pure(new Fun(Core.GREATER_OR_EQUAL, 0, true, new Symbol(">="))));
         env.set(new Symbol("nil?"),
-                new Fun(Core.nil_QMARK_, 1, false, new Symbol("nil?")));
+                pure(new Fun(Core.nil_QMARK_, 1, false, new Symbol("nil?"))));
         env.set(new Symbol("true?"),
-                new Fun(Core.true_QMARK_, 1, false, new Symbol("true?")));
+                pure(new Fun(Core.true_QMARK_, 1, false, new Symbol("true?"))));
         env.set(new Symbol("false?"),
-                new Fun(Core.false_QMARK_, 1, false, new Symbol("false?")));
+                pure(new Fun(Core.false_QMARK_, 1, false, new Symbol("false?"))));
         env.set(new Symbol("symbol?"),
-                new Fun(Core.symbol_QMARK_, 1, false, new Symbol("symbol?")));
+                pure(new Fun(Core.symbol_QMARK_, 1, false, new Symbol("symbol?"))));
         env.set(new Symbol("symbol"),
-                new Fun(Core::symbol, 1, false, new Symbol("symbol")));
+                pure(new Fun(Core::symbol, 1, false, new Symbol("symbol"))));
         env.set(new Symbol("keyword?"),
-                new Fun(Core.keyword_QMARK_, 1, false, new Symbol("keyword?")));
+                pure(new Fun(Core.keyword_QMARK_, 1, false, new Symbol("keyword?"))));
         env.set(new Symbol("keyword"),
-                new Fun(Core::keyword, 1, false, new Symbol("keyword")));
+                pure(new Fun(Core::keyword, 1, false, new Symbol("keyword"))));
         env.set(new Symbol("vector?"),
-                new Fun(Core.vector_QMARK_, 1, false, new Symbol("vector?")));
+                pure(new Fun(Core.vector_QMARK_, 1, false, new Symbol("vector?"))));
         env.set(new Symbol("vector"),
                 new Fun(Core::vector, 0, true, new Symbol("vector")));
         env.set(new Symbol("map?"),
-                new Fun(Core.map_QMARK_, 1, false, new Symbol("map?")));
+                pure(new Fun(Core.map_QMARK_, 1, false, new Symbol("map?"))));
         env.set(new Symbol("string?"),
-                new Fun(Core.string_QMARK_, 1, false, new Symbol("string?")));
+                pure(new Fun(Core.string_QMARK_, 1, false, new Symbol("string?"))));
         env.set(new Symbol("fn?"),
-                new Fun(Core.fn_QMARK_, 1, false, new Symbol("fn?")));
+                pure(new Fun(Core.fn_QMARK_, 1, false, new Symbol("fn?"))));
         env.set(new Symbol("println"),
                 new Fun(Core::println, 0, true, new Symbol("println")));
         env.set(new Symbol("pr-str"),
                 new Fun(Core::pr_str, 0, true, new Symbol("pr-str")));
         env.set(new Symbol("prn"), new Fun(Core::prn, 0, true, new Symbol("prn")));
-        env.set(new Symbol("str"), new Fun(Core::str, 0, true, new Symbol("str")));
+        env.set(new Symbol("str"), pure(new Fun(Core::str, 0, true, new Symbol("str"))));
         env.set(new Symbol("hash-map"),
                 new Fun(Core::hash_map, 0, true, new Symbol("hash-map")));
-        env.set(new Symbol("get"), new Fun(Core::get, 2, false, new Symbol("get")));
+        env.set(new Symbol("get"), pure(new Fun(Core.GET, 2, false, new Symbol("get"))));
+        env.set(new Symbol("conj"),
+                new Fun(Core::conj, 0, true, new Symbol("conj")));
+        env.set(new Symbol("peek"),
+                new Fun(Core::peek, 1, false, new Symbol("peek")));
+        env.set(new Symbol("pop"),
+                new Fun(Core::pop, 1, false, new Symbol("pop")));
+        env.set(new Symbol("range"),
+                new Fun(Core::range, 0, true, new Symbol("range")));
+        env.set(new Symbol("reduce"),
+                new Fun(Core::reduce, 2, true, new Symbol("reduce")));
+        env.set(new Symbol("fold"),
+                new Fun(Core::fold, 2, true, new Symbol("fold")));
+        env.set(new Symbol("map"),
+                new Fun(Core::map, 1, true, new Symbol("map")));
+        env.set(new Symbol("filter"),
+                new Fun(Core::filter, 1, true, new Symbol("filter")));
+        env.set(new Symbol("take"),
+                new Fun(Core::take, 1, true, new Symbol("take")));
+        env.set(new Symbol("mapcat"),
+                new Fun(Core::mapcat, 1, true, new Symbol("mapcat")));
+        env.set(new Symbol("comp"),
+                new Fun(Core::comp, 0, true, new Symbol("comp")));
+        env.set(new Symbol("transduce"),
+                new Fun(Core::transduce, 3, true, new Symbol("transduce")));
+        env.set(new Symbol("into"),
+                new Fun(Core::into, 2, true, new Symbol("into")));
+        env.set(new Symbol("future-call"),
+                new Fun(Core::future_call, 1, false, new Symbol("future-call")));
+        env.set(new Symbol("deref"),
+                new Fun(Core::deref, 1, true, new Symbol("deref")));
+        env.set(new Symbol("realized?"),
+                new Fun(Core::realized_QMARK_, 1, false, new Symbol("realized?")));
+        env.set(new Symbol("promise"),
+                new Fun(Core::promise, 0, false, new Symbol("promise")));
+        env.set(new Symbol("deliver"),
+                new Fun(Core::deliver, 2, false, new Symbol("deliver")));
+        env.set(new Symbol("pmap"),
+                new Fun(Core::pmap, 2, true, new Symbol("pmap")));
+        env.set(new Symbol("atom"),
+                new Fun(Core::atom, 1, true, new Symbol("atom")));
+        env.set(new Symbol("swap!"),
+                new Fun(Core::swap_BANG_, 2, true, new Symbol("swap!")));
+        env.set(new Symbol("reset!"),
+                new Fun(Core::reset_BANG_, 2, false, new Symbol("reset!")));
+        env.set(new Symbol("compare-and-set!"),
+                new Fun(Core::compare_and_set_BANG_, 3, false, new Symbol("compare-and-set!")));
+        env.set(new Symbol("add-watch"),
+                new Fun(Core::add_watch, 3, false, new Symbol("add-watch")));
+        env.set(new Symbol("remove-watch"),
+                new Fun(Core::remove_watch, 2, false, new Symbol("remove-watch")));
+        env.set(new Symbol("set-validator!"),
+                new Fun(Core::set_validator_BANG_, 2, false, new Symbol("set-validator!")));
+        env.set(new Symbol("get-validator"),
+                new Fun(Core::get_validator, 1, false, new Symbol("get-validator")));
+        env.set(new Symbol("ref"),
+                new Fun(Core::ref, 1, true, new Symbol("ref")));
+        env.set(new Symbol("ref-set"),
+                new Fun(Core::ref_set, 2, false, new Symbol("ref-set")));
+        env.set(new Symbol("alter"),
+                new Fun(Core::alter, 2, true, new Symbol("alter")));
+        env.set(new Symbol("commute"),
+                new Fun(Core::commute, 2, true, new Symbol("commute")));
+        env.set(new Symbol("ensure"),
+                new Fun(Core::ensure, 1, false, new Symbol("ensure")));
+        env.set(new Symbol("stm-stats"),
+                new Fun(Core::stm_stats, 0, false, new Symbol("stm-stats")));
+        env.set(new Symbol("chan"),
+                new Fun(Core::chan, 0, true, new Symbol("chan")));
+        env.set(new Symbol(">!!"),
+                new Fun(Core::_GT__BANG__BANG_, 2, false, new Symbol(">!!")));
+        env.set(new Symbol("<!!"),
+                new Fun(Core::_LT__BANG__BANG_, 1, false, new Symbol("<!!")));
+        env.set(new Symbol("offer!"),
+                new Fun(Core::offer_BANG_, 2, false, new Symbol("offer!")));
+        env.set(new Symbol("poll!"),
+                new Fun(Core::poll_BANG_, 1, false, new Symbol("poll!")));
+        env.set(new Symbol("close!"),
+                new Fun(Core::close_BANG_, 1, false, new Symbol("close!")));
+        env.set(new Symbol("alts!!"),
+                new Fun(Core::alts_BANG__BANG_, 1, true, new Symbol("alts!!")));
+        env.set(new Symbol("thread-call"),
+                new Fun(Core::thread_call, 1, false, new Symbol("thread-call")));
+        env.set(new Symbol("transient"),
+                new Fun(Core::_transient, 1, false, new Symbol("transient")));
+        env.set(new Symbol("conj!"),
+                new Fun(Core::conj_BANG_, 0, true, new Symbol("conj!")));
+        env.set(new Symbol("pop!"),
+                new Fun(Core::pop_BANG_, 1, false, new Symbol("pop!")));
+        env.set(new Symbol("persistent!"),
+                new Fun(Core::persistent_BANG_, 1, false,
+                        new Symbol("persistent!")));
         env.set(new Symbol("assoc"),
                 new Fun(Core::assoc, 3, true, new Symbol("assoc")));
         env.set(new Symbol("assoc!"),
@@ -391,7 +304,7 @@ public class Evaluator {
         env.set(new Symbol("dissoc!"),
                 new Fun(Core::dissoc_BANG_, 2, true, new Symbol("dissoc!")));
         env.set(new Symbol("contains?"),
-                new Fun(Core::contains_QMARK_, 2, false, new Symbol("contains?")));
+                pure(new Fun(Core.CONTAINS_QMARK_, 2, false, new Symbol("contains?"))));
         env.set(new Symbol("keys"),
                 new Fun(Core::keys, 1, false, new Symbol("keys")));
         env.set(new Symbol("vals"),
@@ -402,6 +315,8 @@ public class Evaluator {
                 new Fun(Core::slurp, 1, false, new Symbol("slurp")));
         env.set(new Symbol("list"),
                 new Fun(Core::list, 0, true, new Symbol("list")));
+        env.set(new Symbol("apply"),
+                new Fun(Core.APPLY, 2, true, new Symbol("apply")));
         env.set(new Symbol("throw"),
                 new Fun(Core::_throw, 0, true, new Symbol("throw")));
 
@@ -2,6 +2,9 @@ package com.github.pqnelson;
 
 import org.apache.commons.text.StringEscapeUtils;
 
+import com.github.pqnelson.expr.ADeref;
+import com.github.pqnelson.expr.ATransient;
+import com.github.pqnelson.expr.Chan;
 import com.github.pqnelson.expr.Expr;
 import com.github.pqnelson.expr.Fun;
 import com.github.pqnelson.expr.Keyword;
@@ -121,6 +124,36 @@ public class Printer implements Visitor<String> {
         return buf.toString();
     }
 
+    /**
+     * A transient is only printed as what it is, since it is still
+     * being built.
+     */
+    @Override
+    public String visitTransient(final ATransient t) {
+        return "#<" + t.type() + ">";
+    }
+
+    /**
+     * A reference is printed as what it is, with its value once that is
+     * there; printing never waits for it.
+     */
+    @Override
+    public String visitDeref(final ADeref ref) {
+        if (!ref.isRealized()) {
+            return "#<" + ref.type() + " pending>";
+        }
+        try {
+            return "#<" + ref.type() + " " + ref.deref().accept(this) + ">";
+        } catch (Throwable e) {
+            return "#<" + ref.type() + " failed>";
+        }
+    }
+
+    @Override
+    public String visitChan(final Chan c) {
+        return (c.isClosed() ? "#<Chan closed>" : "#<Chan>");
+    }
+
     public static String print(final Expr e) {
         return e.accept(new Printer());
     }
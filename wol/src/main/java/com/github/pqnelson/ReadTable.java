@@ -55,16 +55,23 @@ public class ReadTable extends AbstractReader {
         literals.put("def", Symbol.DEF);
         literals.put("defmacro", Symbol.DEFMACRO);
         literals.put("do", Symbol.DO);
+        literals.put("dosync", Symbol.DOSYNC);
         literals.put("false", Literal.F);
         literals.put("fn*", Symbol.FN_STAR);
+        literals.put("future", Symbol.FUTURE);
+        literals.put("go", Symbol.GO);
         literals.put("if", Symbol.IF);
+        literals.put("lazy-seq", Symbol.LAZY_SEQ);
         literals.put("let*", Symbol.LET_STAR);
+        literals.put("loop*", Symbol.LOOP_STAR);
         literals.put("macroexpand", Symbol.MACROEXPAND);
         literals.put("nil", Literal.NIL);
         literals.put("quote", Symbol.QUOTE);
         literals.put("quasiquote", Symbol.QUASIQUOTE);
         literals.put("quasiquote-expand", Symbol.QUASIQUOTE_EXPAND);
+        literals.put("recur", Symbol.RECUR);
         literals.put("splice", Symbol.SPLICE);
+        literals.put("thread", Symbol.THREAD);
         literals.put("true", Literal.T);
         literals.put("try", Symbol.TRY);
         literals.put("unquote", Symbol.UNQUOTE);
@@ -131,6 +138,7 @@ public class ReadTable extends AbstractReader {
         addMacro('\'', new SpecialFormReaderMacro('\'', Symbol.QUOTE));
         addMacro('`', new SpecialFormReaderMacro('`', Symbol.QUASIQUOTE));
         addMacro('~', new UnquoteReaderMacro());
+        addMacro('@', new SpecialFormReaderMacro('@', new Symbol("deref")));
         addMacro(':', new KeywordReaderMacro());
         /* parsing collections */
         addMacro('(', new AccumulatorReaderMacro<Seq>(")", Seq::new));
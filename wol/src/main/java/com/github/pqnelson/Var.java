@@ -0,0 +1,42 @@
+package com.github.pqnelson;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.github.pqnelson.expr.Expr;
+import com.github.pqnelson.expr.Symbol;
+
+/**
+ * The cell holding the value of a global variable.
+ *
+ * <p>A var is made the first time its name is defined and is never
+ * replaced, only rebound, so code may look a var up once and keep it:
+ * reading it afterwards is a single volatile read. Rebinding it is one
+ * atomic swap, so concurrent {@code def}s of the same name each see the
+ * value they replaced.</p>
+ */
+public final class Var {
+    private final Symbol name;
+    private final AtomicReference<Expr> root;
+
+    Var(final Symbol name, final Expr value) {
+        this.name = name;
+        this.root = new AtomicReference<>(value);
+    }
+
+    public Symbol name() {
+        return this.name;
+    }
+
+    public Expr get() {
+        return this.root.get();
+    }
+
+    /**
+     * Bind the var to a new value.
+     *
+     * @return The value it was bound to before.
+     */
+    Expr bind(final Expr value) {
+        return this.root.getAndSet(value);
+    }
+}
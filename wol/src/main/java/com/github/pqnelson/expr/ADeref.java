@@ -0,0 +1,22 @@
+package com.github.pqnelson.expr;
+
+/**
+ * A reference to a value, which may be shared between threads.
+ *
+ * <p>A reference is identified with itself: two are only equal when
+ * they are the same reference, whatever their values.</p>
+ */
+public abstract class ADeref extends Expr implements IDeref {
+    /**
+     * A reference is shared, never copied.
+     */
+    @Override
+    public ADeref clone() {
+        return this;
+    }
+
+    @Override
+    public <T> T accept(final Visitor<T> visitor) {
+        return visitor.visitDeref(this);
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.pqnelson.expr;
+
+/**
+ * A mutable reference shared between threads, with an optional
+ * validator and any number of watches.
+ *
+ * <p>The validator, a function of one argument, is called with every
+ * value before it is installed; a falsy result or an exception rejects
+ * it, leaving the reference unchanged. Each watch is a function of four
+ * arguments, the key it was added under, the reference, and the old
+ * and new values, called after every change.</p>
+ *
+ * <p>Both are replaced rather than modified, so reading them on each
+ * change takes no lock.</p>
+ */
+public abstract class ARef extends ADeref {
+    private volatile Fun validator = null;
+    private volatile Map watches = new Map();
+
+    public Fun validator() {
+        return this.validator;
+    }
+
+    /**
+     * Set the validator, after checking it accepts the current value; a
+     * null validator accepts any value.
+     */
+    public void setValidator(final Fun f) throws Throwable {
+        validate(f, this.current());
+        this.validator = f;
+    }
+
+    /**
+     * The value, without waiting: a reference always has one.
+     */
+    abstract Expr current();
+
+    @Override
+    public Expr deref() {
+        return this.current();
+    }
+
+    @Override
+    public Expr deref(final long timeoutMs, final Expr timeoutValue) {
+        return this.current();
+    }
+
+    @Override
+    public boolean isRealized() {
+        return true;
+    }
+
+    private static void validate(final Fun f, final Expr value)
+            throws Throwable {
+        if (null != f && Literal.isFalsy(f.invoke1(value))) {
+            throw new IllegalStateException("Invalid reference state");
+        }
+    }
+
+    /**
+     * Check a value against the validator, before it is installed.
+     */
+    final void validate(final Expr value) throws Throwable {
+        validate(this.validator, value);
+    }
+
+    public synchronized void addWatch(final Expr key, final Fun f) {
+        this.watches = this.watches.associate(key, f);
+    }
+
+    public synchronized void removeWatch(final Expr key) {
+        this.watches = this.watches.dissociate(key);
+    }
+
+    /**
+     * Tell every watch about a change, once it has happened.
+     */
+    final void notifyWatches(final Expr oldValue, final Expr newValue)
+            throws Throwable {
+        final Map ws = this.watches;
+        if (ws.isEmpty()) {
+            return;
+        }
+        for (Expr entry : ws) {
+            final Vector kv = (Vector) entry;
+            ((Fun) kv.get(1)).invoke4(kv.get(0), this, oldValue, newValue);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.github.pqnelson.expr;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A persistent list made of cells, each knowing its {@link #first()}
+ * and its {@link #rest()}.
+ *
+ * <p>Everything else is done by walking the cells, so a list whose
+ * rest is only made on demand (a {@link LazySeq}) is only realized as
+ * far as it is looked at. Such lists refuse the in-place updates {@link
+ * #conj(Expr)}, {@link #prepend(Expr)} and {@link
+ * #destructiveSort(Comparator)}.</p>
+ */
+public abstract class ASeq extends Seq {
+    private int hash = 0;
+
+    ASeq(final Map meta) {
+        super(java.util.List.of(), 0, 0, meta);
+    }
+
+    @Override
+    public abstract Expr first();
+
+    @Override
+    public abstract Seq rest();
+
+    /**
+     * A list is persistent, so it is its own copy.
+     */
+    @Override
+    public Seq clone() {
+        return this;
+    }
+
+    @Override
+    boolean counted() {
+        return false;
+    }
+
+    /**
+     * Count the elements by walking the list, realizing all of it.
+     */
+    @Override
+    public int size() {
+        int n = 0;
+        for (Iterator<Expr> it = this.iterator(); it.hasNext(); it.next()) {
+            n++;
+        }
+        return n;
+    }
+
+    @Override
+    public Iterator<Expr> iterator() {
+        return new SeqIterator(this);
+    }
+
+    @Override
+    Seq drop(final int n) {
+        Seq s = this;
+        int i = n;
+        while (0 < i) {
+            if (s instanceof LazySeq) {
+                s = ((LazySeq) s).realize();
+            } else if (s instanceof ChunkedCons) {
+                // skip whole chunks at a time
+                final ChunkedCons c = (ChunkedCons) s;
+                final int left = c.end() - c.offset();
+                if (i < left) {
+                    return new ChunkedCons(c.chunk(), c.offset() + i, c.end(),
+                                           c.more());
+                }
+                s = c.more();
+                i -= left;
+            } else if (s instanceof VectorSeq || s instanceof StrSeq
+                       || s instanceof Range) {
+                return s.drop(i);
+            } else if (s instanceof ASeq) {
+                s = s.rest();
+                i--;
+            } else {
+                return s.drop(i);
+            }
+        }
+        return s;
+    }
+
+    @Override
+    public Expr get(final int i) {
+        final Seq s = (i < 0 ? null : this.drop(i));
+        if (null == s || s.isEmpty()) {
+            throw new IndexOutOfBoundsException("Index " + i
+                                                + " out of bounds");
+        }
+        return s.first();
+    }
+
+    @Override
+    public Expr get(final int i, final Expr defaultValue) {
+        final Seq s = this.drop(i);
+        return (s.isEmpty() ? defaultValue : s.first());
+    }
+
+    @Override
+    public Seq slice(final int i) {
+        final Seq s = this.drop(i);
+        return (s.isEmpty() ? new Seq() : s);
+    }
+
+    @Override
+    public Seq slice(final int start, final int end) {
+        Seq result = new Seq();
+        Seq s = this.drop(start);
+        for (int i = start; i < end && !s.isEmpty(); i++) {
+            result.conj(s.first());
+            s = s.rest();
+        }
+        return result;
+    }
+
+    @Override
+    public Seq cons(final Expr e) {
+        return new Cons(e, this);
+    }
+
+    @Override
+    public void prepend(final Expr e) {
+        throw new UnsupportedOperationException("Cannot prepend to a "
+                                                + "persistent list in place");
+    }
+
+    @Override
+    public void conj(final Expr e) {
+        throw new UnsupportedOperationException("Cannot conj onto a "
+                                                + "persistent list in place");
+    }
+
+    @Override
+    public void destructiveSort(final Comparator<Expr> c) {
+        throw new UnsupportedOperationException("Cannot sort a "
+                                                + "persistent list in place");
+    }
+
+    /**
+     * The hash code, computed as for a {@code java.util.List} and cached.
+     */
+    @Override
+    public int hashCode() {
+        if (0 == this.hash) {
+            this.hash = super.hashCode();
+        }
+        return this.hash;
+    }
+
+    /**
+     * Walks the cells of a list, then the array-backed list they end
+     * in, if any. Chunks are walked an element at a time without
+     * allocating a cell for each.
+     */
+    private static final class SeqIterator implements Iterator<Expr> {
+        private Seq cell;
+        private Iterator<Expr> tail = null;
+        private Object[] chunk = null;
+        private int i = 0;
+        private int end = 0;
+
+        SeqIterator(final Seq start) {
+            this.cell = start;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.i < this.end) {
+                return true;
+            }
+            while (null == this.tail) {
+                if (this.cell instanceof LazySeq) {
+                    this.cell = ((LazySeq) this.cell).realize();
+                } else if (this.cell instanceof ChunkedCons) {
+                    final ChunkedCons c = (ChunkedCons) this.cell;
+                    this.chunk = c.chunk();
+                    this.i = c.offset();
+                    this.end = c.end();
+                    this.cell = c.more();
+                    return true;
+                } else if (this.cell instanceof ASeq
+                           && !(this.cell instanceof Range)) {
+                    return true;
+                } else {
+                    this.tail = this.cell.iterator();
+                }
+            }
+            return this.tail.hasNext();
+        }
+
+        @Override
+        public Expr next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (this.i < this.end) {
+                return (Expr) this.chunk[this.i++];
+            }
+            if (null != this.tail) {
+                return this.tail.next();
+            }
+            final Expr result = this.cell.first();
+            this.cell = this.cell.rest();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.pqnelson.expr;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A collection being built in place, by one thread, before being frozen
+ * into a persistent value.
+ *
+ * <p>A transient edits the nodes of its trie that it allocated itself;
+ * nodes it shares with the persistent collection it came from are
+ * copied first, exactly once. Every node it allocates is stamped with
+ * the same edit token, holding the owner thread. {@link #persistent()}
+ * clears the token, so the nodes are never edited again and can be
+ * handed to a persistent collection in constant time.</p>
+ *
+ * <p>Using a transient from any thread but its owner, or after it has
+ * been made persistent, throws an {@code IllegalStateException}.</p>
+ */
+public abstract class ATransient extends Expr implements ICountable {
+    final AtomicReference<Thread> edit;
+
+    ATransient() {
+        this.edit = new AtomicReference<>(Thread.currentThread());
+    }
+
+    /**
+     * Check the transient may still be edited, by the calling thread.
+     */
+    final void ensureEditable() {
+        final Thread owner = this.edit.get();
+        if (null == owner) {
+            throw new IllegalStateException("Transient used after "
+                                            + "persistent! call");
+        }
+        if (Thread.currentThread() != owner) {
+            throw new IllegalStateException("Transient used by non-owner "
+                                            + "thread");
+        }
+    }
+
+    /**
+     * Add an element in place, returning this transient.
+     */
+    public abstract ATransient conj(Expr e);
+
+    /**
+     * Freeze the transient into a persistent collection, in constant
+     * time. The transient may not be used afterwards.
+     */
+    public abstract Expr persistent();
+
+    /**
+     * A transient is its own copy: there is only ever one of it.
+     */
+    @Override
+    public ATransient clone() {
+        return this;
+    }
+
+    @Override
+    public <T> T accept(final Visitor<T> visitor) {
+        return visitor.visitTransient(this);
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.pqnelson.expr;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A reference updated atomically, without locks.
+ *
+ * <p>{@link #swap(IFn)} computes the new value from the current one and
+ * installs it with a compare-and-set, trying again should another
+ * thread have changed it in between; so the update function may be
+ * called more than once, and should have no side effects.</p>
+ */
+public final class Atom extends ARef {
+    private final AtomicReference<Expr> state;
+
+    public Atom(final Expr value) {
+        this.state = new AtomicReference<>(value);
+    }
+
+    @Override
+    Expr current() {
+        return this.state.get();
+    }
+
+    /**
+     * Replace the value with {@code (f old)}.
+     *
+     * @return The new value.
+     */
+    public Expr swap(final IFn f) throws Throwable {
+        while (true) {
+            final Expr old = this.state.get();
+            final Expr next = f.invoke1(old);
+            this.validate(next);
+            if (this.state.compareAndSet(old, next)) {
+                this.notifyWatches(old, next);
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Replace the value, whatever it is.
+     *
+     * @return The new value.
+     */
+    public Expr reset(final Expr value) throws Throwable {
+        this.validate(value);
+        final Expr old = this.state.getAndSet(value);
+        this.notifyWatches(old, value);
+        return value;
+    }
+
+    /**
+     * Replace the value if it is still equal to {@code expected}.
+     *
+     * <p>Values are compared with {@code equals}, not by identity, since
+     * equal numbers and strings are generally distinct objects here. The
+     * swap itself is on the object actually found, so a concurrent change
+     * to another equal value is still caught.</p>
+     *
+     * @return Whether the value was replaced.
+     */
+    public boolean compareAndSet(final Expr expected, final Expr value)
+            throws Throwable {
+        this.validate(value);
+        while (true) {
+            final Expr old = this.state.get();
+            if (!old.equals(expected)) {
+                return false;
+            }
+            if (this.state.compareAndSet(old, value)) {
+                this.notifyWatches(old, value);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public String type() {
+        return "Atom";
+    }
+}
@@ -7,11 +7,51 @@ public class BigInt extends com.github.pqnelson.expr.Number {
         super(value);
     }
 
+    /**
+     * The integer, as an {@code Int} if it fits in 64 bits, so results
+     * of arithmetic return to the fast path once they are small again.
+     */
+    public static Number valueOf(final BigInteger value) {
+        if (value.bitLength() < Long.SIZE) {
+            return Int.valueOf(value.longValue());
+        }
+        return new BigInt(value);
+    }
+
     @Override
     public BigInteger value() {
         return (BigInteger) super.value();
     }
 
+    /**
+     * Equal to a {@code BigInt} or {@code Int} of the same value.
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof BigInt) {
+            return this.value().equals(((BigInt) obj).value());
+        }
+        if (obj instanceof Int) {
+            return obj.equals(this);
+        }
+        return false;
+    }
+
+    /**
+     * Hashed as an {@code Int} when the value fits in one, so equal
+     * integers hash alike whichever class holds them.
+     */
+    @Override
+    public int hashCode() {
+        if (this.value().bitLength() < Long.SIZE) {
+            return Long.hashCode(this.value().longValue());
+        }
+        return this.value().hashCode();
+    }
+
     @Override
     public String toString() {
         return this.value().toString();
@@ -20,12 +60,12 @@ public class BigInt extends com.github.pqnelson.expr.Number {
     /**
      * Addition with possible overflow.
      */
-    public BigInt add(final Int rhs) {
+    public Number add(final Int rhs) {
         return rhs.add(this);
     }
 
-    public BigInt add(final BigInt rhs) {
-        return new BigInt(this.value().add(rhs.value()));
+    public Number add(final BigInt rhs) {
+        return valueOf(this.value().add(rhs.value()));
     }
 
     public Float add(final Float rhs) {
@@ -35,12 +75,12 @@ public class BigInt extends com.github.pqnelson.expr.Number {
     /**
      * Subtraction
      */
-    public BigInt subtract(final Int rhs) {
-        return new BigInt(this.value().subtract(BigInteger.valueOf(rhs.value())));
+    public Number subtract(final Int rhs) {
+        return valueOf(this.value().subtract(BigInteger.valueOf(rhs.longValue())));
     }
 
-    public BigInt subtract(final BigInt rhs) {
-        return new BigInt(this.value().subtract(rhs.value()));
+    public Number subtract(final BigInt rhs) {
+        return valueOf(this.value().subtract(rhs.value()));
     }
 
     public Float subtract(final Float rhs) {
@@ -49,12 +89,12 @@ public class BigInt extends com.github.pqnelson.expr.Number {
     /**
      * Multiplication
      */
-    public BigInt multiply(final Int rhs) {
+    public Number multiply(final Int rhs) {
         return rhs.multiply(this);
     }
 
-    public BigInt multiply(final BigInt rhs) {
-        return new BigInt(this.value().multiply(rhs.value()));
+    public Number multiply(final BigInt rhs) {
+        return valueOf(this.value().multiply(rhs.value()));
     }
 
     public Float multiply(final Float rhs) {
@@ -63,12 +103,12 @@ public class BigInt extends com.github.pqnelson.expr.Number {
     /**
      * Division
      */
-    public BigInt divide(final Int rhs) {
-        return new BigInt(this.value().divide(BigInteger.valueOf(rhs.value())));
+    public Number divide(final Int rhs) {
+        return valueOf(this.value().divide(BigInteger.valueOf(rhs.longValue())));
     }
 
-    public BigInt divide(final BigInt rhs) {
-        return new BigInt(this.value().divide(rhs.value()));
+    public Number divide(final BigInt rhs) {
+        return valueOf(this.value().divide(rhs.value()));
     }
 
     public Float divide(final Float rhs) {
@@ -120,15 +160,19 @@ public class BigInt extends com.github.pqnelson.expr.Number {
         return "BigInt";
     }
 
+    /**
+     * Compare by sign, as the difference may be an {@code Int} or too
+     * large for an int.
+     */
     @Override
     public int compareTo(final Number o) {
-        final Number diff = this.subtract(o);
-        if (diff.isFloat()) {
-            return Double.valueOf(Math.signum(((Float) diff).value()))
-                .intValue();
-        } else if (diff.isBigInt()) {
-            return ((BigInt) diff).value().intValue();
+        if (o.isFloat()) {
+            final double lhs = this.value().doubleValue();
+            final double rhs = ((Float) o).value();
+            return (lhs < rhs ? -1 : (lhs > rhs ? 1 : 0));
+        } else if (o.isInt()) {
+            return -((Int) o).compareTo(this);
         }
-        return ((Int) diff).value().intValue();
+        return this.value().compareTo(((BigInt) o).value());
     }
 }
@@ -0,0 +1,414 @@
+package com.github.pqnelson.expr;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A channel, passing values from the threads putting them to the
+ * threads taking them, in order.
+ *
+ * <p>An unbuffered channel hands each value over directly: a put waits
+ * for a take. A buffered channel holds up to a fixed number of values;
+ * when it is full a put waits, unless the buffer is dropping, when the
+ * new value is discarded, or sliding, when the oldest is. So a slow
+ * consumer holds back its producers, or sheds load, instead of
+ * letting a queue grow without bound.</p>
+ *
+ * <p>Closing a channel refuses any more puts. What is already in it may
+ * still be taken, after which every take gives nil. Nil itself may not
+ * be put.</p>
+ */
+public final class Chan extends Expr {
+    /**
+     * What a full buffer does with another value.
+     */
+    public enum Policy {
+        /** Make the put wait. */
+        FIXED,
+        /** Discard the new value. */
+        DROPPING,
+        /** Discard the oldest value. */
+        SLIDING
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = this.lock.newCondition();
+    private final Condition notFull = this.lock.newCondition();
+    private final ArrayDeque<Expr> buffer = new ArrayDeque<>();
+    private final int capacity;
+    private final Policy policy;
+    private boolean closed = false;
+    /** Values taken so far, so an unbuffered put knows when it is done. */
+    private long taken = 0;
+    private long put = 0;
+    private int waitingTakers = 0;
+    /** The {@link #alts} calls waiting for a value to take, or room. */
+    private final List<CountDownLatch> takeAlts = new ArrayList<>();
+    private final List<CountDownLatch> putAlts = new ArrayList<>();
+
+    /**
+     * An unbuffered channel.
+     */
+    public Chan() {
+        this(0, Policy.FIXED);
+    }
+
+    public Chan(final int capacity, final Policy policy) {
+        if (capacity < 0 || (0 == capacity && Policy.FIXED != policy)) {
+            throw new IllegalArgumentException("Invalid buffer size "
+                                               + capacity);
+        }
+        this.capacity = capacity;
+        this.policy = policy;
+    }
+
+    /**
+     * Run a function of no arguments on another thread, on the same
+     * executor as {@link Future}s.
+     *
+     * @return A channel which receives the function's value, unless it
+     * is nil, and is then closed.
+     */
+    public static Chan thread(final IFn fn) {
+        final Chan result = new Chan(1, Policy.FIXED);
+        Future.executor().execute(() -> {
+                try {
+                    final Expr value = fn.invoke0();
+                    if (!value.isNil()) {
+                        result.put(value);
+                    }
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    result.close();
+                }
+        });
+        return result;
+    }
+
+    private boolean isUnbuffered() {
+        return 0 == this.capacity;
+    }
+
+    /**
+     * Whether a put would have to wait: an unbuffered channel holds at
+     * most one value, waiting to be handed over.
+     */
+    private boolean isFull() {
+        return this.buffer.size() >= Math.max(1, this.capacity);
+    }
+
+    private static void checkValue(final Expr value) {
+        if (null == value || value.isNil()) {
+            throw new IllegalArgumentException("Can't put nil on a channel");
+        }
+    }
+
+    /**
+     * Add a value, the lock held and the channel open.
+     */
+    private void add(final Expr value) {
+        if (this.isFull() && !this.isUnbuffered()) {
+            if (Policy.DROPPING == this.policy) {
+                return;
+            }
+            if (Policy.SLIDING == this.policy) {
+                this.buffer.removeFirst();
+            }
+        }
+        this.buffer.addLast(value);
+        this.put++;
+        this.notEmpty.signal();
+        wake(this.takeAlts);
+    }
+
+    /**
+     * Remove the next value, the lock held and the buffer not empty.
+     */
+    private Expr remove() {
+        final Expr value = this.buffer.removeFirst();
+        this.taken++;
+        this.notFull.signalAll();
+        wake(this.putAlts);
+        return value;
+    }
+
+    private static void wake(final List<CountDownLatch> latches) {
+        for (CountDownLatch latch : latches) {
+            latch.countDown();
+        }
+        latches.clear();
+    }
+
+    /**
+     * Count a taker as waiting, the lock held, which lets a put to an
+     * unbuffered channel go ahead.
+     */
+    private void addTaker() {
+        this.waitingTakers++;
+        wake(this.putAlts);
+    }
+
+    /**
+     * Put a value, waiting for room, or on an unbuffered channel for it
+     * to be taken.
+     *
+     * @return False if the channel was closed, so the value was not put.
+     */
+    public boolean put(final Expr value) throws InterruptedException {
+        checkValue(value);
+        this.lock.lockInterruptibly();
+        try {
+            while (!this.closed && Policy.FIXED == this.policy
+                   && this.isFull()) {
+                this.notFull.await();
+            }
+            if (this.closed) {
+                return false;
+            }
+            this.add(value);
+            final long ticket = this.put;
+            while (this.isUnbuffered() && this.taken < ticket
+                   && !this.closed) {
+                this.notFull.await();
+            }
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Take the next value, waiting for one.
+     *
+     * @return The value, or nil once the channel is closed and empty.
+     */
+    public Expr take() throws InterruptedException {
+        this.lock.lockInterruptibly();
+        try {
+            this.addTaker();
+            try {
+                while (this.buffer.isEmpty() && !this.closed) {
+                    this.notEmpty.await();
+                }
+            } finally {
+                this.waitingTakers--;
+            }
+            return (this.buffer.isEmpty() ? Literal.NIL : this.remove());
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Put a value only if that needs no waiting.
+     *
+     * @return True if it was put, false if the channel is closed, or
+     * null if the put would have to wait.
+     */
+    public Literal offer(final Expr value) {
+        checkValue(value);
+        this.lock.lock();
+        try {
+            if (this.closed) {
+                return Literal.F;
+            }
+            final boolean ready = (this.isUnbuffered()
+                                   ? this.waitingTakers > this.buffer.size()
+                                   : (Policy.FIXED != this.policy
+                                      || !this.isFull()));
+            if (!ready) {
+                return null;
+            }
+            this.add(value);
+            return Literal.T;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Take a value only if that needs no waiting.
+     *
+     * @return The value, nil if the channel is closed and empty, or null
+     * if the take would have to wait.
+     */
+    public Expr poll() {
+        this.lock.lock();
+        try {
+            if (!this.buffer.isEmpty()) {
+                return this.remove();
+            }
+            return (this.closed ? Literal.NIL : null);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Close the channel, waking everything waiting on it.
+     */
+    public void close() {
+        this.lock.lock();
+        try {
+            this.closed = true;
+            this.notEmpty.signalAll();
+            this.notFull.signalAll();
+            wake(this.takeAlts);
+            wake(this.putAlts);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public boolean isClosed() {
+        this.lock.lock();
+        try {
+            return this.closed;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Have {@code latch} counted down when the channel is next ready for
+     * a take, or for a put.
+     */
+    private void watch(final CountDownLatch latch, final boolean isTake) {
+        this.lock.lock();
+        try {
+            (isTake ? this.takeAlts : this.putAlts).add(latch);
+            if (isTake) {
+                this.addTaker();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void unwatch(final CountDownLatch latch, final boolean isTake) {
+        this.lock.lock();
+        try {
+            (isTake ? this.takeAlts : this.putAlts).remove(latch);
+            if (isTake) {
+                this.waitingTakers--;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Try each operation once, without waiting, in order from {@code
+     * start}.
+     *
+     * @return {@code [value port]} for the first to complete, or null.
+     */
+    private static Vector attempt(final List<Expr> ops, final int start) {
+        final int n = ops.size();
+        for (int k = 0; k < n; k++) {
+            final Expr op = ops.get((start + k) % n);
+            if (op instanceof Chan) {
+                final Expr value = ((Chan) op).poll();
+                if (null != value) {
+                    return Vector.pair(value, op);
+                }
+            } else {
+                final Vector put = (Vector) op;
+                final Chan port = (Chan) put.get(0);
+                final Literal done = port.offer(put.get(1));
+                if (null != done) {
+                    return Vector.pair(done, port);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Complete exactly one of several operations, waiting for the first
+     * that can. Each operation is a channel to take from, or a vector
+     * {@code [channel value]} to put to.
+     *
+     * @param ops The operations.
+     * @param priority Whether to prefer the operations in the order given,
+     * rather than starting from one at random, when several are ready.
+     * @param defaultValue If not null, returned at once as {@code
+     * [defaultValue :default]} should no operation be ready.
+     * @return {@code [value port]}, the value taken or whether the value
+     * was put, and the channel it was done on.
+     */
+    public static Vector alts(final List<Expr> ops, final boolean priority,
+                              final Expr defaultValue)
+            throws InterruptedException {
+        if (ops.isEmpty()) {
+            throw new IllegalArgumentException("alts requires at least one "
+                                               + "operation");
+        }
+        final List<Chan> ports = new ArrayList<>(ops.size());
+        for (Expr op : ops) {
+            if (op instanceof Chan) {
+                ports.add((Chan) op);
+            } else if (op instanceof Vector && 2 == ((Vector) op).size()
+                       && ((Vector) op).get(0) instanceof Chan) {
+                checkValue(((Vector) op).get(1));
+                ports.add((Chan) ((Vector) op).get(0));
+            } else {
+                throw new IllegalArgumentException("alts operation must be "
+                                                   + "a channel or a "
+                                                   + "[channel value] pair");
+            }
+        }
+        final int start = (priority ? 0
+                           : ThreadLocalRandom.current().nextInt(ops.size()));
+        Vector result = attempt(ops, start);
+        if (null != result) {
+            return result;
+        }
+        if (null != defaultValue) {
+            return Vector.pair(defaultValue, new Keyword("default"));
+        }
+        while (true) {
+            final CountDownLatch latch = new CountDownLatch(1);
+            for (int k = 0; k < ops.size(); k++) {
+                ports.get(k).watch(latch, ops.get(k) instanceof Chan);
+            }
+            try {
+                result = attempt(ops, start);
+                if (null != result) {
+                    return result;
+                }
+                latch.await();
+            } finally {
+                for (int k = 0; k < ops.size(); k++) {
+                    ports.get(k).unwatch(latch, ops.get(k) instanceof Chan);
+                }
+            }
+        }
+    }
+
+    /**
+     * A channel is its own copy: there is only ever one of it.
+     */
+    @Override
+    public Chan clone() {
+        return this;
+    }
+
+    @Override
+    public <T> T accept(final Visitor<T> visitor) {
+        return visitor.visitChan(this);
+    }
+
+    @Override
+    public String type() {
+        return "Chan";
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.pqnelson.expr;
+
+/**
+ * A run of up to 32 realized elements of a lazy list, in front of the
+ * rest of the list.
+ *
+ * <p>The elements sit in an array, which may be a leaf of a {@link
+ * Vector}'s trie, shared rather than copied; walking them allocates
+ * nothing.</p>
+ */
+public final class ChunkedCons extends ASeq {
+    static final int CHUNK_SIZE = 32;
+    private final Object[] chunk;
+    private final int offset;
+    private final int end;
+    private final Seq more;
+
+    ChunkedCons(final Object[] chunk, final int offset, final int end,
+                final Seq more) {
+        this(chunk, offset, end, more, null);
+    }
+
+    ChunkedCons(final Object[] chunk, final int offset, final int end,
+                final Seq more, final Map meta) {
+        super(meta);
+        this.chunk = chunk;
+        this.offset = offset;
+        this.end = end;
+        this.more = more;
+    }
+
+    Object[] chunk() {
+        return this.chunk;
+    }
+
+    int offset() {
+        return this.offset;
+    }
+
+    int end() {
+        return this.end;
+    }
+
+    Seq more() {
+        return this.more;
+    }
+
+    @Override
+    public Seq withMeta(final Map newMeta) {
+        if ((null != this.meta()) && (this.meta().equals(newMeta))) {
+            return this;
+        }
+        return new ChunkedCons(this.chunk, this.offset, this.end, this.more,
+                               newMeta);
+    }
+
+    @Override
+    public Expr first() {
+        return (Expr) this.chunk[this.offset];
+    }
+
+    @Override
+    public Seq rest() {
+        if (this.offset + 1 < this.end) {
+            return new ChunkedCons(this.chunk, this.offset + 1, this.end,
+                                   this.more);
+        }
+        return this.more;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+}
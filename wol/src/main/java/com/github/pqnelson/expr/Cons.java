@@ -0,0 +1,64 @@
+package com.github.pqnelson.expr;
+
+/**
+ * A cell of a persistent singly linked list: an element in front of
+ * another list.
+ *
+ * <p>Consing onto a list, taking its {@link #first()} or its {@link
+ * #rest()}, and counting it are all constant time, and the list
+ * consed onto is shared rather than copied. Indexing walks the cells,
+ * so takes time proportional to the index. Consing onto a lazy list
+ * leaves it unrealized, so the count is then only taken on demand.</p>
+ */
+public final class Cons extends ASeq {
+    private final Expr first;
+    private final Seq more;
+    private int count;
+
+    Cons(final Expr first, final Seq more) {
+        this(first, more, null);
+    }
+
+    Cons(final Expr first, final Seq more, final Map meta) {
+        super(meta);
+        this.first = first;
+        this.more = more;
+        this.count = (more.counted() ? 1 + more.size() : -1);
+    }
+
+    @Override
+    public Seq withMeta(final Map newMeta) {
+        if ((null != this.meta()) && (this.meta().equals(newMeta))) {
+            return this;
+        }
+        return new Cons(this.first, this.more, newMeta);
+    }
+
+    @Override
+    public Expr first() {
+        return this.first;
+    }
+
+    @Override
+    public Seq rest() {
+        return this.more;
+    }
+
+    @Override
+    boolean counted() {
+        return 0 <= this.count;
+    }
+
+    @Override
+    public int size() {
+        if (0 > this.count) {
+            this.count = super.size();
+        }
+        return this.count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+}
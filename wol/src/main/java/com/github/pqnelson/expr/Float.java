@@ -30,7 +30,7 @@ public class Float extends com.github.pqnelson.expr.Number {
      * Subtraction
      */
     public Float subtract(final Int rhs) {
-        return new Float(this.value() - rhs.value());
+        return new Float(this.value() - rhs.longValue());
     }
     public Float subtract(final BigInt rhs) {
         return new Float(this.value() - rhs.value().doubleValue());
@@ -54,7 +54,7 @@ public class Float extends com.github.pqnelson.expr.Number {
      * Division
      */
     public Float divide(final Int rhs) {
-        return new Float(this.value() / rhs.value());
+        return new Float(this.value() / rhs.longValue());
     }
     public Float divide(final BigInt rhs) {
         return new Float(this.value() / (rhs.value().doubleValue()));
@@ -125,13 +125,11 @@ public class Float extends com.github.pqnelson.expr.Number {
 
     @Override
     public int compareTo(final Number o) {
-        Number diff = this.subtract(o);
-        if (diff.isFloat()) {
-            return Double.valueOf(Math.signum(((Float) diff).value()))
+        if (o.isFloat()) {
+            return Double.valueOf(Math.signum(this.value()
+                                              - ((Float) o).value()))
                 .intValue();
-        } else if (diff.isBigInt()) {
-            return ((BigInt) diff).value().intValue();
         }
-        return ((Int) diff).value().intValue();
+        return -o.compareTo(this);
     }
 }
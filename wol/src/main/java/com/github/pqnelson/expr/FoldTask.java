@@ -0,0 +1,61 @@
+package com.github.pqnelson.expr;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A piece of a parallel {@link IFold#fold(int, IFn, IFn)}, run on the
+ * common fork/join pool.
+ *
+ * <p>Whatever a reducing or combining function throws is carried out
+ * of the pool and rethrown, unchanged, by {@link #run(FoldTask)}.</p>
+ */
+abstract class FoldTask extends RecursiveTask<Expr> {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Carries a {@code Throwable} through the pool.
+     */
+    private static final class Failure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private Failure(final Throwable cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * Reduce this piece, forking and joining smaller pieces if it is
+     * big enough to be split.
+     */
+    abstract Expr fold() throws Throwable;
+
+    @Override
+    protected final Expr compute() {
+        try {
+            return this.fold();
+        } catch (Failure e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new Failure(e);
+        }
+    }
+
+    /**
+     * Run the task on the common pool, waiting for its result.
+     */
+    static Expr run(final FoldTask task) throws Throwable {
+        try {
+            return ForkJoinPool.commonPool().invoke(task);
+        } catch (RuntimeException e) {
+            // the pool may wrap the failure again on its way out
+            Throwable failure = null;
+            for (Throwable t = e; null != t; t = t.getCause()) {
+                if (t instanceof Failure) {
+                    failure = t;
+                }
+            }
+            throw (null == failure ? e : failure.getCause());
+        }
+    }
+}
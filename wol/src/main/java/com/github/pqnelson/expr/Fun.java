@@ -1,7 +1,8 @@
 package com.github.pqnelson.expr;
 
-import java.util.HashMap;
-import java.util.TreeMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import java.util.concurrent.Callable;
 
@@ -102,20 +103,34 @@ public class Fun extends Expr implements IObj<Fun> {
             return this.f.invoke(args);
         }
     }
-    private FnMethod defaultFn;
+    private volatile FnMethod defaultFn;
     private Symbol name;
-    private java.util.Map<Integer, FnMethod> methods = new TreeMap<>();
+    /**
+     * The fixed-arity methods, indexed by arity; an arity without a
+     * method has a {@code null} entry. The array is exactly long enough
+     * to hold the largest arity.
+     *
+     * <p>The array is never modified once it is visible here: adding a
+     * method swaps in a copy, so a thread calling the function while
+     * another adds a method sees either the old methods or the new.</p>
+     */
+    private volatile FnMethod[] methods = NO_METHODS;
     private boolean macro = false;
     private Map meta = null;
-    // If there are 8 or more different overloads, switch to using a HashMap
-    private static final int HASHMAP_CUTOFF = 8;
+    private static final FnMethod[] NO_METHODS = new FnMethod[0];
+    /**
+     * The metadata key marking a function as pure: given the same
+     * arguments it always returns the same value, with no side effects,
+     * so a call over constants may be folded by the analyzer.
+     */
+    public static final Keyword PURE = new Keyword("pure");
 
     public Fun(final IFn f) {
         this(f, null, null, null);
     }
     public Fun(final IFn f, final int arity, final boolean isVariadic) {
         if (isVariadic) this.defaultFn = new FnMethod(f, arity, isVariadic);
-        else methods.put(arity, new FnMethod(f, arity, isVariadic));
+        else putMethod(new FnMethod(f, arity, isVariadic));
     }
     public Fun(final IFn f, final int arity, final boolean isVariadic,
                final Symbol name) {
@@ -136,7 +151,7 @@ public class Fun extends Expr implements IObj<Fun> {
                final Symbol funName) {
         FnMethod fnExpr = new FnMethod(f, params, body);
         if (fnExpr.isVariadic) this.defaultFn = fnExpr;
-        else methods.put(fnExpr.arity(), fnExpr);
+        else putMethod(fnExpr);
         this.name = funName;
     }
 
@@ -151,12 +166,7 @@ public class Fun extends Expr implements IObj<Fun> {
         this.defaultFn = fn.defaultFn;
         this.name = fn.name;
         this.macro = fn.macro;
-        if (fn.methods.size() >= HASHMAP_CUTOFF) {
-            this.methods = new HashMap<Integer, FnMethod>(fn.methods.size());
-        }
-        for (FnMethod f : fn.methods.values()) {
-            this.methods.put(f.arity(), f);
-        }
+        this.methods = fn.methods.clone();
     }
 
     /**
@@ -184,24 +194,42 @@ public class Fun extends Expr implements IObj<Fun> {
         if (null != this.defaultFn && fnExpr.arity() > this.defaultFn.arity()) {
             throw new RuntimeException("Can't have fixed arity function with more params than variadic function");
         }
-        if (this.methods.containsKey(fnExpr.arity())) {
+        if (hasFixedArity(fnExpr.arity())) {
             throw new RuntimeException("Cannot have two overloads with the same arity");
         }
     }
 
-    private void checkMapWorks() {
-        if (this.methods instanceof HashMap) return;
-        if (this.methods.size() >= HASHMAP_CUTOFF) {
-            HashMap<Integer, FnMethod> map = new HashMap<>(this.methods);
-            this.methods = map;
+    private boolean hasFixedArity(final int arity) {
+        final FnMethod[] fixed = this.methods;
+        return arity < fixed.length && null != fixed[arity];
+    }
+
+    private void putMethod(final FnMethod fnExpr) {
+        final int arity = fnExpr.arity();
+        final FnMethod[] copy = Arrays.copyOf(this.methods,
+                                              Math.max(arity + 1,
+                                                       this.methods.length));
+        copy[arity] = fnExpr;
+        this.methods = copy;
+    }
+
+    /**
+     * The fixed-arity methods, in increasing order of arity.
+     */
+    private List<FnMethod> fixedMethods() {
+        List<FnMethod> result = new ArrayList<>(this.methods.length);
+        for (FnMethod f : this.methods) {
+            if (null != f) {
+                result.add(f);
+            }
         }
+        return result;
     }
-    
-    private void addMethod(final FnMethod fnExpr) {
+
+    private synchronized void addMethod(final FnMethod fnExpr) {
         checkMethodValidity(fnExpr);
         if (fnExpr.isVariadic()) this.defaultFn = fnExpr;
-        else this.methods.put(fnExpr.arity(), fnExpr);
-        checkMapWorks();
+        else putMethod(fnExpr);
     }
     
     public void addMethod(final IFn fn, final int arity, final boolean isVariadic) {
@@ -213,8 +241,15 @@ public class Fun extends Expr implements IObj<Fun> {
     }
     
     private boolean hasSameSignature(final Fun rhs) {
-        return ((this.methods.size() == rhs.methods.size())
-                 && this.methods.keySet().equals(rhs.methods.keySet()));
+        if (this.methods.length != rhs.methods.length) {
+            return false;
+        }
+        for (int i = 0; i < this.methods.length; i++) {
+            if ((null == this.methods[i]) != (null == rhs.methods[i])) {
+                return false;
+            }
+        }
+        return true;
     }
 
     private boolean hasSameName(final Fun rhs) {
@@ -230,16 +265,16 @@ public class Fun extends Expr implements IObj<Fun> {
 
     @VisibleForTesting
     boolean hasSameImplementation(final Fun rhs) {
-        return this.hasSameDefaultFn(rhs) && this.methods.equals(rhs.methods);
+        return this.hasSameDefaultFn(rhs) && Arrays.equals(this.methods, rhs.methods);
     }
 
     private boolean hasSameBody(final Fun rhs) {
         if (null == this.defaultFn) {
-            if (null == rhs.defaultFn) return this.methods.equals(rhs.methods);
+            if (null == rhs.defaultFn) return Arrays.equals(this.methods, rhs.methods);
             return false;
         }
         if (!this.defaultFn.equals(rhs.defaultFn)) return false;
-        return this.methods.equals(rhs.methods);
+        return Arrays.equals(this.methods, rhs.methods);
     }
 
     @Override
@@ -266,6 +301,14 @@ public class Fun extends Expr implements IObj<Fun> {
         return new Fun(this, newMeta);
     }
 
+    /**
+     * Whether the metadata says calls to this function may be folded.
+     */
+    public boolean isPure() {
+        return null != this.meta
+            && Literal.T.equals(this.meta.get(PURE, Literal.NIL));
+    }
+
     /**
      * Mark the function as a macro. This is an "not undoable" operation.
      */
@@ -289,42 +332,51 @@ public class Fun extends Expr implements IObj<Fun> {
     public Vector arities() {
         Vector result = new Vector();
         if (null != this.defaultFn) {
-            result.conj(new Int(this.defaultFn.arity()));
+            result.conj(Int.valueOf(this.defaultFn.arity()));
         }
-        for (int arity : this.methods.keySet()) {
-            result.conj(new Int(arity));
+        for (FnMethod f : fixedMethods()) {
+            result.conj(Int.valueOf(f.arity()));
         }
         return result;
     }
 
     FnMethod getMethodWithArity(int arity) {
-        FnMethod f = this.methods.get(arity);
-        if (null == f) {
-            if (null == this.defaultFn) {
-                throw new RuntimeException("Wrong number of args (" + arity
-                                           + ")"
-                                           + (null == this.name
-                                              ? ""
-                                              : " passed to "+this.name.toString()));
-            } else if (this.defaultFn.arity() > arity) {
-                throw new RuntimeException("Wrong number of args (" + arity
-                                           + ")"
-                                           + (null == this.name
-                                              ? ""
-                                              : " passed to "+this.name.toString()));
-            } else {
-                f = this.defaultFn;
+        final FnMethod[] fixed = this.methods;
+        if (arity < fixed.length) {
+            final FnMethod f = fixed[arity];
+            if (null != f) {
+                return f;
             }
         }
+        final FnMethod f = this.defaultFn;
+        if (null == f || f.arity() > arity) {
+            throw wrongArity(arity);
+        }
         return f;
     }
 
+    private RuntimeException wrongArity(int arity) {
+        return new RuntimeException("Wrong number of args (" + arity
+                                    + ")"
+                                    + (null == this.name
+                                       ? ""
+                                       : " passed to "+this.name.toString()));
+    }
+
     public Expr getBody(int arity) {
         return getMethodWithArity(arity).body;
     }
 
-    public Expr getIFn(int arity) {
-        return getMethodWithArity(arity).body;
+    public IFn getIFn(int arity) {
+        return getMethodWithArity(arity).f;
+    }
+
+    /**
+     * Whether the function may be called with this many arguments.
+     */
+    public boolean hasArity(final int arity) {
+        return hasFixedArity(arity)
+            || (null != this.defaultFn && this.defaultFn.arity() <= arity);
     }
 
     public boolean isInterpreted(int arity) {
@@ -343,6 +395,28 @@ public class Fun extends Expr implements IObj<Fun> {
         return f.invoke(args);
     }
 
+    public Expr invoke0() throws Throwable {
+        return getMethodWithArity(0).f.invoke0();
+    }
+
+    public Expr invoke1(final Expr a) throws Throwable {
+        return getMethodWithArity(1).f.invoke1(a);
+    }
+
+    public Expr invoke2(final Expr a, final Expr b) throws Throwable {
+        return getMethodWithArity(2).f.invoke2(a, b);
+    }
+
+    public Expr invoke3(final Expr a, final Expr b, final Expr c)
+            throws Throwable {
+        return getMethodWithArity(3).f.invoke3(a, b, c);
+    }
+
+    public Expr invoke4(final Expr a, final Expr b, final Expr c,
+                        final Expr d) throws Throwable {
+        return getMethodWithArity(4).f.invoke4(a, b, c, d);
+    }
+
     /*
     @Override
     public Expr call() {
@@ -353,7 +427,7 @@ public class Fun extends Expr implements IObj<Fun> {
         return this.invoke(new Seq());
     }
     public <T> T visitMethods(Visitor<T> visitor) {
-        Seq methods = new Seq(this.methods.values());
+        Seq methods = new Seq(fixedMethods());
         if (null != this.defaultFn) methods.conj(this.defaultFn);
         return methods.accept(visitor);
     }
@@ -393,11 +467,12 @@ public class Fun extends Expr implements IObj<Fun> {
 
     @Override
     public String toString() {
-        if (null != this.defaultFn && this.methods.isEmpty()) {
+        final List<FnMethod> fixed = fixedMethods();
+        if (null != this.defaultFn && fixed.isEmpty()) {
             return printSingletonMethod(this.defaultFn);
         }
-        if (null == this.defaultFn && 1 == this.methods.size()) {
-            for (FnMethod f : this.methods.values()) {
+        if (null == this.defaultFn && 1 == fixed.size()) {
+            for (FnMethod f : fixed) {
                 return printSingletonMethod(f);
             }
         }
@@ -410,7 +485,7 @@ public class Fun extends Expr implements IObj<Fun> {
         if (null != this.defaultFn) {
             buf.append(this.defaultFn.toString(true));
         }
-        for (FnMethod f : this.methods.values()) {
+        for (FnMethod f : fixed) {
             buf.append(" ");
             buf.append(f.toString(true));
         }
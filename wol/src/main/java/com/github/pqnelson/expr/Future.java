@@ -0,0 +1,126 @@
+package com.github.pqnelson.expr;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The value of a function of no arguments, computed on another thread.
+ *
+ * <p>The function is submitted when the future is made. Reading the
+ * value waits for it; if the function threw, reading it rethrows the
+ * same exception.</p>
+ *
+ * <p>Futures run on virtual threads when the JVM has them, so many of
+ * them may wait on I/O at once for next to nothing; otherwise they run
+ * on a cached pool of daemon threads. Either may be replaced by {@link
+ * #setExecutor(ExecutorService)}.</p>
+ */
+public final class Future extends ADeref {
+    private static volatile ExecutorService executor = null;
+    private final java.util.concurrent.Future<Expr> task;
+
+    public Future(final IFn fn) {
+        this.task = executor().submit(() -> {
+                try {
+                    return fn.invoke0();
+                } catch (Exception | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new ExecutionException(e);
+                }
+        });
+    }
+
+    /**
+     * What the function threw, unwrapped from the executor's wrapper and
+     * from our own.
+     */
+    private static Throwable cause(final ExecutionException e) {
+        Throwable result = e.getCause();
+        if (result instanceof ExecutionException
+            && null != result.getCause()) {
+            result = result.getCause();
+        }
+        return result;
+    }
+
+    /**
+     * The executor futures are submitted to, made on first use.
+     */
+    public static ExecutorService executor() {
+        ExecutorService result = executor;
+        if (null == result) {
+            synchronized (Future.class) {
+                result = executor;
+                if (null == result) {
+                    result = defaultExecutor();
+                    executor = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Run futures made from now on with the given executor.
+     */
+    public static void setExecutor(final ExecutorService newExecutor) {
+        executor = newExecutor;
+    }
+
+    /**
+     * A virtual thread per task when the JVM supports them, looked up
+     * reflectively so this still runs on a JVM without them.
+     */
+    private static ExecutorService defaultExecutor() {
+        try {
+            final Method m = Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            final AtomicInteger n = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                    final Thread t = new Thread(r, "wol-future-"
+                                                + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+            });
+        }
+    }
+
+    @Override
+    public Expr deref() throws Throwable {
+        try {
+            return this.task.get();
+        } catch (ExecutionException e) {
+            throw cause(e);
+        }
+    }
+
+    @Override
+    public Expr deref(final long timeoutMs, final Expr timeoutValue)
+            throws Throwable {
+        try {
+            return this.task.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return timeoutValue;
+        } catch (ExecutionException e) {
+            throw cause(e);
+        }
+    }
+
+    @Override
+    public boolean isRealized() {
+        return this.task.isDone();
+    }
+
+    @Override
+    public String type() {
+        return "Future";
+    }
+}
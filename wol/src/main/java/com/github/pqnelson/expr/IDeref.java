@@ -0,0 +1,25 @@
+package com.github.pqnelson.expr;
+
+/**
+ * A reference whose value is read with {@code deref}, or {@code @ref}.
+ */
+public interface IDeref {
+    /**
+     * The value, waiting for it if it is not there yet.
+     */
+    Expr deref() throws Throwable;
+
+    /**
+     * The value, waiting at most {@code timeoutMs} milliseconds for it.
+     *
+     * @param timeoutMs How long to wait, in milliseconds.
+     * @param timeoutValue What to return if the wait times out.
+     * @return The value, or {@code timeoutValue}.
+     */
+    Expr deref(long timeoutMs, Expr timeoutValue) throws Throwable;
+
+    /**
+     * Whether the value is there, so {@link #deref()} will not wait.
+     */
+    boolean isRealized();
+}
@@ -2,8 +2,35 @@ package com.github.pqnelson.expr;
 
 /**
  * The interface for a function, used by the Evaluator.
+ *
+ * <p>Calls with at most four arguments go through {@code invoke0}
+ * through {@code invoke4}, so a function which overrides them needs no
+ * argument list at all. By default each of them packs its arguments
+ * into a {@code Seq} and calls the variadic {@link #invoke(Seq)}.</p>
  */
 @FunctionalInterface
 public interface IFn {
     Expr invoke(Seq args) throws Throwable;
-}
\ No newline at end of file
+
+    default Expr invoke0() throws Throwable {
+        return invoke(Seq.of());
+    }
+
+    default Expr invoke1(final Expr a) throws Throwable {
+        return invoke(Seq.of(a));
+    }
+
+    default Expr invoke2(final Expr a, final Expr b) throws Throwable {
+        return invoke(Seq.of(a, b));
+    }
+
+    default Expr invoke3(final Expr a, final Expr b, final Expr c)
+            throws Throwable {
+        return invoke(Seq.of(a, b, c));
+    }
+
+    default Expr invoke4(final Expr a, final Expr b, final Expr c,
+                         final Expr d) throws Throwable {
+        return invoke(Seq.of(a, b, c, d));
+    }
+}
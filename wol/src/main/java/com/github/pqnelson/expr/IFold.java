@@ -0,0 +1,24 @@
+package com.github.pqnelson.expr;
+
+/**
+ * A collection which can be reduced in parallel, split along its own
+ * tree into pieces reduced on the common fork/join pool.
+ */
+public interface IFold extends IReduce {
+    /**
+     * Reduce pieces of about {@code n} elements each in parallel, then
+     * combine their results.
+     *
+     * <p>Each piece is reduced with {@code f}, starting from {@code
+     * (combine)}, and the results of two pieces are merged with {@code
+     * (combine left right)}, so {@code combine} should be associative
+     * with {@code (combine)} as its identity. A collection of at most
+     * {@code n} elements is reduced in the calling thread.</p>
+     *
+     * @param n The number of elements below which a piece is not split.
+     * @param combine Merges the results of two pieces.
+     * @param f The reducing function for each piece.
+     * @return The combined result.
+     */
+    Expr fold(int n, IFn combine, IFn f) throws Throwable;
+}
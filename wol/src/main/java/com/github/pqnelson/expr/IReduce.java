@@ -0,0 +1,20 @@
+package com.github.pqnelson.expr;
+
+/**
+ * A collection which reduces itself, walking its own representation
+ * rather than going through a list of its elements.
+ *
+ * <p>The reducing function is called with the result so far and each
+ * element in turn. When it returns a {@link Reduced} value the
+ * reduction stops there, and the wrapped value is the result.</p>
+ */
+public interface IReduce {
+    /**
+     * Combine the elements, starting from {@code init}.
+     *
+     * @param f The reducing function, called with two arguments.
+     * @param init The initial result.
+     * @return The final result, never itself {@code Reduced}.
+     */
+    Expr reduce(IFn f, Expr init) throws Throwable;
+}
@@ -0,0 +1,27 @@
+package com.github.pqnelson.expr;
+
+/**
+ * A function whose calls in tail position are made by the caller's
+ * trampoline, so they take no Java stack.
+ *
+ * <p>A call site in tail position hands such a function back to its
+ * caller as a {@link TailCall} instead of calling it. Whoever is running
+ * the trampoline then calls {@link #invokeStep(Seq)}, which does one step
+ * of the work and either returns the value or yet another
+ * {@code TailCall}. Interpreted functions and native functions (such as
+ * {@code apply}) which end by calling another function both implement
+ * this, so any chain of tail calls between them runs in constant
+ * stack.</p>
+ *
+ * <p>{@link IFn#invoke(Seq)} never returns a {@code TailCall}: it runs
+ * the trampoline itself.</p>
+ */
+public interface ITrampolined extends IFn {
+    /**
+     * Run one step of a call.
+     *
+     * @param args The arguments of the call.
+     * @return The value of the call, or the {@code TailCall} to make next.
+     */
+    Expr invokeStep(Seq args) throws Throwable;
+}
@@ -2,152 +2,218 @@ package com.github.pqnelson.expr;
 
 import java.math.BigInteger;
 
-public class Int extends com.github.pqnelson.expr.Number {
+/**
+ * A 64-bit integer.
+ *
+ * <p>The value is held unboxed, and small values, which loop counters
+ * and indices mostly are, are shared: {@link #valueOf(long)} returns the
+ * same object for each of them, so arithmetic on them allocates
+ * nothing.</p>
+ */
+public final class Int extends com.github.pqnelson.expr.Number {
+    static final int CACHE_LOW = -1024;
+    static final int CACHE_HIGH = 1024;
+    private static final Int[] CACHE = new Int[CACHE_HIGH - CACHE_LOW + 1];
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new Int(CACHE_LOW + i);
+        }
+    }
+
+    private final long value;
+
     public Int(final long value) {
-        super(value);
+        super(null);
+        this.value = value;
+    }
+
+    /**
+     * The integer, shared if it is small.
+     */
+    public static Int valueOf(final long value) {
+        if (CACHE_LOW <= value && value <= CACHE_HIGH) {
+            return CACHE[(int) value - CACHE_LOW];
+        }
+        return new Int(value);
     }
 
+    /**
+     * The value, boxed; prefer {@link #longValue()}.
+     */
     @Override
     public Long value() {
-        return (Long) super.value();
+        return this.value;
+    }
+
+    public long longValue() {
+        return this.value;
     }
 
+    /**
+     * Equal to an {@code Int} or {@code BigInt} of the same value, as
+     * arithmetic may give either for a value a literal gives the other.
+     */
     @Override
     public boolean equals(final Object obj) {
         if (this == obj) {
             return true;
         }
-        if (null == obj) {
-            return false;
+        if (obj instanceof Int) {
+            return (this.value == ((Int) obj).value);
         }
-        if (obj.getClass() != this.getClass()) {
-            return false;
+        if (obj instanceof BigInt) {
+            final BigInteger rhs = ((BigInt) obj).value();
+            return (rhs.bitLength() < Long.SIZE
+                    && this.value == rhs.longValue());
         }
-        Int rhs = (Int)obj;
-        return (this.value().equals(rhs.value()));
+        return false;
     }
 
     @Override
     public final int hashCode() {
-        return Long.hashCode(this.value());
+        return Long.hashCode(this.value);
     }
 
 
     @Override
     public String toString() {
-        return Long.toString(this.value(), 10);
+        return Long.toString(this.value, 10);
     }
 
     public String toString(final int radix) {
-        return Long.toString(this.value(), radix);
+        return Long.toString(this.value, radix);
     }
 
     public String toBinaryString() {
-        return Long.toHexString(this.value());
+        return Long.toHexString(this.value);
     }
 
     public String toOctalString() {
-        return Long.toOctalString(this.value());
+        return Long.toOctalString(this.value);
     }
 
     public String toHexString() {
-        return Long.toHexString(this.value());
+        return Long.toHexString(this.value);
+    }
+
+    private BigInteger big() {
+        return BigInteger.valueOf(this.value);
     }
 
     /**
-     * Addition with possible overflow.
+     * Addition, promoted to a {@code BigInt} only if it overflows.
      */
     public Number add(final Int rhs) {
-        return new Int(this.value() + rhs.value());
+        final long r = this.value + rhs.value;
+        // as Math.addExact: overflow iff the sign differs from both
+        if (((this.value ^ r) & (rhs.value ^ r)) < 0) {
+            return new BigInt(this.big().add(rhs.big()));
+        }
+        return valueOf(r);
     }
-    public BigInt add(final BigInt rhs) {
-        return new BigInt(BigInteger.valueOf(this.value()).add(rhs.value()));
+    public Number add(final BigInt rhs) {
+        return BigInt.valueOf(this.big().add(rhs.value()));
     }
     public Float add(final Float rhs) {
-        return new Float(this.value() + rhs.value());
+        return new Float(this.value + rhs.value());
     }
 
     /**
-     * Subtraction
+     * Subtraction, promoted to a {@code BigInt} only if it overflows.
      */
-    public Int subtract(final Int rhs) {
-        return new Int(this.value() - rhs.value());
+    public Number subtract(final Int rhs) {
+        final long r = this.value - rhs.value;
+        if (((this.value ^ rhs.value) & (this.value ^ r)) < 0) {
+            return new BigInt(this.big().subtract(rhs.big()));
+        }
+        return valueOf(r);
     }
-    public BigInt subtract(final BigInt rhs) {
-        return new BigInt(BigInteger.valueOf(this.value())
-                                    .subtract(rhs.value()));
+    public Number subtract(final BigInt rhs) {
+        return BigInt.valueOf(this.big().subtract(rhs.value()));
     }
     public Float subtract(final Float rhs) {
-        return new Float(this.value() - rhs.value());
+        return new Float(this.value - rhs.value());
     }
 
     /**
-     * Multiplication
+     * Multiplication, promoted to a {@code BigInt} only if it overflows.
      */
-    public Int multiply(final Int rhs) {
-        return new Int(this.value() * rhs.value());
+    public Number multiply(final Int rhs) {
+        final long r = this.value * rhs.value;
+        // the high half of the full product is just the sign of the low
+        if (Math.multiplyHigh(this.value, rhs.value) != (r >> 63)) {
+            return new BigInt(this.big().multiply(rhs.big()));
+        }
+        return valueOf(r);
     }
 
-    public BigInt multiply(final BigInt rhs) {
-        return new BigInt(BigInteger.valueOf(this.value())
-                                    .multiply(rhs.value()));
+    public Number multiply(final BigInt rhs) {
+        return BigInt.valueOf(this.big().multiply(rhs.value()));
     }
 
     public Float multiply(final Float rhs) {
-        return new Float(this.value() * rhs.value());
+        return new Float(this.value * rhs.value());
     }
 
     /**
-     * Division
+     * Division, which overflows only for the least long over -1.
      */
-    public Int divide(final Int rhs) {
-        return new Int(this.value() / rhs.value());
+    public Number divide(final Int rhs) {
+        if (Long.MIN_VALUE == this.value && -1L == rhs.value) {
+            return new BigInt(this.big().negate());
+        }
+        return valueOf(this.value / rhs.value);
     }
 
-    public BigInt divide(final BigInt rhs) {
-        return new BigInt(BigInteger.valueOf(this.value()).divide(rhs.value()));
+    public Number divide(final BigInt rhs) {
+        return BigInt.valueOf(this.big().divide(rhs.value()));
     }
 
     public Float divide(final Float rhs) {
-        return new Float(this.value() / rhs.value());
+        return new Float(this.value / rhs.value());
     }
 
+    /*
+     * Integers are tested for first, with instanceof on this final
+     * class, as they are by far the commonest right-hand operand.
+     */
+
     @Override
     public Number add(final Number rhs) {
-        if (rhs.isFloat()) {
-            return this.add((Float) rhs);
-        } else if (rhs.isInt()) {
+        if (rhs instanceof Int) {
             return this.add((Int) rhs);
+        } else if (rhs.isFloat()) {
+            return this.add((Float) rhs);
         }
         return this.add((BigInt) rhs);
     }
 
     @Override
     public Number subtract(final Number rhs) {
-        if (rhs.isFloat()) {
-            return this.subtract((Float) rhs);
-        } else if (rhs.isInt()) {
+        if (rhs instanceof Int) {
             return this.subtract((Int) rhs);
+        } else if (rhs.isFloat()) {
+            return this.subtract((Float) rhs);
         }
         return this.subtract((BigInt) rhs);
     }
 
     @Override
     public Number divide(final Number rhs) {
-        if (rhs.isFloat()) {
-            return this.divide((Float) rhs);
-        } else if (rhs.isInt()) {
+        if (rhs instanceof Int) {
             return this.divide((Int) rhs);
+        } else if (rhs.isFloat()) {
+            return this.divide((Float) rhs);
         }
         return this.divide((BigInt) rhs);
     }
 
     @Override
     public Number multiply(final Number rhs) {
-        if (rhs.isFloat()) {
-            return this.multiply((Float) rhs);
-        } else if (rhs.isInt()) {
+        if (rhs instanceof Int) {
             return this.multiply((Int) rhs);
+        } else if (rhs.isFloat()) {
+            return this.multiply((Float) rhs);
         }
         return this.multiply((BigInt) rhs);
     }
@@ -157,15 +223,19 @@ public class Int extends com.github.pqnelson.expr.Number {
         return "Int";
     }
 
+    /**
+     * Compare without computing the difference, which for integers
+     * could overflow, and would allocate.
+     */
     @Override
     public int compareTo(final Number o) {
-        Number diff = this.subtract(o);
-        if (diff.isFloat()) {
-            return Double.valueOf(Math.signum(((Float) diff).value()))
-                .intValue();
-        } else if (diff.isBigInt()) {
-            return ((BigInt) diff).value().intValue();
+        if (o instanceof Int) {
+            return Long.compare(this.value, ((Int) o).value);
+        } else if (o.isFloat()) {
+            final double lhs = (double) this.value;
+            final double rhs = ((Float) o).value();
+            return (lhs < rhs ? -1 : (lhs > rhs ? 1 : 0));
         }
-        return ((Int) diff).value().intValue();
+        return this.big().compareTo(((BigInt) o).value());
     }
 }
@@ -0,0 +1,133 @@
+package com.github.pqnelson.expr;
+
+/**
+ * A list whose elements are only computed when they are looked at.
+ *
+ * <p>The body of a {@code (lazy-seq body...)} form is wrapped up as a
+ * function of no arguments, called the first time anything asks about
+ * the list; its result (nil, a list, a vector, a map or a string) is
+ * cached as the realized list. A body which itself ends in a
+ * {@code lazy-seq} is how an unbounded list is built, one step at a
+ * time, and realizing any number of nested ones takes no stack.</p>
+ *
+ * <p>Vectors are realized {@value ChunkedCons#CHUNK_SIZE} elements at
+ * a time, see {@link ChunkedCons}.</p>
+ */
+public final class LazySeq extends ASeq {
+    private IFn fn;
+    private Expr sv = null;
+    private Seq s = null;
+
+    public LazySeq(final IFn fn) {
+        this(fn, null);
+    }
+
+    public LazySeq(final IFn fn, final Map meta) {
+        super(meta);
+        this.fn = fn;
+    }
+
+    @Override
+    public Seq withMeta(final Map newMeta) {
+        if ((null != this.meta()) && (this.meta().equals(newMeta))) {
+            return this;
+        }
+        return new LazySeq(args -> this, newMeta);
+    }
+
+    /**
+     * Call the body, if that has not been done yet, and return what it
+     * gave without looking into it.
+     */
+    private synchronized Expr step() {
+        if (null != this.fn) {
+            try {
+                final Expr v = this.fn.invoke0();
+                this.sv = (null == v ? Literal.NIL : v);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+            this.fn = null;
+        }
+        if (null != this.sv) {
+            return this.sv;
+        }
+        return this.s;
+    }
+
+    /**
+     * The realized list, which is never itself lazy, though its rest
+     * may be.
+     */
+    synchronized Seq realize() {
+        if (null == this.s) {
+            Expr v = this.step();
+            while (v instanceof LazySeq) {
+                v = ((LazySeq) v).step();
+            }
+            this.sv = null;
+            this.s = toSeq(v);
+        }
+        return this.s;
+    }
+
+    private static Seq toSeq(final Expr v) {
+        if (v.isNil()) {
+            return new Seq();
+        } else if (v.isList()) {
+            return (Seq) v;
+        } else if (v.isVector()) {
+            return chunked((Vector) v, 0);
+        } else if (v.isMap() || v.isString()) {
+            final Expr result = (v.isMap()
+                                 ? ((Map) v).seq()
+                                 : ((Str) v).seq());
+            return (result.isNil() ? new Seq() : (Seq) result);
+        }
+        throw new IllegalArgumentException("lazy-seq body returned "
+                                           + v.type()
+                                           + ", which is not a sequence");
+    }
+
+    /**
+     * The elements of a vector from the given index on, one leaf of its
+     * trie at a time.
+     */
+    public static Seq chunked(final Vector v, final int start) {
+        if (start >= v.size()) {
+            return new Seq();
+        }
+        final int end = Math.min(ChunkedCons.CHUNK_SIZE, v.size() - start);
+        return new ChunkedCons(v.arrayFor(start), 0, end,
+                               new LazySeq(args -> chunked(v, start + end)));
+    }
+
+    @Override
+    public Expr first() {
+        return this.realize().first();
+    }
+
+    @Override
+    public Seq rest() {
+        final Seq result = this.realize();
+        return (result.isEmpty() ? result : result.rest());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.realize().isEmpty();
+    }
+
+    @Override
+    public Expr seq() {
+        final Seq result = this.realize();
+        return (result.isEmpty() ? Literal.NIL : result);
+    }
+
+    @Override
+    public String type() {
+        return "LazySeq";
+    }
+}
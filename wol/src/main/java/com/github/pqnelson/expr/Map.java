@@ -1,23 +1,385 @@
 package com.github.pqnelson.expr;
 
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
 
-public class Map extends Expr implements Iterable<Expr>, IObj<Map>, ICountable {
-    private final HashMap<Expr, Expr> table;
+/**
+ * A map from keys to values.
+ *
+ * <p>The entries are stored in a persistent hash array mapped trie,
+ * after Clojure's {@code PersistentHashMap}: each level of the trie
+ * consumes five bits of the key's hash, and a node only allocates room
+ * for the children it has. {@link #associate(Expr, Expr)} and {@link
+ * #dissociate(Expr)} take {@code O(log32 n)} and share everything but
+ * one path with the map they came from; nothing is ever deep-copied.</p>
+ *
+ * <p>The legacy in-place {@link #assoc(Expr, Expr)} and {@link
+ * #dissoc(Expr)} swap in the updated trie, so maps sharing it are never
+ * affected. A map made by {@link #immutableCopy()} refuses them; it is
+ * otherwise the same kind of map. To build a large map, use a {@link
+ * TransientMap} instead.</p>
+ */
+public class Map extends Expr
+        implements Iterable<Expr>, IObj<Map>, ICountable, IFold {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    /** Marks a missing key, since a value may be {@code null}. */
+    private static final Object NOT_FOUND = new Object();
+
+    /**
+     * A node of the trie. Its array holds key/value pairs; a pair with a
+     * {@code null} key holds a child node as its value.
+     *
+     * <p>The updates take the edit token of a transient, or {@code null}
+     * for a persistent update. A node carrying the same (non-null) token
+     * was made by that transient, and is changed in place; any other
+     * node is copied.</p>
+     */
+    private abstract static class INode {
+        final AtomicReference<Thread> edit;
+        Object[] array;
+
+        INode(final AtomicReference<Thread> edit, final Object[] array) {
+            this.edit = edit;
+            this.array = array;
+        }
+
+        final boolean isEditable(final AtomicReference<Thread> token) {
+            return null != token && this.edit == token;
+        }
+
+        abstract Object find(int shift, int hash, Expr key);
+
+        /**
+         * The node with the key bound to the value; sets
+         * {@code addedLeaf[0]} when the key is new.
+         */
+        abstract INode assoc(AtomicReference<Thread> token, int shift,
+                             int hash, Expr key, Object val,
+                             boolean[] addedLeaf);
+
+        /**
+         * The node without the key, or {@code null} if nothing is left.
+         */
+        abstract INode without(AtomicReference<Thread> token, int shift,
+                               int hash, Expr key);
+    }
+
+    private static int hash(final Expr key) {
+        final int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bitpos(final int hash, final int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static Object[] removePair(final Object[] array, final int i) {
+        Object[] result = new Object[array.length - 2];
+        System.arraycopy(array, 0, result, 0, 2 * i);
+        System.arraycopy(array, 2 * (i + 1), result, 2 * i,
+                         result.length - 2 * i);
+        return result;
+    }
+
+    private static INode createNode(final AtomicReference<Thread> token,
+                                    final int shift,
+                                    final Expr key1, final Object val1,
+                                    final int key2hash,
+                                    final Expr key2, final Object val2) {
+        final int key1hash = hash(key1);
+        if (key1hash == key2hash) {
+            return new CollisionNode(token, key1hash,
+                                     new Object[] {key1, val1, key2, val2});
+        }
+        boolean[] addedLeaf = new boolean[1];
+        return BitmapNode.EMPTY
+            .assoc(token, shift, key1hash, key1, val1, addedLeaf)
+            .assoc(token, shift, key2hash, key2, val2, addedLeaf);
+    }
+
+    /**
+     * A node holding only the children whose bits are set in its bitmap.
+     */
+    private static final class BitmapNode extends INode {
+        static final BitmapNode EMPTY = new BitmapNode(null, 0, new Object[0]);
+        int bitmap;
+
+        BitmapNode(final AtomicReference<Thread> edit, final int bitmap,
+                   final Object[] array) {
+            super(edit, array);
+            this.bitmap = bitmap;
+        }
+
+        private int index(final int bit) {
+            return Integer.bitCount(this.bitmap & (bit - 1));
+        }
+
+        /**
+         * This node if the transient may change it, else a copy it may.
+         */
+        private BitmapNode ensureEditable(final AtomicReference<Thread> token) {
+            if (isEditable(token)) {
+                return this;
+            }
+            return new BitmapNode(token, this.bitmap, this.array.clone());
+        }
+
+        private BitmapNode editAndSet(final AtomicReference<Thread> token,
+                                      final int i, final Object a) {
+            BitmapNode result = ensureEditable(token);
+            result.array[i] = a;
+            return result;
+        }
+
+        @Override
+        Object find(final int shift, final int hash, final Expr key) {
+            final int bit = bitpos(hash, shift);
+            if (0 == (this.bitmap & bit)) {
+                return NOT_FOUND;
+            }
+            final int idx = index(bit);
+            final Object k = this.array[2 * idx];
+            final Object v = this.array[2 * idx + 1];
+            if (null == k) {
+                return ((INode) v).find(shift + BITS, hash, key);
+            }
+            return (key.equals(k) ? v : NOT_FOUND);
+        }
+
+        @Override
+        INode assoc(final AtomicReference<Thread> token, final int shift,
+                    final int hash, final Expr key, final Object val,
+                    final boolean[] addedLeaf) {
+            final int bit = bitpos(hash, shift);
+            final int idx = index(bit);
+            if (0 != (this.bitmap & bit)) {
+                final Object k = this.array[2 * idx];
+                final Object v = this.array[2 * idx + 1];
+                if (null == k) {
+                    final INode n = ((INode) v).assoc(token, shift + BITS,
+                                                      hash, key, val,
+                                                      addedLeaf);
+                    if (n == v) {
+                        return this;
+                    }
+                    return editAndSet(token, 2 * idx + 1, n);
+                }
+                if (key.equals(k)) {
+                    if (val == v) {
+                        return this;
+                    }
+                    return editAndSet(token, 2 * idx + 1, val);
+                }
+                addedLeaf[0] = true;
+                BitmapNode result = editAndSet(token, 2 * idx, null);
+                result.array[2 * idx + 1] = createNode(token, shift + BITS,
+                                                       (Expr) k, v,
+                                                       hash, key, val);
+                return result;
+            }
+            final int n = Integer.bitCount(this.bitmap);
+            Object[] newArray = new Object[2 * (n + 1)];
+            System.arraycopy(this.array, 0, newArray, 0, 2 * idx);
+            newArray[2 * idx] = key;
+            newArray[2 * idx + 1] = val;
+            System.arraycopy(this.array, 2 * idx, newArray, 2 * (idx + 1),
+                             2 * (n - idx));
+            addedLeaf[0] = true;
+            if (isEditable(token)) {
+                this.array = newArray;
+                this.bitmap |= bit;
+                return this;
+            }
+            return new BitmapNode(token, this.bitmap | bit, newArray);
+        }
+
+        @Override
+        INode without(final AtomicReference<Thread> token, final int shift,
+                      final int hash, final Expr key) {
+            final int bit = bitpos(hash, shift);
+            if (0 == (this.bitmap & bit)) {
+                return this;
+            }
+            final int idx = index(bit);
+            final Object k = this.array[2 * idx];
+            final Object v = this.array[2 * idx + 1];
+            if (null == k) {
+                final INode n = ((INode) v).without(token, shift + BITS, hash,
+                                                    key);
+                if (n == v) {
+                    return this;
+                }
+                if (null != n) {
+                    return editAndSet(token, 2 * idx + 1, n);
+                }
+            } else if (!key.equals(k)) {
+                return this;
+            }
+            if (this.bitmap == bit) {
+                return null;
+            }
+            if (isEditable(token)) {
+                this.array = removePair(this.array, idx);
+                this.bitmap ^= bit;
+                return this;
+            }
+            return new BitmapNode(token, this.bitmap ^ bit,
+                                  removePair(this.array, idx));
+        }
+    }
+
+    /**
+     * The keys whose hashes agree on all 32 bits.
+     */
+    private static final class CollisionNode extends INode {
+        final int hash;
+
+        CollisionNode(final AtomicReference<Thread> edit, final int hash,
+                      final Object[] array) {
+            super(edit, array);
+            this.hash = hash;
+        }
+
+        private int findIndex(final Expr key) {
+            for (int i = 0; i < this.array.length; i += 2) {
+                if (key.equals(this.array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Replace the array, in place if the transient may change this
+         * node.
+         */
+        private CollisionNode withArray(final AtomicReference<Thread> token,
+                                        final Object[] newArray) {
+            if (isEditable(token)) {
+                this.array = newArray;
+                return this;
+            }
+            return new CollisionNode(token, this.hash, newArray);
+        }
+
+        @Override
+        Object find(final int shift, final int hash, final Expr key) {
+            final int idx = findIndex(key);
+            return (idx < 0 ? NOT_FOUND : this.array[idx + 1]);
+        }
+
+        @Override
+        INode assoc(final AtomicReference<Thread> token, final int shift,
+                    final int hash, final Expr key, final Object val,
+                    final boolean[] addedLeaf) {
+            if (hash == this.hash) {
+                final int idx = findIndex(key);
+                if (-1 != idx) {
+                    if (val == this.array[idx + 1]) {
+                        return this;
+                    }
+                    if (isEditable(token)) {
+                        this.array[idx + 1] = val;
+                        return this;
+                    }
+                    Object[] newArray = this.array.clone();
+                    newArray[idx + 1] = val;
+                    return new CollisionNode(token, hash, newArray);
+                }
+                Object[] newArray = Arrays.copyOf(this.array,
+                                                  this.array.length + 2);
+                newArray[this.array.length] = key;
+                newArray[this.array.length + 1] = val;
+                addedLeaf[0] = true;
+                return withArray(token, newArray);
+            }
+            // nest this node in a bitmap node, and add the key there
+            return new BitmapNode(token, bitpos(this.hash, shift),
+                                  new Object[] {null, this})
+                .assoc(token, shift, hash, key, val, addedLeaf);
+        }
+
+        @Override
+        INode without(final AtomicReference<Thread> token, final int shift,
+                      final int hash, final Expr key) {
+            final int idx = findIndex(key);
+            if (-1 == idx) {
+                return this;
+            }
+            if (2 == this.array.length) {
+                return null;
+            }
+            return withArray(token, removePair(this.array, idx / 2));
+        }
+    }
+
+    /**
+     * Walks the trie depth first, one pair at a time.
+     */
+    private static final class EntryIterator {
+        private final Deque<Object[]> arrays = new ArrayDeque<>();
+        private final Deque<Integer> positions = new ArrayDeque<>();
+        private Object[] array;
+        private int i = 0;
+        Expr key;
+        Expr val;
+
+        EntryIterator(final INode root) {
+            this.array = (null == root ? new Object[0] : root.array);
+        }
+
+        /**
+         * Move to the next pair, returning false when there is none.
+         */
+        boolean advance() {
+            while (true) {
+                if (this.i < this.array.length) {
+                    final Object k = this.array[this.i];
+                    final Object v = this.array[this.i + 1];
+                    this.i += 2;
+                    if (null == k) {
+                        this.arrays.push(this.array);
+                        this.positions.push(this.i);
+                        this.array = ((INode) v).array;
+                        this.i = 0;
+                        continue;
+                    }
+                    this.key = (Expr) k;
+                    this.val = (Expr) v;
+                    return true;
+                }
+                if (this.arrays.isEmpty()) {
+                    return false;
+                }
+                this.array = this.arrays.pop();
+                this.i = this.positions.pop();
+            }
+        }
+    }
+
+    private INode root;
+    private int count;
+    private int hash = 0;
     private final Map meta;
     private final boolean isImmutable;
+
     public Map() {
-        this(new HashMap<Expr, Expr>(), null, false);
+        this(null, 0, null, false);
     }
 
     public Map(final Map other) {
-        this(other.table, null, other.isImmutable);
+        this(other.root, other.count, null, other.isImmutable);
     }
 
     public Map(final Map other, final Map meta) {
-        this(other.table, meta, other.isImmutable);
+        this(other.root, other.count, meta, other.isImmutable);
     }
 
     public Map(final java.util.Map<Expr, Expr> other) {
@@ -31,35 +393,43 @@ public class Map extends Expr implements Iterable<Expr>, IObj<Map>, ICountable {
     public Map(final java.util.Map<Expr, Expr> other,
                final Map meta,
                final boolean immutable) {
-        this.table = new HashMap<Expr, Expr>(other);
-        this.meta = (null == meta ? null : meta.immutableCopy());
-        this.isImmutable = immutable;
+        this(null, 0, (null == meta ? null : meta.immutableCopy()), immutable);
+        for (java.util.Map.Entry<Expr, Expr> e : other.entrySet()) {
+            put(e.getKey(), e.getValue());
+        }
     }
 
     public Map(final Expr key, final Expr val) {
-        this.table = new HashMap<Expr, Expr>();
-        this.meta = null;
-        this.isImmutable = false;
-        this.table.put(key, val);
+        this();
+        this.put(key, val);
+    }
+
+    private Map(final INode root,
+                final int count,
+                final Map meta,
+                final boolean immutable) {
+        this.root = root;
+        this.count = count;
+        this.meta = meta;
+        this.isImmutable = immutable;
     }
 
+    /**
+     * A map with the same entries which refuses in-place updates; it
+     * shares the trie, so this takes constant time.
+     */
     public Map immutableCopy() {
-        HashMap<Expr, Expr> copy = new HashMap<>();
-        for (Expr k : this.table.keySet()) {
-            copy.put(k.clone(), this.table.get(k).clone());
-        }
-        return new Map(java.util.Map.copyOf(copy), null, true);
+        return new Map(this.root, this.count, null, true);
     }
 
+    /**
+     * A map with the same entries and metadata, sharing the trie.
+     */
     @Override
     public Map clone() {
-        HashMap<Expr, Expr> copy = new HashMap<>();
-        for (Expr k : this.table.keySet()) {
-            copy.put(k.clone(), this.table.get(k).clone());
-        }
-        return new Map(copy, this.meta.immutableCopy());
+        return new Map(this.root, this.count, this.meta, false);
     }
-    
+
     @Override
     public Map meta() {
         return this.meta;
@@ -71,80 +441,446 @@ public class Map extends Expr implements Iterable<Expr>, IObj<Map>, ICountable {
         return new Map(this, newMeta);
     }
 
+    private Object find(final Expr k) {
+        if (null == this.root) {
+            return NOT_FOUND;
+        }
+        return this.root.find(0, hash(k), k);
+    }
+
     public Expr get(final Expr k) {
-        return this.table.get(k);
+        final Object v = find(k);
+        return (NOT_FOUND == v ? null : (Expr) v);
     }
 
     public Expr get(final Expr k, final Expr defaultValue) {
-        return this.table.getOrDefault(k, defaultValue);
+        final Object v = find(k);
+        return (NOT_FOUND == v ? defaultValue : (Expr) v);
+    }
+
+    /**
+     * A new map with the key bound to the value, leaving this one alone.
+     */
+    public Map associate(final Expr k, final Expr v) {
+        boolean[] addedLeaf = new boolean[1];
+        final INode start = (null == this.root ? BitmapNode.EMPTY : this.root);
+        final INode newRoot = start.assoc(null, 0, hash(k), k, v,
+                                          addedLeaf);
+        if (newRoot == this.root) {
+            return this;
+        }
+        return new Map(newRoot, this.count + (addedLeaf[0] ? 1 : 0),
+                       this.meta, false);
+    }
+
+    /**
+     * A new map without the key, leaving this one alone.
+     */
+    public Map dissociate(final Expr k) {
+        if (null == this.root) {
+            return this;
+        }
+        final INode newRoot = this.root.without(null, 0, hash(k), k);
+        if (newRoot == this.root) {
+            return this;
+        }
+        return new Map(newRoot, this.count - 1, this.meta, false);
+    }
+
+    private void put(final Expr k, final Expr v) {
+        final Map result = associate(k, v);
+        this.root = result.root;
+        this.count = result.count;
+        this.hash = 0;
+    }
+
+    /**
+     * A transient map with the same entries, in constant time.
+     */
+    public TransientMap asTransient() {
+        return new TransientMap(this);
+    }
+
+    /**
+     * A map being built in place by its owner thread.
+     */
+    public static final class TransientMap extends ATransient {
+        private INode root;
+        private int count;
+        private final boolean[] addedLeaf = new boolean[1];
+
+        TransientMap(final Map m) {
+            this.root = m.root;
+            this.count = m.count;
+        }
+
+        @Override
+        public int size() {
+            ensureEditable();
+            return this.count;
+        }
+
+        public Expr get(final Expr k) {
+            ensureEditable();
+            final Object v = (null == this.root
+                              ? NOT_FOUND
+                              : this.root.find(0, hash(k), k));
+            return (NOT_FOUND == v ? null : (Expr) v);
+        }
+
+        /**
+         * Bind the key to the value in place.
+         */
+        public TransientMap assoc(final Expr k, final Expr v) {
+            ensureEditable();
+            final INode start = (null == this.root
+                                 ? BitmapNode.EMPTY
+                                 : this.root);
+            this.addedLeaf[0] = false;
+            this.root = start.assoc(this.edit, 0, hash(k), k, v,
+                                    this.addedLeaf);
+            if (this.addedLeaf[0]) {
+                this.count++;
+            }
+            return this;
+        }
+
+        /**
+         * Remove the key in place.
+         */
+        public TransientMap dissoc(final Expr k) {
+            ensureEditable();
+            final int h = hash(k);
+            if (null == this.root || NOT_FOUND == this.root.find(0, h, k)) {
+                return this;
+            }
+            this.root = this.root.without(this.edit, 0, h, k);
+            this.count--;
+            return this;
+        }
+
+        /**
+         * Add a {@code [k v]} pair in place.
+         */
+        @Override
+        public TransientMap conj(final Expr e) {
+            if (!e.isVector() || 2 != ((Vector) e).size()) {
+                throw new IllegalArgumentException("conj! on a map requires "
+                                                   + "[k v] pairs");
+            }
+            return assoc(((Vector) e).get(0), ((Vector) e).get(1));
+        }
+
+        @Override
+        public Map persistent() {
+            ensureEditable();
+            this.edit.set(null);
+            return new Map(this.root, this.count, null, false);
+        }
+
+        @Override
+        public String type() {
+            return "TransientMap";
+        }
     }
 
     public void assoc(final Expr k, final Expr v) {
         if (this.isImmutable) {
             throw new RuntimeException("Trying to assoc an immutable map");
         }
-        this.table.put(k, v);
+        put(k, v);
     }
 
     public void dissoc(final Expr k) {
-        this.table.remove(k);
+        final Map result = dissociate(k);
+        this.root = result.root;
+        this.count = result.count;
+        this.hash = 0;
     }
 
+    /**
+     * The keys, as a list sharing the trie of this map.
+     */
     public Seq keys() {
-        Seq result = new Seq();
-        for (Expr k : this.table.keySet()) {
-            result.conj(k);
-        }
-        return result;
+        return NodeSeq.create(NodeSeq.KEYS, this.root, this.count);
     }
+
+    /**
+     * The values, as a list sharing the trie of this map.
+     */
     public Seq values() {
-        Seq result = new Seq();
-        for (Expr v : this.table.values()) {
-            result.conj(v);
+        return NodeSeq.create(NodeSeq.VALUES, this.root, this.count);
+    }
+
+    /**
+     * A list walking the pairs of a trie in place: the pair at index
+     * {@code i} of the array, or else the rest of the list {@code s}
+     * walking a child node, before the pairs after it.
+     */
+    private static final class NodeSeq extends ASeq {
+        static final int ENTRIES = 0;
+        static final int KEYS = 1;
+        static final int VALUES = 2;
+        private final int kind;
+        private final Object[] array;
+        private final int i;
+        private final Seq s;
+        /** The number of pairs left, or -1 within a child node. */
+        private final int count;
+
+        private NodeSeq(final int kind, final Object[] array, final int i,
+                        final Seq s, final int count, final Map meta) {
+            super(meta);
+            this.kind = kind;
+            this.array = array;
+            this.i = i;
+            this.s = s;
+            this.count = count;
+        }
+
+        static Seq create(final int kind, final INode root, final int count) {
+            final Seq result = (null == root
+                                ? null
+                                : create(kind, root.array, 0, null, count));
+            return (null == result ? new Seq() : result);
+        }
+
+        /**
+         * The list from the pair at index {@code i} (or the child list
+         * {@code s}) on, or null if there are no pairs left.
+         */
+        private static NodeSeq create(final int kind, final Object[] array,
+                                      final int i, final Seq s,
+                                      final int count) {
+            if (null != s) {
+                return new NodeSeq(kind, array, i, s, count, null);
+            }
+            for (int j = i; j < array.length; j += 2) {
+                if (null != array[j]) {
+                    return new NodeSeq(kind, array, j, null, count, null);
+                }
+                final Seq child = create(kind, ((INode) array[j + 1]).array,
+                                         0, null, -1);
+                if (null != child) {
+                    return new NodeSeq(kind, array, j + 2, child, count, null);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Seq withMeta(final Map newMeta) {
+            if ((null != this.meta()) && (this.meta().equals(newMeta))) {
+                return this;
+            }
+            return new NodeSeq(this.kind, this.array, this.i, this.s,
+                               this.count, newMeta);
+        }
+
+        @Override
+        public Expr first() {
+            if (null != this.s) {
+                return this.s.first();
+            }
+            final Expr k = (Expr) this.array[this.i];
+            final Expr v = (Expr) this.array[this.i + 1];
+            switch (this.kind) {
+            case KEYS:   return k;
+            case VALUES: return v;
+            default:     return Vector.pair(k, v);
+            }
+        }
+
+        @Override
+        public Seq rest() {
+            final int left = (0 > this.count ? -1 : this.count - 1);
+            NodeSeq next;
+            if (null != this.s) {
+                final Seq more = this.s.rest();
+                next = create(this.kind, this.array, this.i,
+                              (more.isEmpty() ? null : more), left);
+            } else {
+                next = create(this.kind, this.array, this.i + 2, null, left);
+            }
+            return (null == next ? new Seq() : next);
+        }
+
+        @Override
+        boolean counted() {
+            return 0 <= this.count;
+        }
+
+        @Override
+        public int size() {
+            return (0 <= this.count ? this.count : super.size());
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+    }
+
+    /**
+     * Reduce the {@code [key value]} entries, walking the trie in place.
+     */
+    @Override
+    public Expr reduce(final IFn f, final Expr init) throws Throwable {
+        final EntryIterator entries = new EntryIterator(this.root);
+        Expr result = init;
+        while (entries.advance()) {
+            result = f.invoke2(result, Vector.pair(entries.key, entries.val));
+            if (result instanceof Reduced) {
+                return ((Reduced) result).deref();
+            }
         }
         return result;
     }
 
+    /**
+     * Fold the entries in parallel, forking a task for each child node
+     * of the trie until the entries under a node, estimated from how
+     * evenly hashing spreads them, number at most {@code n}.
+     */
+    @Override
+    public Expr fold(final int n, final IFn combine, final IFn f)
+            throws Throwable {
+        final INode top = this.root;
+        if (this.count <= n || null == top) {
+            return this.reduce(f, combine.invoke0());
+        }
+        return FoldTask.run(new FoldNode(top, this.count, n, combine, f));
+    }
+
+    private static final class FoldNode extends FoldTask {
+        private static final long serialVersionUID = 1L;
+        private final INode node;
+        private final long estimate;
+        private final int n;
+        private final IFn combine;
+        private final IFn f;
+
+        FoldNode(final INode node, final long estimate, final int n,
+                 final IFn combine, final IFn f) {
+            this.node = node;
+            this.estimate = estimate;
+            this.n = n;
+            this.combine = combine;
+            this.f = f;
+        }
+
+        @Override
+        Expr fold() throws Throwable {
+            Expr result = this.combine.invoke0();
+            if (this.estimate <= this.n) {
+                final EntryIterator entries = new EntryIterator(this.node);
+                while (entries.advance()) {
+                    result = this.f.invoke2(result,
+                                            Vector.pair(entries.key,
+                                                        entries.val));
+                    if (result instanceof Reduced) {
+                        return ((Reduced) result).deref();
+                    }
+                }
+                return result;
+            }
+            final Object[] array = this.node.array;
+            final long share = this.estimate / Math.max(1, array.length / 2);
+            final List<FoldNode> children = new ArrayList<>();
+            boolean isReduced = false;
+            for (int i = 0; i < array.length; i += 2) {
+                if (null == array[i]) {
+                    final FoldNode child = new FoldNode((INode) array[i + 1],
+                                                        share, this.n,
+                                                        this.combine, this.f);
+                    child.fork();
+                    children.add(child);
+                } else if (!isReduced) {
+                    result = this.f.invoke2(result,
+                                            Vector.pair((Expr) array[i],
+                                                        (Expr) array[i + 1]));
+                    if (result instanceof Reduced) {
+                        result = ((Reduced) result).deref();
+                        isReduced = true;
+                    }
+                }
+            }
+            for (FoldNode child : children) {
+                result = this.combine.invoke2(result, child.join());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Iterate over the entries, as {@code [key value]} vectors.
+     */
     @Override
     public Iterator<Expr> iterator() {
-        return this.toSeq().iterator();
+        final EntryIterator entries = new EntryIterator(this.root);
+        return new Iterator<Expr>() {
+            private boolean isAhead = false;
+            private boolean hasMore = false;
+
+            @Override
+            public boolean hasNext() {
+                if (!this.isAhead) {
+                    this.hasMore = entries.advance();
+                    this.isAhead = true;
+                }
+                return this.hasMore;
+            }
+
+            @Override
+            public Expr next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                this.isAhead = false;
+                return Vector.pair(entries.key, entries.val);
+            }
+        };
     }
 
     public boolean contains(final Expr k) {
-        return this.table.containsKey(k);
+        return NOT_FOUND != find(k);
     }
 
     public boolean isEmpty() {
-        return this.table.isEmpty();
+        return 0 == this.count;
     }
 
     @Override
     public int size() {
-        return this.table.size();
+        return this.count;
     }
 
     public Seq toSeq() {
         Seq result = new Seq();
-        for (java.util.Map.Entry<Expr, Expr> e : this.table.entrySet()) {
-            Vector kv = new Vector();
-            kv.conj(e.getKey());
-            kv.conj(e.getValue());
+        for (Expr kv : this) {
             result.conj(kv);
         }
         return result;
     }
 
+    /**
+     * The entries, as a list of {@code [key value]} vectors sharing the
+     * trie of this map, or nil if there are none.
+     */
     public Expr seq() {
         if (this.isEmpty()) {
             return Literal.NIL;
         }
-        else return this.toSeq();
+        return NodeSeq.create(NodeSeq.ENTRIES, this.root, this.count);
     }
 
     public Map merge(final Map newEntries) {
-        HashMap<Expr, Expr> m = new HashMap<Expr, Expr>(this.table);
-        m.putAll(newEntries.table);
-        return new Map(m);
+        Map result = new Map(this.root, this.count, null, false);
+        EntryIterator it = new EntryIterator(newEntries.root);
+        while (it.advance()) {
+            result.put(it.key, it.val);
+        }
+        return result;
     }
 
     public <T> T accept(final Visitor<T> visitor) {
@@ -153,10 +889,11 @@ public class Map extends Expr implements Iterable<Expr>, IObj<Map>, ICountable {
 
     public String toString() {
         StringBuffer buf = new StringBuffer("{");
-        for (Expr k : this.keys()) {
-            buf.append(k.toString());
+        EntryIterator it = new EntryIterator(this.root);
+        while (it.advance()) {
+            buf.append(it.key.toString());
             buf.append(" ");
-            buf.append(table.get(k).toString());
+            buf.append(it.val.toString());
             buf.append(" ");
         }
         if (!this.isEmpty()) {
@@ -166,9 +903,21 @@ public class Map extends Expr implements Iterable<Expr>, IObj<Map>, ICountable {
         return buf.toString();
     }
 
+    /**
+     * The hash code, computed as for a {@code java.util.Map} and cached.
+     */
     @Override
     public int hashCode() {
-        return this.table.hashCode();
+        int h = this.hash;
+        if (0 == h) {
+            EntryIterator it = new EntryIterator(this.root);
+            while (it.advance()) {
+                h += it.key.hashCode()
+                    ^ (null == it.val ? 0 : it.val.hashCode());
+            }
+            this.hash = h;
+        }
+        return h;
     }
 
     @Override
@@ -186,8 +935,13 @@ public class Map extends Expr implements Iterable<Expr>, IObj<Map>, ICountable {
         if (this.size() != rhs.size()) {
             return false;
         }
-        for (Expr k : this.keys()) {
-            if (!rhs.contains(k) || !this.get(k).equals(rhs.get(k))) {
+        EntryIterator it = new EntryIterator(this.root);
+        while (it.advance()) {
+            final Object v = rhs.find(it.key);
+            if (NOT_FOUND == v) {
+                return false;
+            }
+            if (null == it.val ? null != v : !it.val.equals(v)) {
                 return false;
             }
         }
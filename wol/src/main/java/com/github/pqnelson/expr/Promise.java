@@ -0,0 +1,53 @@
+package com.github.pqnelson.expr;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A value delivered once, by any thread, to readers who wait for it.
+ */
+public final class Promise extends ADeref {
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private volatile Expr value = null;
+
+    /**
+     * Deliver the value, unless one was already delivered.
+     *
+     * @return Whether this call delivered the value.
+     */
+    public boolean deliver(final Expr v) {
+        synchronized (this.latch) {
+            if (0 == this.latch.getCount()) {
+                return false;
+            }
+            this.value = v;
+            this.latch.countDown();
+            return true;
+        }
+    }
+
+    @Override
+    public Expr deref() throws InterruptedException {
+        this.latch.await();
+        return this.value;
+    }
+
+    @Override
+    public Expr deref(final long timeoutMs, final Expr timeoutValue)
+            throws InterruptedException {
+        if (this.latch.await(timeoutMs, TimeUnit.MILLISECONDS)) {
+            return this.value;
+        }
+        return timeoutValue;
+    }
+
+    @Override
+    public boolean isRealized() {
+        return 0 == this.latch.getCount();
+    }
+
+    @Override
+    public String type() {
+        return "Promise";
+    }
+}
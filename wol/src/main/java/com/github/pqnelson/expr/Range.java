@@ -0,0 +1,180 @@
+package com.github.pqnelson.expr;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The integers from a start, stepping by a fixed step, a given number
+ * of times or without end.
+ *
+ * <p>Nothing but the start, the step and the count is held, so a range
+ * far larger than the heap takes no more room than a short one.
+ * Counting a bounded range, indexing and dropping elements are constant
+ * time, and walking or reducing one makes no cells.</p>
+ */
+public final class Range extends ASeq {
+    private final long start;
+    private final long step;
+    /**
+     * The number of elements, or -1 if there is no end.
+     */
+    private final long count;
+
+    private Range(final long start, final long step, final long count,
+                  final Map meta) {
+        super(meta);
+        this.start = start;
+        this.step = step;
+        this.count = count;
+    }
+
+    /**
+     * The integers from {@code start}, stepping by {@code step}, up to
+     * but excluding {@code end}.
+     */
+    public static Seq of(final long start, final long end, final long step) {
+        if (0 < step ? start >= end : start <= end) {
+            return new Seq();
+        }
+        if (0 == step) {
+            return from(start, step);
+        }
+        // the distance, and the magnitude of the step, fit unsigned
+        final long distance = (0 < step ? end - start : start - end);
+        final long stride = (0 < step ? step : -step);
+        return new Range(start, step,
+                         Long.divideUnsigned(distance - 1, stride) + 1, null);
+    }
+
+    /**
+     * The integers from {@code start}, stepping by {@code step}, without
+     * end.
+     */
+    public static Seq from(final long start, final long step) {
+        return new Range(start, step, -1L, null);
+    }
+
+    @Override
+    public Seq withMeta(final Map newMeta) {
+        if ((null != this.meta()) && (this.meta().equals(newMeta))) {
+            return this;
+        }
+        return new Range(this.start, this.step, this.count, newMeta);
+    }
+
+    @Override
+    public Expr first() {
+        return Int.valueOf(this.start);
+    }
+
+    @Override
+    public Seq rest() {
+        return this.drop(1);
+    }
+
+    @Override
+    Seq drop(final int n) {
+        if (0 >= n) {
+            return this;
+        }
+        if (0 <= this.count && n >= this.count) {
+            return new Seq();
+        }
+        return new Range(this.start + n * this.step, this.step,
+                         (0 > this.count ? -1L : this.count - n), null);
+    }
+
+    /**
+     * Counted only if the count fits in an int.
+     */
+    @Override
+    boolean counted() {
+        return 0 <= this.count && this.count <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * The count, computed rather than walked for a bounded range.
+     *
+     * @throws ArithmeticException if there are more than fit in an int.
+     */
+    @Override
+    public int size() {
+        if (0 > this.count) {
+            return super.size();
+        }
+        return Math.toIntExact(this.count);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+
+    @Override
+    public Expr get(final int i) {
+        if (i < 0 || (0 <= this.count && i >= this.count)) {
+            throw new IndexOutOfBoundsException("Index " + i
+                                                + " out of bounds");
+        }
+        return Int.valueOf(this.start + i * this.step);
+    }
+
+    @Override
+    public Expr get(final int i, final Expr defaultValue) {
+        if (i < 0 || (0 <= this.count && i >= this.count)) {
+            return defaultValue;
+        }
+        return Int.valueOf(this.start + i * this.step);
+    }
+
+    /**
+     * Reduce with a loop over a {@code long}, making no cells at all.
+     */
+    @Override
+    public Expr reduce(final IFn f, final Expr init) throws Throwable {
+        Expr result = init;
+        long x = this.start;
+        // an unbounded range stops only when the result is reduced
+        for (long left = this.count; 0 != left; x += this.step) {
+            result = f.invoke2(result, Int.valueOf(x));
+            if (result instanceof Reduced) {
+                return ((Reduced) result).deref();
+            }
+            if (0 < left) {
+                left--;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<Expr> iterator() {
+        return new Iterator<Expr>() {
+            private long next = Range.this.start;
+            private long left = Range.this.count;
+
+            @Override
+            public boolean hasNext() {
+                return 0 != this.left;
+            }
+
+            @Override
+            public Expr next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final long result = this.next;
+                this.next += Range.this.step;
+                if (0 < this.left) {
+                    this.left--;
+                }
+                return Int.valueOf(result);
+            }
+        };
+    }
+
+    @Override
+    public String type() {
+        return "Range";
+    }
+}
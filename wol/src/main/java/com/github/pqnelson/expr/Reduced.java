@@ -0,0 +1,42 @@
+package com.github.pqnelson.expr;
+
+/**
+ * The result of a reduction which should stop early, such as after
+ * {@code take} has seen enough elements.
+ *
+ * <p>Like {@link TailCall}, this never escapes: whoever is running the
+ * reduction unwraps it as soon as a reducing function returns it.</p>
+ */
+public final class Reduced extends Expr {
+    private final Expr value;
+
+    public Reduced(final Expr value) {
+        this.value = value;
+    }
+
+    public Expr deref() {
+        return this.value;
+    }
+
+    /**
+     * Wrap the value, unless it is already wrapped.
+     */
+    public static Expr ensure(final Expr value) {
+        return (value instanceof Reduced ? value : new Reduced(value));
+    }
+
+    @Override
+    public <T> T accept(final Visitor<T> visitor) {
+        throw new UnsupportedOperationException("Reduced escaped its reduction");
+    }
+
+    @Override
+    public Expr clone() {
+        return this;
+    }
+
+    @Override
+    public String type() {
+        return "Reduced";
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.pqnelson.expr;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A reference changed only inside a {@link Transaction}.
+ *
+ * <p>A ref keeps a short history of its committed values, each stamped
+ * with the point on the transaction clock it was committed at. A
+ * transaction reads the newest value no later than the point it
+ * started at, so it sees one consistent snapshot of every ref however
+ * long it runs, while other transactions commit. When the history no
+ * longer reaches back that far, the transaction is retried and the
+ * history is allowed to grow.</p>
+ */
+public final class Ref extends ARef {
+    private static final AtomicLong IDS = new AtomicLong();
+    static final int MAX_HISTORY = 10;
+
+    /**
+     * A committed value, and those before it.
+     */
+    static final class TVal {
+        final Expr value;
+        final long point;
+        volatile TVal prior;
+
+        TVal(final Expr value, final long point, final TVal prior) {
+            this.value = value;
+            this.point = point;
+            this.prior = prior;
+        }
+    }
+
+    /** The order refs are locked in at commit, so commits never deadlock. */
+    final long id = IDS.incrementAndGet();
+    final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    volatile TVal tvals;
+    /** How many times a transaction found the history too short. */
+    final AtomicLong faults = new AtomicLong();
+    private volatile int historyLength = 0;
+
+    public Ref(final Expr value) {
+        this.tvals = new TVal(value, 0, null);
+    }
+
+    /**
+     * The newest committed value.
+     */
+    @Override
+    Expr current() {
+        return this.tvals.value;
+    }
+
+    /**
+     * The value in the running transaction, if any, or else the newest
+     * committed value.
+     */
+    @Override
+    public Expr deref() {
+        final Transaction t = Transaction.current();
+        return (null == t ? this.current() : t.get(this));
+    }
+
+    @Override
+    public Expr deref(final long timeoutMs, final Expr timeoutValue) {
+        return this.deref();
+    }
+
+    /**
+     * Install a committed value, with the write lock held, keeping as
+     * much history as transactions have lately needed.
+     */
+    void commit(final Expr value, final long point) {
+        if (0 < this.faults.get() && this.historyLength < MAX_HISTORY) {
+            this.historyLength++;
+            this.faults.set(0);
+        }
+        this.tvals = new TVal(value, point, this.tvals);
+        TVal t = this.tvals;
+        for (int i = 0; i < this.historyLength && null != t; i++) {
+            t = t.prior;
+        }
+        if (null != t) {
+            t.prior = null;
+        }
+    }
+
+    @Override
+    public String type() {
+        return "Ref";
+    }
+}
@@ -7,42 +7,80 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
-
-public class Seq extends Expr implements Iterable<Expr>, IObj<Seq>, ICountable {
-    final List<Expr> contents;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A list.
+ *
+ * <p>A {@code Seq} itself is backed by an array, which is what the
+ * reader produces and what argument lists are built into, one {@link
+ * #conj(Expr)} at a time. {@link #cons(Expr)} never copies it: it
+ * returns a {@link Cons} cell pointing at this list. Taking the {@link
+ * #rest()} of either kind of list is constant time too; an array-backed
+ * list hands out a view of the same array, and whichever side of a view
+ * is later modified in place copies its elements first.</p>
+ */
+public class Seq extends Expr
+        implements Iterable<Expr>, IObj<Seq>, ICountable, IReduce {
+    private List<Expr> contents;
+    private int start;
+    private int end;
+    /**
+     * Whether the contents are seen by another list, so must be copied
+     * before being modified in place.
+     */
+    private boolean isShared = false;
     private Map meta = null;
 
     public Seq() {
         this(new ArrayList<>());
     }
     public Seq(final Collection<Expr> seqContents) {
-        this.contents = new ArrayList<Expr>(seqContents);
+        this(new ArrayList<Expr>(seqContents));
     }
     public Seq(final List<Expr> seqContents) {
-        this.contents = seqContents;
+        this(seqContents, null);
     }
     public Seq(final List<Expr> seqContents, final Map metadata) {
-        this.contents = seqContents;
-        this.meta = metadata;
+        this(seqContents, 0, seqContents.size(), metadata);
     }
     public Seq(final Seq seq) {
-        this.contents = new ArrayList<>(seq.contents);
+        this(seq.toList());
     }
     public Seq(final Seq seq, final Map metadata) {
-        this.contents = new ArrayList<>(seq.contents);
+        this(seq.toList(), metadata);
+    }
+
+    Seq(final List<Expr> seqContents,
+        final int start,
+        final int end,
+        final Map metadata) {
+        this.contents = seqContents;
+        this.start = start;
+        this.end = end;
         this.meta = metadata;
     }
 
     @Override
     public Seq clone() {
         ArrayList<Expr> copy = new ArrayList<>();
-        for (Expr item : this.contents) {
+        for (Expr item : this) {
             copy.add(item.clone());
         }
-        return new Seq(copy, this.meta.immutableCopy());
+        return new Seq(copy, (null == this.meta
+                              ? null
+                              : this.meta.immutableCopy()));
+    }
+
+    public static Seq of(final Expr... items) {
+        ArrayList<Expr> contents = new ArrayList<>(items.length);
+        for (Expr e : items) {
+            contents.add(e);
+        }
+        return new Seq(contents);
     }
-    
+
     public static Seq singleton(final Expr e) {
         Seq coll = new Seq();
         coll.conj(e);
@@ -61,7 +99,7 @@ public class Seq extends Expr implements Iterable<Expr>, IObj<Seq>, ICountable {
     }
 
     public Expr rator() {
-        if (!this.contents.isEmpty()) {
+        if (!this.isEmpty()) {
             return this.get(0);
         } else {
             return Literal.NIL;
@@ -70,36 +108,110 @@ public class Seq extends Expr implements Iterable<Expr>, IObj<Seq>, ICountable {
 
     @Override
     public Iterator<Expr> iterator() {
-        return contents.iterator();
+        return this.contents.subList(this.start, this.end).iterator();
+    }
+
+    /**
+     * Reduce the elements in order; a list made of cells, lazy or
+     * chunked, is walked without making any cells of its own.
+     */
+    @Override
+    public Expr reduce(final IFn f, final Expr init) throws Throwable {
+        Expr result = init;
+        for (Expr e : this) {
+            result = f.invoke2(result, e);
+            if (result instanceof Reduced) {
+                return ((Reduced) result).deref();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Copy the elements into a fresh {@code java.util.List}.
+     */
+    public List<Expr> toList() {
+        ArrayList<Expr> result = new ArrayList<>();
+        for (Expr e : this) {
+            result.add(e);
+        }
+        return result;
+    }
+
+    Stream<Expr> stream() {
+        return StreamSupport.stream(this.spliterator(), false);
+    }
+
+    /**
+     * Make the contents ours alone, before modifying them in place.
+     */
+    private void own() {
+        if (this.isShared) {
+            this.contents = new ArrayList<>(this.contents.subList(this.start,
+                                                                  this.end));
+            this.start = 0;
+            this.end = this.contents.size();
+            this.isShared = false;
+        }
+    }
+
+    /**
+     * The list without its first element.
+     */
+    public Seq rest() {
+        return this.slice(1);
+    }
+
+    /**
+     * The list without its first {@code n} elements.
+     */
+    Seq drop(final int n) {
+        return this.slice(n);
+    }
+
+    /**
+     * Whether {@link #size()} is known without walking the list.
+     */
+    boolean counted() {
+        return true;
     }
 
     public Seq slice(final int i) {
         if (i >= this.size()) {
             return new Seq();
         }
-        return new Seq(this.contents.subList(i, this.size()));
+        return this.slice(i, this.size());
     }
     public Seq slice(final int start, final int end) {
         if (start >= this.size()) {
             return new Seq();
         }
-        return new Seq(this.contents.subList(start, end));
+        this.isShared = true;
+        Seq result = new Seq(this.contents, this.start + start,
+                             this.start + end, null);
+        result.isShared = true;
+        return result;
     }
 
     public Expr get(final int i) {
-        return this.contents.get(i);
+        if (i < 0 || i >= this.size()) {
+            throw new IndexOutOfBoundsException("Index " + i
+                                                + " out of bounds for length "
+                                                + this.size());
+        }
+        return this.contents.get(this.start + i);
     }
 
     public Expr get(final int i, final Expr defaultValue) {
-        if (this.contents.size() <= i) {
+        if (this.size() <= i) {
             return defaultValue;
         }
-        return this.contents.get(i);
+        return this.get(i);
     }
 
     @Override
     public int size() {
-        return this.contents.size();
+        return this.end - this.start;
     }
 
     public Expr last() {
@@ -107,38 +219,47 @@ public class Seq extends Expr implements Iterable<Expr>, IObj<Seq>, ICountable {
     }
 
     public void prepend(final Expr e) {
-        this.contents.add(0, e);
+        this.own();
+        this.contents.add(this.start, e);
+        this.end++;
     }
 
+    /**
+     * A list with the expression in front of this one, which is shared
+     * rather than copied.
+     */
     public Seq cons(final Expr e) {
-        Seq result = new Seq(this);
-        result.prepend(e);
-        return result;
+        return new Cons(e, this.slice(0));
     }
 
     public Seq butLast() {
         if (this.size() < 2) {
             return this;
         }
-        return new Seq(this.contents.subList(0, size() - 2));
+        return this.slice(0, size() - 2);
     }
 
     /**
      * Add an expression to the END of the list.
      */
     public void conj(final Expr e) {
+        if (this.end != this.contents.size()) {
+            this.isShared = true;
+        }
+        this.own();
         this.contents.add(e);
+        this.end++;
     }
 
     public Expr first() {
-        if (contents.isEmpty()) {
+        if (this.isEmpty()) {
             return null;
         }
-        return contents.get(0);
+        return this.get(0);
     }
 
     public boolean isEmpty() {
-        return this.contents.isEmpty();
+        return 0 == this.size();
     }
 
     @Override
@@ -151,27 +272,32 @@ public class Seq extends Expr implements Iterable<Expr>, IObj<Seq>, ICountable {
         if (this == obj) {
             return true;
         }
-        if (null == obj) {
-            return false;
-        }
-        if (obj.getClass() != this.getClass()) {
+        if (!(obj instanceof Seq)) {
             return false;
         }
         final Seq rhs = (Seq) obj;
-        if (this.size() != rhs.size()) {
+        if (this.counted() && rhs.counted() && this.size() != rhs.size()) {
             return false;
         }
-        for (int i = 0; i < this.size(); i++) {
-            if (!this.get(i).equals(rhs.get(i))) {
+        Iterator<Expr> it = rhs.iterator();
+        for (Expr e : this) {
+            if (!it.hasNext() || !e.equals(it.next())) {
                 return false;
             }
         }
-        return true;
+        return !it.hasNext();
     }
 
+    /**
+     * The hash code, computed as for a {@code java.util.List}.
+     */
     @Override
     public int hashCode() {
-        return this.contents.hashCode();
+        int h = 1;
+        for (Expr e : this) {
+            h = 31 * h + (null == e ? 0 : e.hashCode());
+        }
+        return h;
     }
 
     /**
@@ -182,7 +308,7 @@ public class Seq extends Expr implements Iterable<Expr>, IObj<Seq>, ICountable {
     }
 
     public Seq sort(final Comparator<Expr> c) {
-        ArrayList<Expr> sorted = new ArrayList<>(this.contents);
+        List<Expr> sorted = this.toList();
         Collections.sort(sorted, c);
         return new Seq(sorted);
     }
@@ -195,7 +321,8 @@ public class Seq extends Expr implements Iterable<Expr>, IObj<Seq>, ICountable {
     }
 
     public void destructiveSort(final Comparator<Expr> c) {
-        Collections.sort(this.contents, c);
+        this.own();
+        Collections.sort(this.contents.subList(this.start, this.end), c);
     }
 
     @Override
@@ -242,14 +369,17 @@ public class Seq extends Expr implements Iterable<Expr>, IObj<Seq>, ICountable {
     }
 
     public Vector vec() {
-        return new Vector(new ArrayList<>(this.contents));
+        return new Vector(this.toList());
     }
 
     public Seq filter(final Predicate<Expr> criteria) {
-        return new Seq(this.contents
-                       .stream()
-                       .filter(criteria)
-                       .collect(Collectors.<Expr>toList()));
+        Seq result = new Seq();
+        for (Expr e : this) {
+            if (criteria.test(e)) {
+                result.conj(e);
+            }
+        }
+        return result;
     }
 
     public Seq remove(final Predicate<Expr> criteria) {
@@ -257,16 +387,28 @@ public class Seq extends Expr implements Iterable<Expr>, IObj<Seq>, ICountable {
     }
 
     public Seq takeWhile(final Predicate<Expr> criteria) {
-        return new Seq(this.contents
-                       .stream()
-                       .takeWhile(criteria)
-                       .collect(Collectors.<Expr>toList()));
+        Seq result = new Seq();
+        for (Expr e : this) {
+            if (!criteria.test(e)) {
+                break;
+            }
+            result.conj(e);
+        }
+        return result;
     }
 
+    /**
+     * The list from the first element failing the criteria on, which
+     * shares this list rather than copying it.
+     */
     public Seq dropWhile(final Predicate<Expr> criteria) {
-        return new Seq(this.contents
-                       .stream()
-                       .dropWhile(criteria)
-                       .collect(Collectors.<Expr>toList()));
+        int n = 0;
+        for (Expr e : this) {
+            if (!criteria.test(e)) {
+                break;
+            }
+            n++;
+        }
+        return this.slice(n);
     }
 }
@@ -48,15 +48,15 @@ public class Str extends Literal {
         return new Str(this.value().substring(start, end));
     }
 
+    /**
+     * The characters as a list of one character strings, made as they
+     * are looked at, or nil for the empty string.
+     */
     public Expr seq() {
-        if (this.value().equals("")) {
+        if (this.value().isEmpty()) {
             return Literal.NIL;
         }
-        Seq letters = new Seq();
-        for (int i = 0; i < this.value().length(); i++) {
-            letters.conj(this.substring(i, i + 1));
-        }
-        return letters;
+        return new StrSeq(this.value(), 0);
     }
 
     @Override
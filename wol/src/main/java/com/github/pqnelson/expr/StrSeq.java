@@ -0,0 +1,82 @@
+package com.github.pqnelson.expr;
+
+/**
+ * The characters of a string from some index on, as a list of one
+ * character strings, made one at a time as they are looked at.
+ *
+ * <p>Taking the {@link #first()}, the {@link #rest()}, counting,
+ * indexing and dropping characters are all constant time.</p>
+ */
+public final class StrSeq extends ASeq {
+    private final String s;
+    private final int i;
+
+    StrSeq(final String s, final int i) {
+        this(s, i, null);
+    }
+
+    StrSeq(final String s, final int i, final Map meta) {
+        super(meta);
+        this.s = s;
+        this.i = i;
+    }
+
+    @Override
+    public Seq withMeta(final Map newMeta) {
+        if ((null != this.meta()) && (this.meta().equals(newMeta))) {
+            return this;
+        }
+        return new StrSeq(this.s, this.i, newMeta);
+    }
+
+    @Override
+    public Expr first() {
+        return new Str(this.s.substring(this.i, this.i + 1));
+    }
+
+    @Override
+    public Seq rest() {
+        return this.drop(1);
+    }
+
+    @Override
+    Seq drop(final int n) {
+        if (this.i + n >= this.s.length()) {
+            return new Seq();
+        }
+        return new StrSeq(this.s, this.i + n);
+    }
+
+    @Override
+    boolean counted() {
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return this.s.length() - this.i;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+
+    @Override
+    public Expr get(final int n) {
+        if (n < 0 || n >= this.size()) {
+            throw new IndexOutOfBoundsException("Index " + n
+                                                + " out of bounds for length "
+                                                + this.size());
+        }
+        return new Str(this.s.substring(this.i + n, this.i + n + 1));
+    }
+
+    @Override
+    public Expr get(final int n, final Expr defaultValue) {
+        if (n < 0 || n >= this.size()) {
+            return defaultValue;
+        }
+        return this.get(n);
+    }
+}
@@ -5,15 +5,22 @@ public class Symbol extends Expr implements IObj<Symbol> {
     public static final Symbol DEF = specialForm("def");
     public static final Symbol DEFMACRO = specialForm("defmacro");
     public static final Symbol DO = specialForm("do");
+    public static final Symbol DOSYNC = specialForm("dosync");
     public static final Symbol FN_STAR = specialForm("fn*");
+    public static final Symbol FUTURE = specialForm("future");
+    public static final Symbol GO = specialForm("go");
     public static final Symbol IF = specialForm("if");
+    public static final Symbol LAZY_SEQ = specialForm("lazy-seq");
     public static final Symbol LET_STAR = specialForm("let*");
+    public static final Symbol LOOP_STAR = specialForm("loop*");
     public static final Symbol MACROEXPAND = specialForm("macroexpand");
     public static final Symbol QUASIQUOTE = specialForm("quasiquote");
     public static final Symbol QUASIQUOTE_EXPAND
         = specialForm("quasiquote-expand");
     public static final Symbol QUOTE = specialForm("quote");
+    public static final Symbol RECUR = specialForm("recur");
     public static final Symbol SPLICE = specialForm("splice");
+    public static final Symbol THREAD = specialForm("thread");
     public static final Symbol TRY = specialForm("try");
     public static final Symbol UNQUOTE = specialForm("unquote");
 
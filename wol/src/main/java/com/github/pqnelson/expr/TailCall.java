@@ -0,0 +1,56 @@
+package com.github.pqnelson.expr;
+
+/**
+ * A pending call, returned from tail position instead of being made.
+ *
+ * <p>This never escapes a trampoline: whoever ran the code returning it
+ * keeps bouncing tail calls until a genuine value comes back, so tail
+ * calls do not grow the Java stack.</p>
+ */
+public final class TailCall extends Expr {
+    private final ITrampolined fn;
+    private final Seq args;
+
+    public TailCall(final ITrampolined fn, final Seq args) {
+        this.fn = fn;
+        this.args = args;
+    }
+
+    public ITrampolined fn() {
+        return this.fn;
+    }
+
+    public Seq args() {
+        return this.args;
+    }
+
+    /**
+     * Make pending calls until a value comes back.
+     *
+     * @param result Either a value, or a {@code TailCall}.
+     * @return The value of the (last) call.
+     */
+    public static Expr trampoline(final Expr result) throws Throwable {
+        Expr value = result;
+        while (value instanceof TailCall) {
+            final TailCall call = (TailCall) value;
+            value = call.fn.invokeStep(call.args);
+        }
+        return value;
+    }
+
+    @Override
+    public <T> T accept(final Visitor<T> visitor) {
+        throw new UnsupportedOperationException("TailCall escaped its trampoline");
+    }
+
+    @Override
+    public Expr clone() {
+        return this;
+    }
+
+    @Override
+    public String type() {
+        return "TailCall";
+    }
+}
@@ -0,0 +1,293 @@
+package com.github.pqnelson.expr;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * A software transaction over {@link Ref}s, with multiversion
+ * concurrency control.
+ *
+ * <p>A transaction takes its read point from a global clock when it
+ * starts, and reads every ref as it was at that point, however long
+ * it runs. Its changes are kept to itself until it commits, when the
+ * refs it changed are locked, in a fixed order, checked to be unchanged
+ * since the read point, and given their new values all at once, stamped
+ * with a new tick of the clock. Should another transaction have got
+ * there first, the whole transaction runs again, from a new read point;
+ * so the body may run more than once, and should have no side effects.
+ * Transactions changing different refs never wait on one another.</p>
+ *
+ * <p>A {@linkplain #commute commuted} change is not checked at all, but
+ * applied again at commit to whatever the ref then holds; an
+ * {@linkplain #ensure ensured} ref is checked though not changed, which
+ * keeps other transactions from changing it under this one.</p>
+ *
+ * <p>A transaction belongs to the thread running it. A transaction
+ * started inside another on the same thread joins it.</p>
+ */
+public final class Transaction {
+    /** How many times a transaction is run before giving up. */
+    static final int RETRY_LIMIT = 10000;
+    /** How long to wait for another transaction's lock before retrying. */
+    static final long LOCK_WAIT_MS = 100;
+
+    private static final AtomicLong CLOCK = new AtomicLong();
+    private static final ThreadLocal<Transaction> CURRENT = new ThreadLocal<>();
+
+    private static final LongAdder COMMITS = new LongAdder();
+    private static final LongAdder RETRIES = new LongAdder();
+    private static final LongAdder COMMIT_NANOS = new LongAdder();
+    private static final LongAccumulator MAX_COMMIT_NANOS =
+        new LongAccumulator(Math::max, 0);
+
+    /**
+     * Thrown to abandon a run of a transaction and start it again.
+     *
+     * <p>It carries no message or stack trace, and there is only one of
+     * it; code catching every {@code Throwable} must let it through.</p>
+     */
+    public static final class Retry extends Error {
+        private static final long serialVersionUID = 1L;
+        static final Retry INSTANCE = new Retry();
+
+        private Retry() {
+            super(null, null, false, false);
+        }
+    }
+
+    private final long readPoint;
+    private final HashMap<Ref, Expr> vals = new HashMap<>();
+    private final HashSet<Ref> sets = new HashSet<>();
+    private final LinkedHashMap<Ref, List<IFn>> commutes =
+        new LinkedHashMap<>();
+    private final HashSet<Ref> ensures = new HashSet<>();
+
+    private Transaction() {
+        this.readPoint = CLOCK.get();
+    }
+
+    /**
+     * The transaction running on this thread, or null.
+     */
+    public static Transaction current() {
+        return CURRENT.get();
+    }
+
+    private static Transaction running(final String name) {
+        final Transaction t = CURRENT.get();
+        if (null == t) {
+            throw new IllegalStateException(name + " outside a transaction");
+        }
+        return t;
+    }
+
+    /**
+     * Run {@code body} in a transaction, committing its changes
+     * atomically, or join the transaction already running.
+     *
+     * @return The value of the body, from the run that committed.
+     */
+    public static Expr run(final IFn body) throws Throwable {
+        if (null != CURRENT.get()) {
+            return body.invoke0();
+        }
+        try {
+            for (int i = 0; i < RETRY_LIMIT; i++) {
+                final Transaction t = new Transaction();
+                CURRENT.set(t);
+                try {
+                    final Expr result = body.invoke0();
+                    t.commit();
+                    return result;
+                } catch (Retry e) {
+                    RETRIES.increment();
+                }
+            }
+        } finally {
+            CURRENT.remove();
+        }
+        throw new IllegalStateException("Transaction failed after "
+                                        + RETRY_LIMIT + " retries");
+    }
+
+    /**
+     * The value of a ref in this transaction.
+     */
+    Expr get(final Ref ref) {
+        final Expr v = this.vals.get(ref);
+        if (null != v || this.vals.containsKey(ref)) {
+            return v;
+        }
+        final Lock lock = ref.lock.readLock();
+        acquire(lock);
+        try {
+            for (Ref.TVal t = ref.tvals; null != t; t = t.prior) {
+                if (t.point <= this.readPoint) {
+                    return t.value;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        // every value kept was committed after this transaction began
+        ref.faults.incrementAndGet();
+        throw Retry.INSTANCE;
+    }
+
+    private static void acquire(final Lock lock) {
+        try {
+            if (lock.tryLock(LOCK_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw Retry.INSTANCE;
+    }
+
+    /**
+     * Whether another transaction has committed to the ref since this
+     * one started.
+     */
+    private boolean changedSince(final Ref ref) {
+        return ref.tvals.point > this.readPoint;
+    }
+
+    /**
+     * Set a ref in the current transaction.
+     */
+    public static Expr set(final Ref ref, final Expr value) {
+        return running("ref-set").doSet(ref, value);
+    }
+
+    private Expr doSet(final Ref ref, final Expr value) {
+        if (this.commutes.containsKey(ref)) {
+            throw new IllegalStateException("Can't set after commute");
+        }
+        if (this.changedSince(ref)) {
+            throw Retry.INSTANCE;
+        }
+        this.sets.add(ref);
+        this.vals.put(ref, value);
+        return value;
+    }
+
+    /**
+     * Set a ref to {@code (f old)} in the current transaction.
+     */
+    public static Expr alter(final Ref ref, final IFn f) throws Throwable {
+        final Transaction t = running("alter");
+        return t.doSet(ref, f.invoke1(t.get(ref)));
+    }
+
+    /**
+     * Set a ref to {@code (f old)} in the current transaction, and again
+     * to {@code (f latest)} when it commits.
+     */
+    public static Expr commute(final Ref ref, final IFn f) throws Throwable {
+        final Transaction t = running("commute");
+        final Expr value = f.invoke1(t.get(ref));
+        t.vals.put(ref, value);
+        t.commutes.computeIfAbsent(ref, r -> new ArrayList<>()).add(f);
+        return value;
+    }
+
+    /**
+     * Keep other transactions from changing a ref until the current one
+     * commits.
+     */
+    public static Expr ensure(final Ref ref) {
+        final Transaction t = running("ensure");
+        if (t.changedSince(ref)) {
+            throw Retry.INSTANCE;
+        }
+        t.ensures.add(ref);
+        return t.get(ref);
+    }
+
+    private void commit() throws Throwable {
+        if (this.vals.isEmpty() && this.ensures.isEmpty()) {
+            COMMITS.increment();
+            return;
+        }
+        final long start = System.nanoTime();
+        final Set<Ref> locking =
+            new TreeSet<>(Comparator.comparingLong(r -> r.id));
+        locking.addAll(this.vals.keySet());
+        locking.addAll(this.ensures);
+        final List<Lock> held = new ArrayList<>(locking.size());
+        final List<Expr[]> changes = new ArrayList<>(this.vals.size());
+        final List<Ref> changed = new ArrayList<>(this.vals.size());
+        try {
+            for (Ref ref : locking) {
+                final Lock lock = ref.lock.writeLock();
+                acquire(lock);
+                held.add(lock);
+                if ((this.sets.contains(ref) || this.ensures.contains(ref))
+                        && this.changedSince(ref)) {
+                    throw Retry.INSTANCE;
+                }
+            }
+            for (java.util.Map.Entry<Ref, List<IFn>> e
+                     : this.commutes.entrySet()) {
+                final Ref ref = e.getKey();
+                if (this.sets.contains(ref)) {
+                    continue;
+                }
+                Expr value = ref.current();
+                for (IFn f : e.getValue()) {
+                    value = f.invoke1(value);
+                }
+                this.vals.put(ref, value);
+            }
+            for (java.util.Map.Entry<Ref, Expr> e : this.vals.entrySet()) {
+                e.getKey().validate(e.getValue());
+            }
+            final long commitPoint = CLOCK.incrementAndGet();
+            for (java.util.Map.Entry<Ref, Expr> e : this.vals.entrySet()) {
+                final Ref ref = e.getKey();
+                changes.add(new Expr[] {ref.current(), e.getValue()});
+                changed.add(ref);
+                ref.commit(e.getValue(), commitPoint);
+            }
+        } finally {
+            for (int i = held.size() - 1; 0 <= i; i--) {
+                held.get(i).unlock();
+            }
+        }
+        final long elapsed = System.nanoTime() - start;
+        COMMITS.increment();
+        COMMIT_NANOS.add(elapsed);
+        MAX_COMMIT_NANOS.accumulate(elapsed);
+        for (int i = 0; i < changed.size(); i++) {
+            final Expr[] change = changes.get(i);
+            changed.get(i).notifyWatches(change[0], change[1]);
+        }
+    }
+
+    /**
+     * The transactions committed and retried so far, and the time spent
+     * committing them, as a map with the keys {@code :commits}, {@code
+     * :retries}, {@code :commit-nanos} and {@code :max-commit-nanos}.
+     */
+    public static Map stats() {
+        return new Map()
+            .associate(new Keyword("commits"), Int.valueOf(COMMITS.sum()))
+            .associate(new Keyword("retries"), Int.valueOf(RETRIES.sum()))
+            .associate(new Keyword("commit-nanos"),
+                       Int.valueOf(COMMIT_NANOS.sum()))
+            .associate(new Keyword("max-commit-nanos"),
+                       Int.valueOf(MAX_COMMIT_NANOS.get()));
+    }
+}
@@ -1,41 +1,111 @@
 package com.github.pqnelson.expr;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 /**
  * A vector, i.e., ordered tuple.
+ *
+ * <p>The elements are stored in a persistent bit-partitioned trie with
+ * a branching factor of 32, after Clojure's {@code PersistentVector}.
+ * The last (up to) 32 elements live in a separate tail array, so most
+ * appends only copy the tail. Lookup, {@link #assocN(int, Expr)},
+ * {@link #conjoin(Expr)} and {@link #pop()} take {@code O(log32 n)},
+ * and each result shares all but one path of the trie with the vector
+ * it came from.</p>
+ *
+ * <p>The legacy {@link #conj(Expr)} still appends in place (the reader
+ * and the tests build vectors that way), but it does so by swapping in
+ * the trie of the appended vector, never by changing a node another
+ * vector may share. To build a large vector, use a {@link
+ * TransientVector} instead.</p>
  */
-public class Vector extends Expr implements Iterable<Expr>, IObj<Vector>, ICountable {
-    final List<Expr> contents;
+public class Vector extends Expr
+        implements Iterable<Expr>, IObj<Vector>, ICountable, IFold {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final Object[] EMPTY_ARRAY = new Object[0];
+    private static final Node EMPTY_NODE = new Node(new Object[WIDTH]);
+
+    /**
+     * An interior node or a leaf of the trie. The array of an interior
+     * node holds the child nodes, and that of a leaf holds 32 elements.
+     * Only the transient holding the node's edit token may change it.
+     */
+    private static final class Node {
+        final AtomicReference<Thread> edit;
+        final Object[] array;
+
+        Node(final Object[] array) {
+            this(null, array);
+        }
+
+        Node(final AtomicReference<Thread> edit, final Object[] array) {
+            this.edit = edit;
+            this.array = array;
+        }
+    }
+
+    private int cnt;
+    private int shift;
+    private Node root;
+    private Object[] tail;
+    private int hash = 0;
     private Map meta = null;
 
     public Vector() {
-        this(new ArrayList<Expr>());
+        this(0, BITS, EMPTY_NODE, EMPTY_ARRAY, null);
     }
 
     public Vector(final List<Expr> contents) {
-        this.contents = contents;
+        this();
+        for (Expr e : contents) {
+            this.conj(e);
+        }
     }
 
+    /**
+     * Copy constructor, in constant time: the copy shares the trie.
+     */
     public Vector(final Vector other) {
-        this.contents = new ArrayList<>(other.contents);
+        this(other, null);
     }
 
     public Vector(final Vector other, final Map meta) {
-        this.contents = new ArrayList<>(other.contents);
+        this(other.cnt, other.shift, other.root, other.tail, meta);
+    }
+
+    private Vector(final int cnt,
+                   final int shift,
+                   final Node root,
+                   final Object[] tail,
+                   final Map meta) {
+        this.cnt = cnt;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
         this.meta = meta;
     }
 
+    /**
+     * The two element vector {@code [a b]}, such as a map entry.
+     */
+    static Vector pair(final Expr a, final Expr b) {
+        return new Vector(2, BITS, EMPTY_NODE, new Object[] {a, b}, null);
+    }
+
+    /**
+     * A vector with the same elements; since the trie is never changed in
+     * place, the elements themselves are shared rather than cloned.
+     */
     @Override
     public Vector clone() {
-        ArrayList<Expr> copy = new ArrayList<>();
-        for (Expr item : this.contents) {
-            copy.add(item.clone());
-        }
-        return new Vector(copy);
+        return new Vector(this, null);
     }
     @Override
     public Map meta() {
@@ -63,39 +133,196 @@ public class Vector extends Expr implements Iterable<Expr>, IObj<Vector>, ICount
         if (this.size() != rhs.size()) {
             return false;
         }
-        for (int i = 0; i < this.size(); i++) {
-            if (!this.get(i).equals(rhs.get(i))) {
+        Iterator<Expr> it = rhs.iterator();
+        for (Expr e : this) {
+            if (!e.equals(it.next())) {
                 return false;
             }
         }
         return true;
     }
 
+    /**
+     * The hash code, computed as for a {@code java.util.List} and cached.
+     */
     @Override
     public int hashCode() {
-        return this.contents.hashCode();
+        int h = this.hash;
+        if (0 == h) {
+            h = 1;
+            for (Expr e : this) {
+                h = 31 * h + (null == e ? 0 : e.hashCode());
+            }
+            this.hash = h;
+        }
+        return h;
     }
 
     @Override
     public Iterator<Expr> iterator() {
-        return contents.iterator();
+        final int count = this.cnt;
+        final int tailOffset = tailoff();
+        final int levels = this.shift;
+        final Node top = this.root;
+        final Object[] last = this.tail;
+        return new Iterator<Expr>() {
+            private int i = 0;
+            private int base = 0;
+            private Object[] array = (0 < count
+                                      ? arrayFor(0, tailOffset, levels, top, last)
+                                      : null);
+
+            @Override
+            public boolean hasNext() {
+                return this.i < count;
+            }
+
+            @Override
+            public Expr next() {
+                if (this.i >= count) {
+                    throw new NoSuchElementException();
+                }
+                if (this.i - this.base == WIDTH) {
+                    this.array = arrayFor(this.i, tailOffset, levels, top, last);
+                    this.base = this.i;
+                }
+                return (Expr) this.array[this.i++ - this.base];
+            }
+        };
+    }
+
+    /**
+     * Reduce the elements a leaf of the trie at a time.
+     */
+    @Override
+    public Expr reduce(final IFn f, final Expr init) throws Throwable {
+        return this.reduceRange(f, init, 0, this.cnt);
+    }
+
+    /**
+     * Reduce the elements from index {@code start} up to but excluding
+     * {@code end}, a leaf at a time.
+     */
+    private Expr reduceRange(final IFn f, final Expr init,
+                             final int start, final int end)
+            throws Throwable {
+        Expr result = init;
+        int i = start;
+        while (i < end) {
+            final Object[] array = arrayFor(i);
+            final int stop = Math.min(end, (i | MASK) + 1);
+            for (; i < stop; i++) {
+                result = f.invoke2(result, (Expr) array[i & MASK]);
+                if (result instanceof Reduced) {
+                    return ((Reduced) result).deref();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Fold the elements in parallel, halving the index range at leaf
+     * boundaries until each piece has at most {@code n} elements.
+     */
+    @Override
+    public Expr fold(final int n, final IFn combine, final IFn f)
+            throws Throwable {
+        final Vector v = new Vector(this);
+        if (v.cnt <= n) {
+            return v.reduce(f, combine.invoke0());
+        }
+        return FoldTask.run(new FoldRange(v, 0, v.cnt, n, combine, f));
+    }
+
+    private static final class FoldRange extends FoldTask {
+        private static final long serialVersionUID = 1L;
+        private final Vector v;
+        private final int start;
+        private final int end;
+        private final int n;
+        private final IFn combine;
+        private final IFn f;
+
+        FoldRange(final Vector v, final int start, final int end,
+                  final int n, final IFn combine, final IFn f) {
+            this.v = v;
+            this.start = start;
+            this.end = end;
+            this.n = n;
+            this.combine = combine;
+            this.f = f;
+        }
+
+        @Override
+        Expr fold() throws Throwable {
+            final int mid = this.start + (((this.end - this.start) >>> 1)
+                                          & ~MASK);
+            if (this.end - this.start <= this.n || mid == this.start) {
+                return this.v.reduceRange(this.f, this.combine.invoke0(),
+                                          this.start, this.end);
+            }
+            final FoldRange left = new FoldRange(this.v, this.start, mid,
+                                                 this.n, this.combine, this.f);
+            left.fork();
+            final Expr right = new FoldRange(this.v, mid, this.end, this.n,
+                                             this.combine, this.f).compute();
+            return this.combine.invoke2(left.join(), right);
+        }
     }
 
     @Override
     public int size() {
-        return contents.size();
+        return this.cnt;
+    }
+
+    /**
+     * The index of the first element in the tail.
+     */
+    private int tailoff() {
+        if (this.cnt < WIDTH) {
+            return 0;
+        }
+        return ((this.cnt - 1) >>> BITS) << BITS;
+    }
+
+    private static Object[] arrayFor(final int i,
+                                     final int tailOffset,
+                                     final int shift,
+                                     final Node root,
+                                     final Object[] tail) {
+        if (i >= tailOffset) {
+            return tail;
+        }
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Node) node.array[(i >>> level) & MASK];
+        }
+        return node.array;
+    }
+
+    /**
+     * The leaf (or tail) array holding the element at index {@code i}.
+     */
+    Object[] arrayFor(final int i) {
+        return arrayFor(i, tailoff(), this.shift, this.root, this.tail);
     }
 
     public Expr get(final int i) {
-        return contents.get(i);
+        if (i < 0 || i >= this.cnt) {
+            throw new IndexOutOfBoundsException("Index " + i
+                                                + " out of bounds for length "
+                                                + this.cnt);
+        }
+        return (Expr) arrayFor(i)[i & MASK];
     }
 
 
     Expr _get(final int i, final Expr defaultValue) {
-        if ((i < 0) || (this.contents.size() <= i)) {
+        if ((i < 0) || (this.cnt <= i)) {
             return defaultValue;
         }
-        return this.contents.get(i);
+        return (Expr) arrayFor(i)[i & MASK];
     }
 
 
@@ -105,37 +332,422 @@ public class Vector extends Expr implements Iterable<Expr>, IObj<Vector>, ICount
             throw new NoSuchMethodException("Vector::get requires "
                                             +"an integer index");
         }
-        return this._get(((Int) i).value().intValue(), defaultValue);
+        return this._get((int) ((Int) i).longValue(), defaultValue);
     }
 
     public Expr last() {
-        return contents.get(contents.size() - 1);
+        return get(this.cnt - 1);
     }
 
     public Vector slice(final int i) {
-        return new Vector(this.contents.subList(i, this.size()));
+        Vector result = new Vector();
+        for (int j = i; j < this.cnt; j++) {
+            result.conj(get(j));
+        }
+        return result;
     }
 
+    /**
+     * The elements as a list sharing this vector, or nil if there are
+     * none.
+     */
     public Expr seq() {
         if (this.isEmpty()) {
             return Literal.NIL;
         }
-        return new Seq(new ArrayList<>(this.contents));
+        return new VectorSeq(this, 0);
     }
 
+    /**
+     * Append an element in place.
+     *
+     * <p>Only this vector sees the change: vectors sharing its trie keep
+     * their elements.</p>
+     */
     public void conj(final Expr e) {
-        this.contents.add(e);
+        final Vector appended = conjoin(e);
+        this.cnt = appended.cnt;
+        this.shift = appended.shift;
+        this.root = appended.root;
+        this.tail = appended.tail;
+        this.hash = 0;
+    }
+
+    /**
+     * A new vector with the element appended, leaving this one alone.
+     */
+    public Vector conjoin(final Expr e) {
+        if (this.cnt - tailoff() < WIDTH) {
+            Object[] newTail = Arrays.copyOf(this.tail, this.tail.length + 1);
+            newTail[this.tail.length] = e;
+            return new Vector(this.cnt + 1, this.shift, this.root, newTail,
+                              this.meta);
+        }
+        // the tail is full: push it into the trie
+        final Node tailNode = new Node(this.tail);
+        int newShift = this.shift;
+        Node newRoot;
+        if ((this.cnt >>> BITS) > (1 << this.shift)) {
+            // the root is full too: grow the trie a level
+            newRoot = new Node(new Object[WIDTH]);
+            newRoot.array[0] = this.root;
+            newRoot.array[1] = newPath(this.shift, tailNode);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(this.shift, this.root, tailNode);
+        }
+        return new Vector(this.cnt + 1, newShift, newRoot, new Object[] {e},
+                          this.meta);
+    }
+
+    private Node pushTail(final int level, final Node parent,
+                          final Node tailNode) {
+        final int subidx = ((this.cnt - 1) >>> level) & MASK;
+        Node result = new Node(parent.array.clone());
+        Node toInsert;
+        if (BITS == level) {
+            toInsert = tailNode;
+        } else {
+            final Node child = (Node) parent.array[subidx];
+            toInsert = (null != child
+                        ? pushTail(level - BITS, child, tailNode)
+                        : newPath(level - BITS, tailNode));
+        }
+        result.array[subidx] = toInsert;
+        return result;
+    }
+
+    private static Node newPath(final int level, final Node node) {
+        if (0 == level) {
+            return node;
+        }
+        Node result = new Node(new Object[WIDTH]);
+        result.array[0] = newPath(level - BITS, node);
+        return result;
+    }
+
+    /**
+     * A new vector with the element at index {@code i} replaced, or
+     * appended when {@code i} is the size of this vector.
+     *
+     * @throws IndexOutOfBoundsException if {@code i} is negative or
+     * larger than the size.
+     */
+    public Vector assocN(final int i, final Expr e) {
+        if (i == this.cnt) {
+            return conjoin(e);
+        }
+        if (i < 0 || i > this.cnt) {
+            throw new IndexOutOfBoundsException("Index " + i
+                                                + " out of bounds for length "
+                                                + this.cnt);
+        }
+        if (i >= tailoff()) {
+            Object[] newTail = this.tail.clone();
+            newTail[i & MASK] = e;
+            return new Vector(this.cnt, this.shift, this.root, newTail,
+                              this.meta);
+        }
+        return new Vector(this.cnt, this.shift,
+                          doAssoc(this.shift, this.root, i, e),
+                          this.tail, this.meta);
+    }
+
+    private static Node doAssoc(final int level, final Node node,
+                                final int i, final Expr e) {
+        Node result = new Node(node.array.clone());
+        if (0 == level) {
+            result.array[i & MASK] = e;
+        } else {
+            final int subidx = (i >>> level) & MASK;
+            result.array[subidx] = doAssoc(level - BITS,
+                                           (Node) node.array[subidx], i, e);
+        }
+        return result;
+    }
+
+    /**
+     * A new vector without the last element.
+     *
+     * @throws IllegalStateException if the vector is empty.
+     */
+    public Vector pop() {
+        if (0 == this.cnt) {
+            throw new IllegalStateException("Can't pop empty vector");
+        }
+        if (1 == this.cnt) {
+            return new Vector().withMeta(this.meta);
+        }
+        if (this.cnt - tailoff() > 1) {
+            Object[] newTail = Arrays.copyOf(this.tail, this.tail.length - 1);
+            return new Vector(this.cnt - 1, this.shift, this.root, newTail,
+                              this.meta);
+        }
+        // the tail empties: the last leaf becomes the tail
+        final Object[] newTail = arrayFor(this.cnt - 2);
+        Node newRoot = popTail(this.shift, this.root);
+        int newShift = this.shift;
+        if (null == newRoot) {
+            newRoot = EMPTY_NODE;
+        }
+        if (this.shift > BITS && null == newRoot.array[1]) {
+            newRoot = (Node) newRoot.array[0];
+            newShift -= BITS;
+        }
+        return new Vector(this.cnt - 1, newShift, newRoot, newTail,
+                          this.meta);
+    }
+
+    private Node popTail(final int level, final Node node) {
+        final int subidx = ((this.cnt - 2) >>> level) & MASK;
+        if (level > BITS) {
+            final Node child = popTail(level - BITS, (Node) node.array[subidx]);
+            if (null == child && 0 == subidx) {
+                return null;
+            }
+            Node result = new Node(node.array.clone());
+            result.array[subidx] = child;
+            return result;
+        } else if (0 == subidx) {
+            return null;
+        }
+        Node result = new Node(node.array.clone());
+        result.array[subidx] = null;
+        return result;
+    }
+
+    /**
+     * A transient vector with the same elements, in constant time.
+     */
+    public TransientVector asTransient() {
+        return new TransientVector(this);
+    }
+
+    /**
+     * A vector being built in place by its owner thread.
+     *
+     * <p>Appending usually just stores into the tail, which is kept at
+     * its full 32 elements; a full tail is pushed into the trie as is.
+     * {@link #persistent()} only trims the tail.</p>
+     */
+    public static final class TransientVector extends ATransient {
+        private int cnt;
+        private int shift;
+        private Node root;
+        private Object[] tail;
+
+        TransientVector(final Vector v) {
+            this.cnt = v.cnt;
+            this.shift = v.shift;
+            this.root = new Node(this.edit, v.root.array.clone());
+            this.tail = Arrays.copyOf(v.tail, WIDTH);
+        }
+
+        private Node ensureEditable(final Node node) {
+            if (node.edit == this.edit) {
+                return node;
+            }
+            return new Node(this.edit, node.array.clone());
+        }
+
+        private int tailoff() {
+            if (this.cnt < WIDTH) {
+                return 0;
+            }
+            return ((this.cnt - 1) >>> BITS) << BITS;
+        }
+
+        @Override
+        public int size() {
+            ensureEditable();
+            return this.cnt;
+        }
+
+        public Expr get(final int i) {
+            ensureEditable();
+            if (i < 0 || i >= this.cnt) {
+                throw new IndexOutOfBoundsException("Index " + i
+                                                    + " out of bounds for "
+                                                    + "length " + this.cnt);
+            }
+            if (i >= tailoff()) {
+                return (Expr) this.tail[i & MASK];
+            }
+            Node node = this.root;
+            for (int level = this.shift; level > 0; level -= BITS) {
+                node = (Node) node.array[(i >>> level) & MASK];
+            }
+            return (Expr) node.array[i & MASK];
+        }
+
+        @Override
+        public TransientVector conj(final Expr e) {
+            ensureEditable();
+            final int i = this.cnt;
+            if (i - tailoff() < WIDTH) {
+                this.tail[i & MASK] = e;
+                this.cnt++;
+                return this;
+            }
+            // the tail is full: push it into the trie
+            final Node tailNode = new Node(this.edit, this.tail);
+            this.tail = new Object[WIDTH];
+            this.tail[0] = e;
+            if ((this.cnt >>> BITS) > (1 << this.shift)) {
+                Node newRoot = new Node(this.edit, new Object[WIDTH]);
+                newRoot.array[0] = this.root;
+                newRoot.array[1] = newPath(this.shift, tailNode);
+                this.root = newRoot;
+                this.shift += BITS;
+            } else {
+                this.root = pushTail(this.shift, this.root, tailNode);
+            }
+            this.cnt++;
+            return this;
+        }
+
+        private Node newPath(final int level, final Node node) {
+            if (0 == level) {
+                return node;
+            }
+            Node result = new Node(this.edit, new Object[WIDTH]);
+            result.array[0] = newPath(level - BITS, node);
+            return result;
+        }
+
+        private Node pushTail(final int level, final Node parent,
+                              final Node tailNode) {
+            Node result = ensureEditable(parent);
+            final int subidx = ((this.cnt - 1) >>> level) & MASK;
+            Node toInsert;
+            if (BITS == level) {
+                toInsert = tailNode;
+            } else {
+                final Node child = (Node) result.array[subidx];
+                toInsert = (null != child
+                            ? pushTail(level - BITS, child, tailNode)
+                            : newPath(level - BITS, tailNode));
+            }
+            result.array[subidx] = toInsert;
+            return result;
+        }
+
+        /**
+         * Replace the element at index {@code i} in place, or append
+         * when {@code i} is the size.
+         */
+        public TransientVector assocN(final int i, final Expr e) {
+            ensureEditable();
+            if (i == this.cnt) {
+                return conj(e);
+            }
+            if (i < 0 || i > this.cnt) {
+                throw new IndexOutOfBoundsException("Index " + i
+                                                    + " out of bounds for "
+                                                    + "length " + this.cnt);
+            }
+            if (i >= tailoff()) {
+                this.tail[i & MASK] = e;
+            } else {
+                this.root = doAssoc(this.shift, this.root, i, e);
+            }
+            return this;
+        }
+
+        private Node doAssoc(final int level, final Node node,
+                             final int i, final Expr e) {
+            Node result = ensureEditable(node);
+            if (0 == level) {
+                result.array[i & MASK] = e;
+            } else {
+                final int subidx = (i >>> level) & MASK;
+                result.array[subidx] = doAssoc(level - BITS,
+                                               (Node) result.array[subidx],
+                                               i, e);
+            }
+            return result;
+        }
+
+        /**
+         * Remove the last element in place.
+         *
+         * @throws IllegalStateException if the vector is empty.
+         */
+        public TransientVector pop() {
+            ensureEditable();
+            if (0 == this.cnt) {
+                throw new IllegalStateException("Can't pop empty vector");
+            }
+            if (1 == this.cnt || 0 < ((this.cnt - 1) & MASK)) {
+                this.cnt--;
+                return this;
+            }
+            // the tail empties: the last leaf becomes the tail
+            final Object[] newTail = editableArrayFor(this.cnt - 2);
+            Node newRoot = popTail(this.shift, this.root);
+            if (null == newRoot) {
+                newRoot = new Node(this.edit, new Object[WIDTH]);
+            }
+            if (this.shift > BITS && null == newRoot.array[1]) {
+                newRoot = ensureEditable((Node) newRoot.array[0]);
+                this.shift -= BITS;
+            }
+            this.root = newRoot;
+            this.cnt--;
+            this.tail = newTail;
+            return this;
+        }
+
+        private Object[] editableArrayFor(final int i) {
+            Node node = this.root;
+            for (int level = this.shift; level > 0; level -= BITS) {
+                node = ensureEditable((Node) node.array[(i >>> level) & MASK]);
+            }
+            return node.array;
+        }
+
+        private Node popTail(final int level, final Node node) {
+            Node result = ensureEditable(node);
+            final int subidx = ((this.cnt - 2) >>> level) & MASK;
+            if (level > BITS) {
+                final Node child = popTail(level - BITS,
+                                           (Node) result.array[subidx]);
+                if (null == child && 0 == subidx) {
+                    return null;
+                }
+                result.array[subidx] = child;
+                return result;
+            } else if (0 == subidx) {
+                return null;
+            }
+            result.array[subidx] = null;
+            return result;
+        }
+
+        @Override
+        public Vector persistent() {
+            ensureEditable();
+            this.edit.set(null);
+            final Object[] trimmed = Arrays.copyOf(this.tail,
+                                                   this.cnt - tailoff());
+            return new Vector(this.cnt, this.shift, this.root, trimmed, null);
+        }
+
+        @Override
+        public String type() {
+            return "TransientVector";
+        }
     }
 
     public Expr first() {
-        if (contents.isEmpty()) {
+        if (0 == this.cnt) {
             return null;
         }
-        return contents.get(0);
+        return get(0);
     }
 
     public boolean isEmpty() {
-        return contents.isEmpty();
+        return 0 == this.cnt;
     }
 
     @Override
@@ -164,8 +776,8 @@ public class Vector extends Expr implements Iterable<Expr>, IObj<Vector>, ICount
     }
 
     public boolean contains(final Expr e) {
-        for (int i = this.size() - 1; i >= 0; i--) {
-            if (this.get(i).equals(e)) return true;
+        for (Expr item : this) {
+            if (item.equals(e)) return true;
         }
         return false;
     }
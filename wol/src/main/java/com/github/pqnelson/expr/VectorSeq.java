@@ -0,0 +1,115 @@
+package com.github.pqnelson.expr;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The elements of a vector from some index on, as a list sharing the
+ * vector rather than copying it.
+ *
+ * <p>Taking the {@link #first()}, the {@link #rest()}, counting,
+ * indexing and dropping elements are all constant time, since the
+ * vector itself is persistent and never changes under the view.</p>
+ */
+public final class VectorSeq extends ASeq {
+    private static final int MASK = ChunkedCons.CHUNK_SIZE - 1;
+    private final Vector v;
+    private final int i;
+
+    VectorSeq(final Vector v, final int i) {
+        this(v, i, null);
+    }
+
+    VectorSeq(final Vector v, final int i, final Map meta) {
+        super(meta);
+        this.v = v;
+        this.i = i;
+    }
+
+    @Override
+    public Seq withMeta(final Map newMeta) {
+        if ((null != this.meta()) && (this.meta().equals(newMeta))) {
+            return this;
+        }
+        return new VectorSeq(this.v, this.i, newMeta);
+    }
+
+    @Override
+    public Expr first() {
+        return this.v.get(this.i);
+    }
+
+    @Override
+    public Seq rest() {
+        return this.drop(1);
+    }
+
+    @Override
+    Seq drop(final int n) {
+        if (this.i + n >= this.v.size()) {
+            return new Seq();
+        }
+        return new VectorSeq(this.v, this.i + n);
+    }
+
+    @Override
+    boolean counted() {
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return this.v.size() - this.i;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+
+    @Override
+    public Expr get(final int n) {
+        if (n < 0 || n >= this.size()) {
+            throw new IndexOutOfBoundsException("Index " + n
+                                                + " out of bounds for length "
+                                                + this.size());
+        }
+        return this.v.get(this.i + n);
+    }
+
+    @Override
+    public Expr get(final int n, final Expr defaultValue) {
+        if (n < 0 || n >= this.size()) {
+            return defaultValue;
+        }
+        return this.v.get(this.i + n);
+    }
+
+    /**
+     * Walk the leaves of the vector's trie, rather than looking each
+     * element up from the root.
+     */
+    @Override
+    public Iterator<Expr> iterator() {
+        return new Iterator<Expr>() {
+            private int j = VectorSeq.this.i;
+            private Object[] array = null;
+
+            @Override
+            public boolean hasNext() {
+                return this.j < VectorSeq.this.v.size();
+            }
+
+            @Override
+            public Expr next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (null == this.array || 0 == (this.j & MASK)) {
+                    this.array = VectorSeq.this.v.arrayFor(this.j);
+                }
+                return (Expr) this.array[this.j++ & MASK];
+            }
+        };
+    }
+}
@@ -11,4 +11,7 @@ public interface Visitor<T> {
     T visitKeyword(Keyword expr);
     T visitLiteral(Literal expr);
     T visitMap(Map expr);
+    T visitTransient(ATransient expr);
+    T visitDeref(ADeref expr);
+    T visitChan(Chan expr);
 }
\ No newline at end of file
@@ -0,0 +1,442 @@
+package com.github.pqnelson.jvm;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import com.github.pqnelson.expr.Expr;
+import com.github.pqnelson.expr.Literal;
+import com.github.pqnelson.expr.Seq;
+import com.github.pqnelson.node.ConstantNode;
+import com.github.pqnelson.node.DoNode;
+import com.github.pqnelson.node.ExpansionNode;
+import com.github.pqnelson.node.Frame;
+import com.github.pqnelson.node.GlobalNode;
+import com.github.pqnelson.node.GuardNode;
+import com.github.pqnelson.node.IfNode;
+import com.github.pqnelson.node.InvokeNode;
+import com.github.pqnelson.node.LetNode;
+import com.github.pqnelson.node.LocalNode;
+import com.github.pqnelson.node.LoopNode;
+import com.github.pqnelson.node.Node;
+import com.github.pqnelson.node.RecurNode;
+
+/**
+ * Compile the body of a {@code fn*} to a JVM class.
+ *
+ * <p>The result is a {@link Node} like any other, so the function
+ * calling it (and the {@code Fun} holding that function) neither knows
+ * nor cares whether its body is interpreted. The class is defined with
+ * {@link MethodHandles.Lookup#defineHiddenClass}, so it can be unloaded
+ * once the function is garbage, and the JIT is free to inline through
+ * its {@code eval} method.</p>
+ *
+ * <p>Constants, locals, globals, {@code if}, {@code do}, {@code let*},
+ * {@code loop*}, {@code recur}, call sites, macro expansions and folded
+ * constants are compiled inline; a loop becomes a backward jump. Any other node (a
+ * nested {@code fn*}, {@code try}, and so on) is kept as a constant and
+ * evaluated by the interpreter, so every body can be compiled.</p>
+ */
+public final class BytecodeCompiler {
+    /**
+     * Whether to compile every function body as soon as it is analyzed,
+     * rather than waiting for {@link Tiering} to find it hot. Set from
+     * the {@code wol.compile} system property.
+     */
+    public static boolean enabled = Boolean.getBoolean("wol.compile");
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final String CLASS_NAME =
+        Type.getInternalName(BytecodeCompiler.class)
+            .replace("BytecodeCompiler", "CompiledBody");
+    private static final String CONSTANTS = "K";
+    /** The most arguments passed without an argument list. */
+    private static final int MAX_FIXED_ARITY = 4;
+    private static final String OBJECT_ARRAY = "[Ljava/lang/Object;";
+
+    private static final String NODE = Type.getInternalName(Node.class);
+    private static final String EXPR = Type.getInternalName(Expr.class);
+    private static final String FRAME = Type.getInternalName(Frame.class);
+    private static final String SEQ = Type.getInternalName(Seq.class);
+    private static final String EVAL_DESC =
+        "(L" + FRAME + ";)L" + EXPR + ";";
+
+    private final List<Object> constants = new ArrayList<>();
+    private MethodVisitor mv;
+    /** The next free JVM local variable in {@code eval}. */
+    private int nextLocal = 2;
+
+    private BytecodeCompiler() { }
+
+    /**
+     * Compile a function body.
+     *
+     * @param body The analyzed body of a {@code fn*}.
+     * @return A node evaluating the body with JVM bytecode.
+     */
+    public static Node compile(final Node body) {
+        try {
+            return (new BytecodeCompiler()).define(body);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Could not compile function body", e);
+        }
+    }
+
+    private Node define(final Node body)
+            throws ReflectiveOperationException {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected String getCommonSuperClass(final String type1,
+                                                 final String type2) {
+                // every value we juggle on the stack is an Expr
+                return EXPR;
+            }
+        };
+        cw.visit(Opcodes.V17,
+                 Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER,
+                 CLASS_NAME, null, NODE, null);
+        cw.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL,
+                      CONSTANTS, OBJECT_ARRAY, null, null).visitEnd();
+        emitConstructor(cw);
+
+        this.mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "eval", EVAL_DESC,
+                                 null, null);
+        this.mv.visitCode();
+        emit(body);
+        this.mv.visitInsn(Opcodes.ARETURN);
+        this.mv.visitMaxs(0, 0);
+        this.mv.visitEnd();
+
+        emitClassInitializer(cw);
+        cw.visitEnd();
+
+        MethodHandles.Lookup hidden = LOOKUP.defineHiddenClassWithClassData(
+            cw.toByteArray(), this.constants.toArray(), false);
+        return (Node) hidden.lookupClass().getConstructor().newInstance();
+    }
+
+    private static void emitConstructor(final ClassWriter cw) {
+        MethodVisitor init = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>",
+                                            "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, NODE, "<init>", "()V",
+                             false);
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+    }
+
+    /**
+     * The constants are handed over as class data, and read into a
+     * static final field so the JIT treats them as constants.
+     */
+    private static void emitClassInitializer(final ClassWriter cw) {
+        MethodVisitor clinit = cw.visitMethod(Opcodes.ACC_STATIC, "<clinit>",
+                                              "()V", null, null);
+        clinit.visitCode();
+        clinit.visitMethodInsn(Opcodes.INVOKESTATIC,
+                               "java/lang/invoke/MethodHandles", "lookup",
+                               "()Ljava/lang/invoke/MethodHandles$Lookup;",
+                               false);
+        clinit.visitLdcInsn("_");
+        clinit.visitLdcInsn(Type.getType(Object[].class));
+        clinit.visitMethodInsn(Opcodes.INVOKESTATIC,
+                               "java/lang/invoke/MethodHandles", "classData",
+                               "(Ljava/lang/invoke/MethodHandles$Lookup;"
+                               + "Ljava/lang/String;Ljava/lang/Class;)"
+                               + "Ljava/lang/Object;",
+                               false);
+        clinit.visitTypeInsn(Opcodes.CHECKCAST, OBJECT_ARRAY);
+        clinit.visitFieldInsn(Opcodes.PUTSTATIC, CLASS_NAME, CONSTANTS,
+                              OBJECT_ARRAY);
+        clinit.visitInsn(Opcodes.RETURN);
+        clinit.visitMaxs(0, 0);
+        clinit.visitEnd();
+    }
+
+    /**
+     * Push the constant onto the stack, cast to the given class.
+     */
+    private void emitConstant(final Object value, final Class<?> type) {
+        int index = this.constants.indexOf(value);
+        if (index < 0 || this.constants.get(index) != value) {
+            index = this.constants.size();
+            this.constants.add(value);
+        }
+        this.mv.visitFieldInsn(Opcodes.GETSTATIC, CLASS_NAME, CONSTANTS,
+                               OBJECT_ARRAY);
+        this.mv.visitLdcInsn(index);
+        this.mv.visitInsn(Opcodes.AALOAD);
+        this.mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(type));
+    }
+
+    private void emitFrame() {
+        this.mv.visitVarInsn(Opcodes.ALOAD, 1);
+    }
+
+    private void emitSlots(final int depth) {
+        emitFrame();
+        for (int d = 0; d < depth; d++) {
+            this.mv.visitFieldInsn(Opcodes.GETFIELD, FRAME, "outer",
+                                   "L" + FRAME + ";");
+        }
+        this.mv.visitFieldInsn(Opcodes.GETFIELD, FRAME, "slots",
+                               "[L" + EXPR + ";");
+    }
+
+    /**
+     * Emit code leaving the value of the node, an {@code Expr}, on the
+     * stack.
+     */
+    private void emit(final Node node) {
+        if (node instanceof ConstantNode) {
+            emitConstant(((ConstantNode) node).value(), Expr.class);
+        } else if (node instanceof LocalNode
+                   && null == ((LocalNode) node).fallback()) {
+            emitLocal((LocalNode) node);
+        } else if (node instanceof GlobalNode) {
+            emitGlobal((GlobalNode) node);
+        } else if (node instanceof IfNode) {
+            emitIf((IfNode) node);
+        } else if (node instanceof DoNode) {
+            emitDo((DoNode) node);
+        } else if (node instanceof LetNode
+                   && !((LetNode) node).clearsSlots()) {
+            emitLet((LetNode) node);
+        } else if (node instanceof LoopNode
+                   && !((LoopNode) node).clearsSlots()) {
+            emitLoop((LoopNode) node);
+        } else if (node instanceof RecurNode) {
+            emitRecur((RecurNode) node);
+        } else if (node instanceof InvokeNode) {
+            emitInvoke((InvokeNode) node);
+        } else if (node instanceof ExpansionNode) {
+            emitExpansion((ExpansionNode) node);
+        } else if (node instanceof GuardNode) {
+            emitGuard((GuardNode) node);
+        } else {
+            emitInterpreted(node);
+        }
+    }
+
+    private void emitInterpreted(final Node node) {
+        emitConstant(node, Node.class);
+        emitFrame();
+        this.mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, NODE, "eval",
+                                EVAL_DESC, false);
+    }
+
+    private void emitLocal(final LocalNode node) {
+        emitSlots(node.depth());
+        this.mv.visitLdcInsn(node.slot());
+        this.mv.visitInsn(Opcodes.AALOAD);
+    }
+
+    private void emitGlobal(final GlobalNode node) {
+        emitConstant(node, GlobalNode.class);
+        this.mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL,
+                                Type.getInternalName(GlobalNode.class),
+                                "value", "()L" + EXPR + ";", false);
+    }
+
+    private void emitIf(final IfNode node) {
+        Label falseBranch = new Label();
+        Label end = new Label();
+        emit(node.test());
+        this.mv.visitMethodInsn(Opcodes.INVOKESTATIC,
+                                Type.getInternalName(Literal.class),
+                                "isFalsy", "(L" + EXPR + ";)Z", false);
+        this.mv.visitJumpInsn(Opcodes.IFNE, falseBranch);
+        emit(node.trueBranch());
+        this.mv.visitJumpInsn(Opcodes.GOTO, end);
+        this.mv.visitLabel(falseBranch);
+        emit(node.falseBranch());
+        this.mv.visitLabel(end);
+    }
+
+    private void emitDo(final DoNode node) {
+        final Node[] body = node.body();
+        final int last = body.length - 1;
+        for (int i = 0; i < last; i++) {
+            emit(body[i]);
+            this.mv.visitInsn(Opcodes.POP);
+        }
+        emit(body[last]);
+    }
+
+    private void emitLet(final LetNode node) {
+        final int[] slots = node.slots();
+        final Node[] inits = node.inits();
+        for (int i = 0; i < slots.length; i++) {
+            emitSlots(0);
+            this.mv.visitLdcInsn(slots[i]);
+            emit(inits[i]);
+            this.mv.visitInsn(Opcodes.AASTORE);
+        }
+        emit(node.body());
+    }
+
+    /**
+     * Inline the macro expansion, guarded by the site still expanding to
+     * it. The site checks its macro again whenever the binding epoch
+     * moves, so binding some other macro leaves the inlined code in use;
+     * once this macro is redefined, fall back to the site itself, which
+     * runs the new expansion.
+     */
+    private void emitExpansion(final ExpansionNode node) {
+        final Node inlined = node.node();
+        Label stale = new Label();
+        Label end = new Label();
+        emitConstant(node, ExpansionNode.class);
+        emitConstant(inlined, Node.class);
+        this.mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL,
+                                Type.getInternalName(ExpansionNode.class),
+                                "expandsTo", "(L" + NODE + ";)Z", false);
+        this.mv.visitJumpInsn(Opcodes.IFEQ, stale);
+        emit(inlined);
+        this.mv.visitJumpInsn(Opcodes.GOTO, end);
+        this.mv.visitLabel(stale);
+        emitInterpreted(node);
+        this.mv.visitLabel(end);
+    }
+
+    /**
+     * Inline the specialized code, guarded by its assumptions. The guard
+     * checks them again whenever the binding epoch moves, so binding
+     * some unrelated function leaves the inlined code in use; once an
+     * assumption is broken, run the general code instead.
+     */
+    private void emitGuard(final GuardNode node) {
+        Label broken = new Label();
+        Label end = new Label();
+        emitConstant(node, GuardNode.class);
+        this.mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL,
+                                Type.getInternalName(GuardNode.class),
+                                "holds", "()Z", false);
+        this.mv.visitJumpInsn(Opcodes.IFEQ, broken);
+        emit(node.fast());
+        this.mv.visitJumpInsn(Opcodes.GOTO, end);
+        this.mv.visitLabel(broken);
+        emitInterpreted(node.slow());
+        this.mv.visitLabel(end);
+    }
+
+    /**
+     * Bind the slots, then run the body until it evaluates to something
+     * other than {@code RecurNode.RECUR}.
+     */
+    private void emitLoop(final LoopNode node) {
+        final int[] slots = node.slots();
+        final Node[] inits = node.inits();
+        for (int i = 0; i < slots.length; i++) {
+            emitSlots(0);
+            this.mv.visitLdcInsn(slots[i]);
+            emit(inits[i]);
+            this.mv.visitInsn(Opcodes.AASTORE);
+        }
+        Label top = new Label();
+        Label end = new Label();
+        this.mv.visitLabel(top);
+        emit(node.body());
+        this.mv.visitInsn(Opcodes.DUP);
+        emitConstant(RecurNode.RECUR, Expr.class);
+        this.mv.visitJumpInsn(Opcodes.IF_ACMPNE, end);
+        this.mv.visitInsn(Opcodes.POP);
+        this.mv.visitJumpInsn(Opcodes.GOTO, top);
+        this.mv.visitLabel(end);
+    }
+
+    /**
+     * Evaluate the arguments into JVM locals, store them in the loop's
+     * slots, and leave {@code RecurNode.RECUR} on the stack.
+     */
+    private void emitRecur(final RecurNode node) {
+        final Node[] args = node.args();
+        final int[] slots = node.slots();
+        final int first = this.nextLocal;
+        this.nextLocal += args.length;
+        for (int i = 0; i < args.length; i++) {
+            emit(args[i]);
+            this.mv.visitVarInsn(Opcodes.ASTORE, first + i);
+        }
+        for (int i = 0; i < args.length; i++) {
+            emitSlots(node.depth());
+            this.mv.visitLdcInsn(slots[i]);
+            this.mv.visitVarInsn(Opcodes.ALOAD, first + i);
+            this.mv.visitInsn(Opcodes.AASTORE);
+        }
+        emitConstant(RecurNode.RECUR, Expr.class);
+    }
+
+    /**
+     * Evaluate the operator and arguments inline, then let the call
+     * site decide how to make the call (so macros and tail calls are
+     * handled exactly as in the interpreter).
+     */
+    private void emitInvoke(final InvokeNode node) {
+        final String site = Type.getInternalName(InvokeNode.class);
+        final int rator = this.nextLocal++;
+        Label call = new Label();
+        Label end = new Label();
+        emit(node.fn());
+        this.mv.visitVarInsn(Opcodes.ASTORE, rator);
+        this.mv.visitVarInsn(Opcodes.ALOAD, rator);
+        this.mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, EXPR, "isMacro",
+                                "()Z", false);
+        this.mv.visitJumpInsn(Opcodes.IFEQ, call);
+        emitConstant(node, InvokeNode.class);
+        emitFrame();
+        this.mv.visitVarInsn(Opcodes.ALOAD, rator);
+        this.mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, site, "expand",
+                                "(L" + FRAME + ";L" + EXPR + ";)L"
+                                + EXPR + ";",
+                                false);
+        this.mv.visitJumpInsn(Opcodes.GOTO, end);
+
+        this.mv.visitLabel(call);
+        emitConstant(node, InvokeNode.class);
+        this.mv.visitVarInsn(Opcodes.ALOAD, rator);
+        final Node[] args = node.args();
+        if (args.length <= MAX_FIXED_ARITY) {
+            // no argument list: call applyN(rator, a, ..., d)
+            StringBuffer desc = new StringBuffer("(L" + EXPR + ";");
+            for (Node arg : args) {
+                emit(arg);
+                desc.append("L" + EXPR + ";");
+            }
+            desc.append(")L" + EXPR + ";");
+            this.mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, site,
+                                    "apply" + args.length, desc.toString(),
+                                    false);
+            this.mv.visitLabel(end);
+            return;
+        }
+        this.mv.visitTypeInsn(Opcodes.NEW, SEQ);
+        this.mv.visitInsn(Opcodes.DUP);
+        this.mv.visitTypeInsn(Opcodes.NEW, "java/util/ArrayList");
+        this.mv.visitInsn(Opcodes.DUP);
+        this.mv.visitLdcInsn(args.length);
+        this.mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/util/ArrayList",
+                                "<init>", "(I)V", false);
+        this.mv.visitMethodInsn(Opcodes.INVOKESPECIAL, SEQ, "<init>",
+                                "(Ljava/util/List;)V", false);
+        for (Node arg : args) {
+            this.mv.visitInsn(Opcodes.DUP);
+            emit(arg);
+            this.mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, SEQ, "conj",
+                                    "(L" + EXPR + ";)V", false);
+        }
+        this.mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, site, "apply",
+                                "(L" + EXPR + ";L" + SEQ + ";)L"
+                                + EXPR + ";",
+                                false);
+        this.mv.visitLabel(end);
+    }
+}
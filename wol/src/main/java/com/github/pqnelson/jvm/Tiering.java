@@ -0,0 +1,109 @@
+package com.github.pqnelson.jvm;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * When to promote an interpreted function body to bytecode.
+ *
+ * <p>Every {@code fn*} starts out running its analyzed node tree. Each
+ * call bumps its invocation counter, and each tail call bouncing back
+ * into it, or trip around a {@code loop*} in its body, bumps its
+ * back-edge counter. Once either counter reaches its threshold, the
+ * body is compiled with the {@link BytecodeCompiler} and swapped in for
+ * later calls (a loop already running finishes interpreted). Code run
+ * only a handful of times at load never pays for compilation.</p>
+ *
+ * <p>The thresholds may be set with the {@code wol.tier.invocations} and
+ * {@code wol.tier.backEdges} system properties, and tiering turned off
+ * altogether with {@code -Dwol.tier=false}.</p>
+ */
+public final class Tiering {
+    public static boolean enabled =
+        !"false".equals(System.getProperty("wol.tier"));
+    public static int invocationThreshold =
+        Integer.getInteger("wol.tier.invocations", 1000);
+    public static int backEdgeThreshold =
+        Integer.getInteger("wol.tier.backEdges", 10000);
+
+    private static final List<Consumer<Promotion>> LISTENERS =
+        new CopyOnWriteArrayList<>();
+
+    private Tiering() { }
+
+    /**
+     * Why a function body was compiled.
+     */
+    public enum Reason {
+        /** The body was called often enough. */
+        INVOCATIONS,
+        /** The body looped often enough. */
+        BACK_EDGES,
+        /** The {@code BytecodeCompiler} compiles everything eagerly. */
+        EAGER
+    }
+
+    /**
+     * The event of promoting one function body to bytecode.
+     */
+    public static final class Promotion {
+        private final String name;
+        private final Reason reason;
+        private final int invocations;
+        private final int backEdges;
+
+        public Promotion(final String name,
+                         final Reason reason,
+                         final int invocations,
+                         final int backEdges) {
+            this.name = name;
+            this.reason = reason;
+            this.invocations = invocations;
+            this.backEdges = backEdges;
+        }
+
+        /**
+         * The name of the function, or the empty string when anonymous.
+         */
+        public String name() {
+            return this.name;
+        }
+
+        public Reason reason() {
+            return this.reason;
+        }
+
+        public int invocations() {
+            return this.invocations;
+        }
+
+        public int backEdges() {
+            return this.backEdges;
+        }
+
+        @Override
+        public String toString() {
+            return "Promotion[" + (this.name.isEmpty() ? "fn*" : this.name)
+                + ", " + this.reason + ", invocations=" + this.invocations
+                + ", backEdges=" + this.backEdges + "]";
+        }
+    }
+
+    public static void addListener(final Consumer<Promotion> listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static void removeListener(final Consumer<Promotion> listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Tell the listeners a function body has been compiled.
+     */
+    public static void promoted(final Promotion event) {
+        for (Consumer<Promotion> listener : LISTENERS) {
+            listener.accept(event);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+/**
+ * A backend compiling analyzed function bodies to JVM bytecode.
+ *
+ * <p>Compiled bodies are defined as hidden classes at runtime, and
+ * stand in for the interpreted node tree of the function.</p>
+ *
+ * @since 1.0
+ * @author Alex Nelson
+ * @version 1.0
+ */
+package com.github.pqnelson.jvm;
@@ -0,0 +1,147 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.expr.Expr;
+import com.github.pqnelson.expr.Fun;
+import com.github.pqnelson.expr.ITrampolined;
+import com.github.pqnelson.expr.Seq;
+import com.github.pqnelson.expr.TailCall;
+
+/**
+ * The implementation of an interpreted function method: its analyzed
+ * body together with the frame it closes over.
+ *
+ * <p>Calls in tail position of the body come back as {@link TailCall}
+ * objects, which the closure bounces (whether they are interpreted or
+ * native), so a chain of tail calls runs in constant stack.</p>
+ */
+public final class Closure implements ITrampolined {
+    private final FnNode method;
+    private final Frame env;
+    private final Fun self;
+
+    Closure(final FnNode method, final Frame env, final Fun self) {
+        this.method = method;
+        this.env = env;
+        this.self = self;
+    }
+
+    private Frame bind(final Seq args) {
+        final FnNode m = this.method;
+        Frame frame = new Frame(this.env, m.frameSize);
+        final Expr[] slots = frame.slots;
+        for (int i = 0; i < m.required; i++) {
+            slots[i] = args.get(i);
+        }
+        if (m.isVariadic) {
+            slots[m.required] = args.slice(m.required);
+        }
+        if (m.selfSlot >= 0) {
+            slots[m.selfSlot] = this.self;
+        }
+        return frame;
+    }
+
+    /**
+     * A frame for a call with a fixed number of arguments, to be stored
+     * by the caller, or {@code null} when this method takes some other
+     * number of them.
+     */
+    private Frame frameFor(final int arity) {
+        final FnNode m = this.method;
+        if (m.isVariadic || arity != m.required) {
+            return null;
+        }
+        Frame frame = new Frame(this.env, m.frameSize);
+        if (m.selfSlot >= 0) {
+            frame.slots[m.selfSlot] = this.self;
+        }
+        return frame;
+    }
+
+    /**
+     * Run the body in the given frame, bouncing any tail calls.
+     *
+     * <p>Bouncing into an interpreted body counts as a back edge of that
+     * body, for tiering.</p>
+     */
+    private Expr run(final Frame frame) throws Throwable {
+        Expr result = this.method.enter().eval(frame);
+        while (result instanceof TailCall) {
+            final TailCall call = (TailCall) result;
+            if (call.fn() instanceof Closure) {
+                final Closure callee = (Closure) call.fn();
+                result = callee.method.backEdge().eval(callee.bind(call.args()));
+            } else {
+                result = call.fn().invokeStep(call.args());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Expr invokeStep(final Seq args) throws Throwable {
+        return this.method.enter().eval(bind(args));
+    }
+
+    @Override
+    public Expr invoke(final Seq args) throws Throwable {
+        return run(bind(args));
+    }
+
+    @Override
+    public Expr invoke0() throws Throwable {
+        final Frame frame = frameFor(0);
+        if (null == frame) {
+            return invoke(Seq.of());
+        }
+        return run(frame);
+    }
+
+    @Override
+    public Expr invoke1(final Expr a) throws Throwable {
+        final Frame frame = frameFor(1);
+        if (null == frame) {
+            return invoke(Seq.of(a));
+        }
+        frame.slots[0] = a;
+        return run(frame);
+    }
+
+    @Override
+    public Expr invoke2(final Expr a, final Expr b) throws Throwable {
+        final Frame frame = frameFor(2);
+        if (null == frame) {
+            return invoke(Seq.of(a, b));
+        }
+        frame.slots[0] = a;
+        frame.slots[1] = b;
+        return run(frame);
+    }
+
+    @Override
+    public Expr invoke3(final Expr a, final Expr b, final Expr c)
+            throws Throwable {
+        final Frame frame = frameFor(3);
+        if (null == frame) {
+            return invoke(Seq.of(a, b, c));
+        }
+        frame.slots[0] = a;
+        frame.slots[1] = b;
+        frame.slots[2] = c;
+        return run(frame);
+    }
+
+    @Override
+    public Expr invoke4(final Expr a, final Expr b, final Expr c,
+                        final Expr d) throws Throwable {
+        final Frame frame = frameFor(4);
+        if (null == frame) {
+            return invoke(Seq.of(a, b, c, d));
+        }
+        frame.slots[0] = a;
+        frame.slots[1] = b;
+        frame.slots[2] = c;
+        frame.slots[3] = d;
+        return run(frame);
+    }
+}
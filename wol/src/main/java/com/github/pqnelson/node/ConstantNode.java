@@ -0,0 +1,28 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.expr.Expr;
+
+/**
+ * A self-evaluating form, or a quoted one.
+ */
+public final class ConstantNode extends Node {
+    private final Expr value;
+
+    public ConstantNode(final Expr value) {
+        this.value = value;
+    }
+
+    public Expr value() {
+        return this.value;
+    }
+
+    @Override
+    public Expr eval(final Frame frame) {
+        return this.value;
+    }
+
+    @Override
+    public boolean isConstant() {
+        return true;
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.Env;
+import com.github.pqnelson.expr.Expr;
+import com.github.pqnelson.expr.Symbol;
+
+/**
+ * The {@code (def name value)} special form.
+ */
+public final class DefNode extends Node {
+    private final Env env;
+    private final Symbol name;
+    private final Node value;
+
+    public DefNode(final Env env, final Symbol name, final Node value) {
+        this.env = env;
+        this.name = name;
+        this.value = value;
+    }
+
+    @Override
+    public Expr eval(final Frame frame) throws Throwable {
+        final Expr result = this.value.eval(frame);
+        this.env.set(this.name, result);
+        return result;
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.Env;
+import com.github.pqnelson.expr.Expr;
+import com.github.pqnelson.expr.Fun;
+import com.github.pqnelson.expr.Symbol;
+
+/**
+ * The {@code (defmacro name [params] body)} special form.
+ */
+public final class DefmacroNode extends Node {
+    private final Env env;
+    private final Symbol name;
+    private final FnNode fn;
+
+    public DefmacroNode(final Env env, final Symbol name, final FnNode fn) {
+        this.env = env;
+        this.name = name;
+        this.fn = fn;
+    }
+
+    @Override
+    public Expr eval(final Frame frame) throws Throwable {
+        Fun macro = (Fun) this.fn.eval(frame);
+        macro.setMacro();
+        this.env.set(this.name, macro);
+        return macro;
+    }
+}
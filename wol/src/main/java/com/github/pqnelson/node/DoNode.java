@@ -0,0 +1,31 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.expr.Expr;
+
+/**
+ * The {@code (do body...)} special form: evaluate every form in order,
+ * returning the value of the last one.
+ *
+ * <p>The analyzer never produces an empty {@code DoNode}, since
+ * {@code (do)} is just {@code nil}.</p>
+ */
+public final class DoNode extends Node {
+    private final Node[] body;
+
+    public DoNode(final Node[] body) {
+        this.body = body;
+    }
+
+    public Node[] body() {
+        return this.body;
+    }
+
+    @Override
+    public Expr eval(final Frame frame) throws Throwable {
+        final int last = this.body.length - 1;
+        for (int i = 0; i < last; i++) {
+            this.body[i].eval(frame);
+        }
+        return this.body[last].eval(frame);
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.expr.Expr;
+import com.github.pqnelson.expr.Fun;
+import com.github.pqnelson.expr.Transaction;
+
+/**
+ * The {@code (dosync body...)} special form.
+ *
+ * <p>The body is a function of no arguments, run in a transaction, and
+ * run again should the transaction conflict with another.</p>
+ */
+public final class DosyncNode extends Node {
+    private final FnNode fn;
+
+    public DosyncNode(final FnNode fn) {
+        this.fn = fn;
+    }
+
+    @Override
+    public Expr eval(final Frame frame) throws Throwable {
+        final Fun body = (Fun) this.fn.eval(frame);
+        return Transaction.run(body::invoke);
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.Analyzer;
+import com.github.pqnelson.Env;
+import com.github.pqnelson.expr.Expr;
+import com.github.pqnelson.expr.Seq;
+import com.github.pqnelson.expr.Symbol;
+
+/**
+ * A call site whose operator was a global macro when it was analyzed.
+ *
+ * <p>The expansion is analyzed once, and reused until the macro is
+ * redefined. Rather than look the macro up again every time, the site
+ * remembers the {@linkplain Env#bindingEpoch() binding epoch} of the
+ * environment: as long as no macro has been bound since, the expansion
+ * is still good. When the epoch moves on, the site checks whether its
+ * own macro changed, and expands the form again if so.</p>
+ */
+public final class ExpansionNode extends Node {
+    private final Env env;
+    private final Symbol name;
+    private final Seq form;
+    private final Analyzer.Context context;
+    private volatile Expansion expansion;
+
+    /**
+     * The expansion for one definition of the macro.
+     */
+    private static final class Expansion {
+        final Expr macro;
+        final Node node;
+        final long epoch;
+
+        Expansion(final Expr macro, final Node node, final long epoch) {
+            this.macro = macro;
+            this.node = node;
+            this.epoch = epoch;
+        }
+    }
+
+    public ExpansionNode(final Env env,
+                         final Seq form,
+                         final Analyzer.Context context,
+                         final Expr macro,
+                         final Node node,
+                         final long epoch) {
+        this.env = env;
+        this.name = (Symbol) form.first();
+        this.form = form;
+        this.context = context;
+        this.expansion = new Expansion(macro, node, epoch);
+    }
+
+    /**
+     * The analyzed expansion, as of the last check.
+     */
+    public Node node() {
+        return this.expansion.node;
+    }
+
+    /**
+     * The expansion for the current definition of the macro.
+     */
+    private Node current() throws Throwable {
+        final Expansion e = this.expansion;
+        final long epoch = this.env.bindingEpoch();
+        if (epoch == e.epoch) {
+            return e.node;
+        }
+        final Env scope = this.env.find(this.name);
+        final Expr macro = (null == scope ? null : scope.get(this.name));
+        if (macro == e.macro) {
+            this.expansion = new Expansion(macro, e.node, epoch);
+            return e.node;
+        }
+        // redefined: the form may not even be a macro call any more
+        final Node node = this.context.analyze(this.form);
+        this.expansion = new Expansion(macro, node, epoch);
+        return node;
+    }
+
+    /**
+     * Whether the site still expands to the given node, checking the
+     * macro again if the epoch has moved; compiled code which inlined an
+     * expansion asks this before running it.
+     */
+    public boolean expandsTo(final Node node) throws Throwable {
+        return node == current();
+    }
+
+    @Override
+    public Expr eval(final Frame frame) throws Throwable {
+        return current().eval(frame);
+    }
+}
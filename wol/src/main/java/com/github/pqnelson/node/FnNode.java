@@ -0,0 +1,125 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.expr.Expr;
+import com.github.pqnelson.expr.Fun;
+import com.github.pqnelson.expr.Symbol;
+import com.github.pqnelson.expr.Vector;
+import com.github.pqnelson.jvm.BytecodeCompiler;
+import com.github.pqnelson.jvm.Tiering;
+
+/**
+ * The {@code (fn* name? [params] body...)} special form.
+ *
+ * <p>Evaluating this node allocates a fresh {@code Fun} closing over the
+ * current frame. Each call allocates one frame of {@code frameSize}
+ * slots: the parameters come first, in order (with the rest parameter
+ * of a variadic function bound to a list), then the function's own name
+ * when it has one, then the locals of its body.</p>
+ *
+ * <p>The body starts out interpreted. The node counts calls and loops
+ * through it (in its {@link Profile}), and swaps in a compiled body once {@link Tiering} says
+ * it is hot; every closure made from this node shares the counters
+ * and the compiled body.</p>
+ */
+public final class FnNode extends Node {
+    private final Symbol name;
+    private final Vector params;
+    /** The source of the body, kept for printing and equality. */
+    private final Expr body;
+    private volatile Node bodyNode;
+    private volatile boolean isCompiled = false;
+    /** Shared with the loops in the body. */
+    private final Profile profile;
+    /** Number of parameters preceding the {@code &}, if any. */
+    final int required;
+    final boolean isVariadic;
+    final int frameSize;
+    /** The slot holding the function itself, or -1 when anonymous. */
+    final int selfSlot;
+    /**
+     * Whether the closure gets a copy of the current frame, because a
+     * {@code recur} will overwrite the slots it refers to.
+     */
+    private boolean snapshotsFrame = false;
+
+    public FnNode(final Symbol name,
+                  final Vector params,
+                  final Expr body,
+                  final Node bodyNode,
+                  final int frameSize,
+                  final int selfSlot,
+                  final Profile profile) {
+        this.name = name;
+        this.params = params;
+        this.body = body;
+        this.bodyNode = bodyNode;
+        this.isVariadic = params.contains(new Symbol("&"));
+        this.required = params.size() - (this.isVariadic ? 2 : 0);
+        this.frameSize = frameSize;
+        this.selfSlot = selfSlot;
+        this.profile = profile;
+        if (BytecodeCompiler.enabled) {
+            promote(Tiering.Reason.EAGER);
+        }
+    }
+
+    /**
+     * Close over a copy of the frame, rather than the frame itself.
+     */
+    public void snapshotFrame() {
+        this.snapshotsFrame = true;
+    }
+
+    public boolean isCompiled() {
+        return this.isCompiled;
+    }
+
+    /**
+     * The body to run for a fresh call.
+     */
+    Node enter() {
+        if (!this.isCompiled && Tiering.enabled) {
+            if (++this.profile.invocations >= Tiering.invocationThreshold) {
+                promote(Tiering.Reason.INVOCATIONS);
+            } else if (this.profile.backEdges >= Tiering.backEdgeThreshold) {
+                // looped enough in an earlier call
+                promote(Tiering.Reason.BACK_EDGES);
+            }
+        }
+        return this.bodyNode;
+    }
+
+    /**
+     * The body to run when a tail call bounces back into it.
+     */
+    Node backEdge() {
+        if (!this.isCompiled && Tiering.enabled
+                && ++this.profile.backEdges >= Tiering.backEdgeThreshold) {
+            promote(Tiering.Reason.BACK_EDGES);
+        }
+        return this.bodyNode;
+    }
+
+    private synchronized void promote(final Tiering.Reason reason) {
+        if (this.isCompiled) {
+            return;
+        }
+        this.bodyNode = BytecodeCompiler.compile(this.bodyNode);
+        this.isCompiled = true;
+        Tiering.promoted(new Tiering.Promotion(
+            (null == this.name ? "" : this.name.name()),
+            reason, this.profile.invocations, this.profile.backEdges));
+    }
+
+    @Override
+    public Expr eval(final Frame frame) {
+        final Frame env = (this.snapshotsFrame ? frame.copy() : frame);
+        if (null == this.name) {
+            return new Fun(new Closure(this, env, null),
+                           this.params, this.body, null);
+        }
+        Fun fn = new Fun(this.name);
+        fn.addMethod(new Closure(this, env, fn), this.params, this.body);
+        return fn;
+    }
+}
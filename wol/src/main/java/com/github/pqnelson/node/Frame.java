@@ -0,0 +1,42 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.expr.Expr;
+
+/**
+ * The local bindings for one activation of a function body.
+ *
+ * <p>The analyzer resolves every local variable to a pair
+ * {@code (depth, slot)}: follow {@code outer} {@code depth} times, then
+ * index into {@code slots}. Parameters, {@code let*} bindings, and
+ * {@code catch} bindings of a function body all share its one frame.</p>
+ */
+public final class Frame {
+    public final Frame outer;
+    public final Expr[] slots;
+
+    public Frame(final Frame outer, final int size) {
+        this.outer = outer;
+        this.slots = new Expr[size];
+    }
+
+    private Frame(final Frame outer, final Expr[] slots) {
+        this.outer = outer;
+        this.slots = slots;
+    }
+
+    /**
+     * A frame with the same bindings as this one now, which later
+     * changes to this one will not touch.
+     */
+    public Frame copy() {
+        return new Frame(this.outer, this.slots.clone());
+    }
+
+    public Frame up(final int depth) {
+        Frame f = this;
+        for (int d = depth; d > 0; d--) {
+            f = f.outer;
+        }
+        return f;
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.expr.Expr;
+
+/**
+ * Run a node in a fresh frame of the given size.
+ *
+ * <p>Used for top-level forms which bind locals outside any function.</p>
+ */
+public final class FrameNode extends Node {
+    private final int size;
+    private final Node body;
+
+    public FrameNode(final int size, final Node body) {
+        this.size = size;
+        this.body = body;
+    }
+
+    @Override
+    public Expr eval(final Frame frame) throws Throwable {
+        return this.body.eval(new Frame(frame, this.size));
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.expr.Expr;
+import com.github.pqnelson.expr.Fun;
+import com.github.pqnelson.expr.Future;
+
+/**
+ * The {@code (future body...)} special form.
+ *
+ * <p>The body is a function of no arguments, made afresh each time the
+ * form is evaluated and submitted at once to run on another thread.</p>
+ */
+public final class FutureNode extends Node {
+    private final FnNode fn;
+
+    public FutureNode(final FnNode fn) {
+        this.fn = fn;
+    }
+
+    @Override
+    public Expr eval(final Frame frame) throws Throwable {
+        final Fun body = (Fun) this.fn.eval(frame);
+        return new Future(body::invoke);
+    }
+}
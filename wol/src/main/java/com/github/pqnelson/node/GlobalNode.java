@@ -0,0 +1,53 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.Env;
+import com.github.pqnelson.Var;
+import com.github.pqnelson.expr.Expr;
+import com.github.pqnelson.expr.Symbol;
+
+/**
+ * A reference to a global variable.
+ *
+ * <p>Once the variable is defined its {@link Var} is kept, so reading
+ * it after that is a single volatile read, with no lookup. Only a var
+ * of the environment itself is kept: one found in an enclosing
+ * environment could later be shadowed.</p>
+ */
+public final class GlobalNode extends Node {
+    private final Env env;
+    private final Symbol name;
+    private Var var = null;
+
+    public GlobalNode(final Env env, final Symbol name) {
+        this.env = env;
+        this.name = name;
+    }
+
+    public Env env() {
+        return this.env;
+    }
+
+    public Symbol name() {
+        return this.name;
+    }
+
+    /**
+     * The current value of the variable.
+     */
+    public Expr value() {
+        Var v = this.var;
+        if (null == v) {
+            v = this.env.localVar(this.name);
+            if (null == v) {
+                return this.env.get(this.name);
+            }
+            this.var = v;
+        }
+        return v.get();
+    }
+
+    @Override
+    public Expr eval(final Frame frame) {
+        return this.value();
+    }
+}
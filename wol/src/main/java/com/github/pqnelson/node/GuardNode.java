@@ -0,0 +1,110 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.Env;
+import com.github.pqnelson.expr.Expr;
+import com.github.pqnelson.expr.Symbol;
+
+/**
+ * Code the analyzer specialized, assuming some globals keep their
+ * current values.
+ *
+ * <p>A call to a pure function over constants is folded to its value,
+ * and an {@code if} on such a call to one branch, but only as long as
+ * the function named is still the one called at analysis. The guard
+ * runs the specialized code while the {@linkplain Env#bindingEpoch()
+ * binding epoch} stays put; when it moves, the guard checks its
+ * assumptions again, and if one was broken falls back to the general
+ * code for good.</p>
+ */
+public final class GuardNode extends Node {
+    private final Env env;
+    private final Symbol[] names;
+    private final Expr[] values;
+    private final Node fast;
+    private final Node slow;
+    /** The epoch the assumptions are known to hold for, or -1. */
+    private volatile long epoch;
+
+    public GuardNode(final Env env,
+                     final Symbol[] names,
+                     final Expr[] values,
+                     final long epoch,
+                     final Node fast,
+                     final Node slow) {
+        this.env = env;
+        this.names = names;
+        this.values = values;
+        this.epoch = epoch;
+        this.fast = fast;
+        this.slow = slow;
+    }
+
+    public long epoch() {
+        return this.epoch;
+    }
+
+    /**
+     * The names of the globals assumed unchanged.
+     */
+    public Symbol[] names() {
+        return this.names;
+    }
+
+    /**
+     * The values assumed for the globals, in the order of
+     * {@link #names()}.
+     */
+    public Expr[] values() {
+        return this.values;
+    }
+
+    /**
+     * The specialized code.
+     */
+    public Node fast() {
+        return this.fast;
+    }
+
+    /**
+     * The code to run once an assumption is broken.
+     */
+    public Node slow() {
+        return this.slow;
+    }
+
+    private boolean holds(final long current) {
+        final long e = this.epoch;
+        if (current == e) {
+            return true;
+        }
+        if (-1 == e) {
+            return false;
+        }
+        for (int i = 0; i < this.names.length; i++) {
+            final Env scope = this.env.find(this.names[i]);
+            if (null == scope || scope.get(this.names[i]) != this.values[i]) {
+                this.epoch = -1;
+                return false;
+            }
+        }
+        this.epoch = current;
+        return true;
+    }
+
+    /**
+     * Whether the assumptions still hold, checking them again if the
+     * epoch has moved; compiled code which inlined the specialized code
+     * asks this before running it.
+     */
+    public boolean holds() {
+        return holds(this.env.bindingEpoch());
+    }
+
+    @Override
+    public Expr eval(final Frame frame) throws Throwable {
+        if (holds()) {
+            return this.fast.eval(frame);
+        }
+        return this.slow.eval(frame);
+    }
+}
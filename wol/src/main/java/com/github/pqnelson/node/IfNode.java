@@ -0,0 +1,41 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.expr.Expr;
+import com.github.pqnelson.expr.Literal;
+
+/**
+ * The {@code (if test true-branch false-branch?)} special form.
+ */
+public final class IfNode extends Node {
+    private final Node test;
+    private final Node trueBranch;
+    private final Node falseBranch;
+
+    public IfNode(final Node test,
+                  final Node trueBranch,
+                  final Node falseBranch) {
+        this.test = test;
+        this.trueBranch = trueBranch;
+        this.falseBranch = falseBranch;
+    }
+
+    public Node test() {
+        return this.test;
+    }
+
+    public Node trueBranch() {
+        return this.trueBranch;
+    }
+
+    public Node falseBranch() {
+        return this.falseBranch;
+    }
+
+    @Override
+    public Expr eval(final Frame frame) throws Throwable {
+        if (Literal.isFalsy(this.test.eval(frame))) {
+            return this.falseBranch.eval(frame);
+        }
+        return this.trueBranch.eval(frame);
+    }
+}
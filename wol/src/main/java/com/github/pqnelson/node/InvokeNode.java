@@ -0,0 +1,206 @@
+package com.github.pqnelson.node;
+
+import java.util.ArrayList;
+
+import com.github.pqnelson.Analyzer;
+import com.github.pqnelson.expr.Expr;
+import com.github.pqnelson.expr.Fun;
+import com.github.pqnelson.expr.IFn;
+import com.github.pqnelson.expr.ITrampolined;
+import com.github.pqnelson.expr.Seq;
+import com.github.pqnelson.expr.TailCall;
+
+/**
+ * A function call site.
+ *
+ * <p>When the call is in tail position and the callee is trampolined
+ * (interpreted functions are), we hand back a {@link TailCall} rather
+ * than growing the Java stack.</p>
+ */
+public final class InvokeNode extends Node {
+    private final Node fn;
+    private final Node[] args;
+    private final boolean isTail;
+    /**
+     * The source form and its lexical context, in case the operator
+     * turns out to be a macro defined after this call site was analyzed.
+     */
+    private final Seq form;
+    private final Analyzer.Context context;
+    /**
+     * The method of the last function called here, for our arity.
+     * Once a second function shows up the site is megamorphic, and we
+     * stop caching.
+     */
+    private CallCache cache = UNCACHED;
+    /**
+     * The expansion of this site by the last macro its operator turned
+     * out to be. Macros used by the expansion itself check for their own
+     * redefinition, so the macro alone is the key.
+     */
+    private volatile MacroCache expansion = null;
+
+    private static final class MacroCache {
+        final Expr macro;
+        final Node node;
+
+        MacroCache(final Expr macro, final Node node) {
+            this.macro = macro;
+            this.node = node;
+        }
+    }
+
+    private static final class CallCache {
+        final Fun fn;
+        final IFn method;
+
+        CallCache(final Fun fn, final IFn method) {
+            this.fn = fn;
+            this.method = method;
+        }
+    }
+
+    private static final CallCache UNCACHED = new CallCache(null, null);
+    private static final CallCache MEGAMORPHIC = new CallCache(null, null);
+
+    public InvokeNode(final Node fn,
+                      final Node[] args,
+                      final boolean isTail,
+                      final Seq form,
+                      final Analyzer.Context context) {
+        this.fn = fn;
+        this.args = args;
+        this.isTail = isTail;
+        this.form = form;
+        this.context = context;
+    }
+
+    public Node fn() {
+        return this.fn;
+    }
+
+    public Node[] args() {
+        return this.args;
+    }
+
+    private Seq evalArgs(final Frame frame) throws Throwable {
+        Seq result = new Seq(new ArrayList<Expr>(this.args.length));
+        for (Node arg : this.args) {
+            result.conj(arg.eval(frame));
+        }
+        return result;
+    }
+
+    /**
+     * Expand this call site with the macro its operator evaluated to,
+     * and evaluate the expansion in its place.
+     *
+     * <p>The expansion is only made once per definition of the macro.</p>
+     */
+    public Expr expand(final Frame frame, final Expr macro) throws Throwable {
+        MacroCache c = this.expansion;
+        if (null == c || macro != c.macro) {
+            final Expr expansion = ((Fun) macro).invoke(this.form.slice(1));
+            c = new MacroCache(macro, this.context.analyze(expansion));
+            this.expansion = c;
+        }
+        return c.node.eval(frame);
+    }
+
+    /**
+     * Find the method of the function to call with the given number of
+     * arguments, consulting the cache first.
+     */
+    private IFn resolve(final Expr rator, final int arity) {
+        final CallCache c = this.cache;
+        if (rator == c.fn) {
+            return c.method;
+        }
+        final IFn method = ((Fun) rator).getIFn(arity);
+        this.cache = (UNCACHED == c
+                      ? new CallCache((Fun) rator, method)
+                      : MEGAMORPHIC);
+        return method;
+    }
+
+    /**
+     * Call the operator on the evaluated arguments, deferring the call
+     * when it is in tail position and the callee is trampolined.
+     */
+    public Expr apply(final Expr rator, final Seq values) throws Throwable {
+        final IFn f = resolve(rator, values.size());
+        if (this.isTail && f instanceof ITrampolined) {
+            return new TailCall((ITrampolined) f, values);
+        }
+        return f.invoke(values);
+    }
+
+    /*
+     * Calls with at most four arguments skip the argument list, unless
+     * they have to hand it to a TailCall.
+     */
+
+    public Expr apply0(final Expr rator) throws Throwable {
+        final IFn f = resolve(rator, 0);
+        if (this.isTail && f instanceof ITrampolined) {
+            return new TailCall((ITrampolined) f, Seq.of());
+        }
+        return f.invoke0();
+    }
+
+    public Expr apply1(final Expr rator, final Expr a) throws Throwable {
+        final IFn f = resolve(rator, 1);
+        if (this.isTail && f instanceof ITrampolined) {
+            return new TailCall((ITrampolined) f, Seq.of(a));
+        }
+        return f.invoke1(a);
+    }
+
+    public Expr apply2(final Expr rator, final Expr a, final Expr b)
+            throws Throwable {
+        final IFn f = resolve(rator, 2);
+        if (this.isTail && f instanceof ITrampolined) {
+            return new TailCall((ITrampolined) f, Seq.of(a, b));
+        }
+        return f.invoke2(a, b);
+    }
+
+    public Expr apply3(final Expr rator, final Expr a, final Expr b,
+                       final Expr c) throws Throwable {
+        final IFn f = resolve(rator, 3);
+        if (this.isTail && f instanceof ITrampolined) {
+            return new TailCall((ITrampolined) f, Seq.of(a, b, c));
+        }
+        return f.invoke3(a, b, c);
+    }
+
+    public Expr apply4(final Expr rator, final Expr a, final Expr b,
+                       final Expr c, final Expr d) throws Throwable {
+        final IFn f = resolve(rator, 4);
+        if (this.isTail && f instanceof ITrampolined) {
+            return new TailCall((ITrampolined) f, Seq.of(a, b, c, d));
+        }
+        return f.invoke4(a, b, c, d);
+    }
+
+    @Override
+    public Expr eval(final Frame frame) throws Throwable {
+        final Expr rator = this.fn.eval(frame);
+        if (rator.isMacro()) {
+            return expand(frame, rator);
+        }
+        final Node[] a = this.args;
+        switch (a.length) {
+        case 0: return apply0(rator);
+        case 1: return apply1(rator, a[0].eval(frame));
+        case 2: return apply2(rator, a[0].eval(frame), a[1].eval(frame));
+        case 3:
+            return apply3(rator, a[0].eval(frame), a[1].eval(frame),
+                          a[2].eval(frame));
+        case 4:
+            return apply4(rator, a[0].eval(frame), a[1].eval(frame),
+                          a[2].eval(frame), a[3].eval(frame));
+        default: return apply(rator, evalArgs(frame));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.expr.Expr;
+import com.github.pqnelson.expr.Fun;
+import com.github.pqnelson.expr.LazySeq;
+
+/**
+ * The {@code (lazy-seq body...)} special form.
+ *
+ * <p>The body is a function of no arguments, made afresh each time the
+ * form is evaluated and called at most once, when the list is first
+ * looked at.</p>
+ */
+public final class LazySeqNode extends Node {
+    private final FnNode fn;
+
+    public LazySeqNode(final FnNode fn) {
+        this.fn = fn;
+    }
+
+    @Override
+    public Expr eval(final Frame frame) throws Throwable {
+        final Fun body = (Fun) this.fn.eval(frame);
+        return new LazySeq(body::invoke);
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.expr.Expr;
+
+/**
+ * The {@code (let* [name init ...] body...)} special form.
+ *
+ * <p>The bindings live in slots of the enclosing frame, so a
+ * {@code let*} allocates nothing. Each binding is evaluated in turn, so
+ * later bindings see earlier ones.</p>
+ */
+public final class LetNode extends Node {
+    private final int[] slots;
+    private final Node[] inits;
+    private final Node body;
+    /**
+     * Whether some reference looks at a binding before it is bound; then
+     * the slots must start out empty each time, so the reference falls
+     * back to the outer binding.
+     */
+    private final boolean clearsSlots;
+
+    public LetNode(final int[] slots,
+                   final Node[] inits,
+                   final Node body,
+                   final boolean clearsSlots) {
+        this.slots = slots;
+        this.inits = inits;
+        this.body = body;
+        this.clearsSlots = clearsSlots;
+    }
+
+    public int[] slots() {
+        return this.slots;
+    }
+
+    public Node[] inits() {
+        return this.inits;
+    }
+
+    public Node body() {
+        return this.body;
+    }
+
+    public boolean clearsSlots() {
+        return this.clearsSlots;
+    }
+
+    @Override
+    public Expr eval(final Frame frame) throws Throwable {
+        final Expr[] locals = frame.slots;
+        if (this.clearsSlots) {
+            for (int slot : this.slots) {
+                locals[slot] = null;
+            }
+        }
+        for (int i = 0; i < this.slots.length; i++) {
+            locals[this.slots[i]] = this.inits[i].eval(frame);
+        }
+        return this.body.eval(frame);
+    }
+}
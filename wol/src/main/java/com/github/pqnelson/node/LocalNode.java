@@ -0,0 +1,44 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.expr.Expr;
+
+/**
+ * A reference to a local variable, resolved to {@code (depth, slot)}.
+ *
+ * <p>A {@code let*} binding may be referred to before it is bound, e.g.,
+ * by a closure created in an earlier binding. Such references carry a
+ * fallback node, consulted while the slot is still empty, which resolves
+ * the symbol as though the pending binding did not exist.</p>
+ */
+public final class LocalNode extends Node {
+    private final int depth;
+    private final int slot;
+    private final Node fallback;
+
+    public LocalNode(final int depth, final int slot, final Node fallback) {
+        this.depth = depth;
+        this.slot = slot;
+        this.fallback = fallback;
+    }
+
+    public int depth() {
+        return this.depth;
+    }
+
+    public int slot() {
+        return this.slot;
+    }
+
+    public Node fallback() {
+        return this.fallback;
+    }
+
+    @Override
+    public Expr eval(final Frame frame) throws Throwable {
+        final Expr result = frame.up(this.depth).slots[this.slot];
+        if (null == result && null != this.fallback) {
+            return this.fallback.eval(frame);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.expr.Expr;
+
+/**
+ * The {@code (loop* [name init ...] body...)} special form.
+ *
+ * <p>The bindings work as in {@code let*}. When the body evaluates to
+ * {@link RecurNode#RECUR}, a {@code recur} in tail position has already
+ * stored the new values in the slots, and the body runs again.</p>
+ *
+ * <p>A {@code fn*} whose body recurs is wrapped in a loop with no
+ * bindings, since the parameters are already bound.</p>
+ */
+public final class LoopNode extends Node {
+    private final int[] slots;
+    private final Node[] inits;
+    private final Node body;
+    private final boolean clearsSlots;
+    private final Profile profile;
+
+    public LoopNode(final int[] slots,
+                    final Node[] inits,
+                    final Node body,
+                    final boolean clearsSlots,
+                    final Profile profile) {
+        this.slots = slots;
+        this.inits = inits;
+        this.body = body;
+        this.clearsSlots = clearsSlots;
+        this.profile = profile;
+    }
+
+    public int[] slots() {
+        return this.slots;
+    }
+
+    public Node[] inits() {
+        return this.inits;
+    }
+
+    public Node body() {
+        return this.body;
+    }
+
+    public boolean clearsSlots() {
+        return this.clearsSlots;
+    }
+
+    @Override
+    public Expr eval(final Frame frame) throws Throwable {
+        final Expr[] locals = frame.slots;
+        if (this.clearsSlots) {
+            for (int slot : this.slots) {
+                locals[slot] = null;
+            }
+        }
+        for (int i = 0; i < this.slots.length; i++) {
+            locals[this.slots[i]] = this.inits[i].eval(frame);
+        }
+        Expr result = this.body.eval(frame);
+        while (RecurNode.RECUR == result) {
+            this.profile.backEdges++;
+            result = this.body.eval(frame);
+        }
+        return result;
+    }
+}
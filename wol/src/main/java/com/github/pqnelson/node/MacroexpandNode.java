@@ -0,0 +1,26 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.Env;
+import com.github.pqnelson.Evaluator;
+import com.github.pqnelson.expr.Expr;
+
+/**
+ * The {@code (macroexpand form)} special form.
+ *
+ * <p>The expansion happens when the node runs, against the macros bound
+ * at that moment.</p>
+ */
+public final class MacroexpandNode extends Node {
+    private final Env env;
+    private final Expr form;
+
+    public MacroexpandNode(final Env env, final Expr form) {
+        this.env = env;
+        this.form = form;
+    }
+
+    @Override
+    public Expr eval(final Frame frame) throws Throwable {
+        return Evaluator.macroexpand(this.form, this.env);
+    }
+}
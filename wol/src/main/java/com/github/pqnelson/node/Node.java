@@ -0,0 +1,25 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.expr.Expr;
+
+/**
+ * An analyzed form, ready to be executed.
+ *
+ * <p>Nodes in tail position may return a
+ * {@link com.github.pqnelson.expr.TailCall} instead of a value; the {@link Closure} running the enclosing function body is
+ * responsible for bouncing it. Every other node returns a genuine
+ * {@code Expr}.</p>
+ */
+public abstract class Node {
+    /**
+     * Execute the node in the given frame of local bindings.
+     *
+     * @param frame The innermost frame of locals, possibly {@code null}.
+     * @return The value of the form.
+     */
+    public abstract Expr eval(final Frame frame) throws Throwable;
+
+    public boolean isConstant() {
+        return false;
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.pqnelson.node;
+
+/**
+ * How often a function body has been run, for {@link
+ * com.github.pqnelson.jvm.Tiering}.
+ *
+ * <p>A function and the loops in its body share one profile: a call
+ * counts as an invocation, and each trip back to the top of a
+ * {@code loop*} (or a tail call into the function itself) counts as a
+ * back edge.</p>
+ *
+ * <p>The counters are not synchronized: a lost update only delays the
+ * promotion by a call or two.</p>
+ */
+public final class Profile {
+    int invocations = 0;
+    int backEdges = 0;
+
+    public int invocations() {
+        return this.invocations;
+    }
+
+    public int backEdges() {
+        return this.backEdges;
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.expr.Expr;
+import com.github.pqnelson.expr.Visitor;
+
+/**
+ * The {@code (recur arg ...)} special form.
+ *
+ * <p>Stores the new values in the slots of the enclosing
+ * {@code loop*} (or the parameters of the enclosing {@code fn*}), then
+ * returns {@link #RECUR} so the loop runs its body again. The analyzer
+ * only allows a recur in tail position, so nothing else ever sees the
+ * sentinel.</p>
+ *
+ * <p>Every argument is evaluated before any slot is assigned, so
+ * {@code (recur b a)} swaps. The values are staged in temporary slots
+ * of the current frame instead of a fresh array.</p>
+ */
+public final class RecurNode extends Node {
+    /**
+     * What a recur evaluates to, telling the loop to go around again.
+     */
+    public static final Expr RECUR = new Recur();
+
+    private static final class Recur extends Expr {
+        @Override
+        public <T> T accept(final Visitor<T> visitor) {
+            throw new UnsupportedOperationException("recur outside loop");
+        }
+
+        @Override
+        public Expr clone() {
+            return this;
+        }
+    }
+
+    private final int depth;
+    private final int[] slots;
+    private final Node[] args;
+    /** Where to stage the values, or null for at most one argument. */
+    private final int[] temps;
+
+    public RecurNode(final int depth,
+                     final int[] slots,
+                     final Node[] args,
+                     final int[] temps) {
+        this.depth = depth;
+        this.slots = slots;
+        this.args = args;
+        this.temps = temps;
+    }
+
+    public int depth() {
+        return this.depth;
+    }
+
+    public int[] slots() {
+        return this.slots;
+    }
+
+    public Node[] args() {
+        return this.args;
+    }
+
+    @Override
+    public Expr eval(final Frame frame) throws Throwable {
+        final Expr[] target = frame.up(this.depth).slots;
+        if (null == this.temps) {
+            if (1 == this.args.length) {
+                target[this.slots[0]] = this.args[0].eval(frame);
+            }
+            return RECUR;
+        }
+        final Expr[] locals = frame.slots;
+        for (int i = 0; i < this.args.length; i++) {
+            locals[this.temps[i]] = this.args[i].eval(frame);
+        }
+        for (int i = 0; i < this.args.length; i++) {
+            target[this.slots[i]] = locals[this.temps[i]];
+        }
+        return RECUR;
+    }
+}
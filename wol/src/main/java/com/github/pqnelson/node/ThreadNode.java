@@ -0,0 +1,27 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.expr.Chan;
+import com.github.pqnelson.expr.Expr;
+import com.github.pqnelson.expr.Fun;
+
+/**
+ * The {@code (go body...)} and {@code (thread body...)} special forms,
+ * which are the same here.
+ *
+ * <p>The body is a function of no arguments, run at once on another
+ * thread, a virtual one where the JVM has them. The value is a channel
+ * which receives the body's value when it is done.</p>
+ */
+public final class ThreadNode extends Node {
+    private final FnNode fn;
+
+    public ThreadNode(final FnNode fn) {
+        this.fn = fn;
+    }
+
+    @Override
+    public Expr eval(final Frame frame) throws Throwable {
+        final Fun body = (Fun) this.fn.eval(frame);
+        return Chan.thread(body::invoke);
+    }
+}
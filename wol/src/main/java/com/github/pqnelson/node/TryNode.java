@@ -0,0 +1,40 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.expr.Expr;
+import com.github.pqnelson.expr.Str;
+import com.github.pqnelson.expr.TailCall;
+import com.github.pqnelson.expr.Transaction;
+
+/**
+ * The {@code (try body... (catch e catch-body...))} special form.
+ *
+ * <p>The handler must stay installed while the body runs, so tail calls
+ * in the body are bounced right here, inside the handler, rather than
+ * by the caller. The catch body is in tail position proper. The
+ * exception is bound to its message, as a string, in a slot of the
+ * enclosing frame. A transaction's retry is never caught, so a body
+ * inside {@code dosync} still runs again on conflict.</p>
+ */
+public final class TryNode extends Node {
+    private final Node body;
+    private final int slot;
+    private final Node catchBody;
+
+    public TryNode(final Node body, final int slot, final Node catchBody) {
+        this.body = body;
+        this.slot = slot;
+        this.catchBody = catchBody;
+    }
+
+    @Override
+    public Expr eval(final Frame frame) throws Throwable {
+        try {
+            return TailCall.trampoline(this.body.eval(frame));
+        } catch (Transaction.Retry e) {
+            throw e;
+        } catch (Throwable e) {
+            frame.slots[this.slot] = new Str(e.getMessage());
+            return this.catchBody.eval(frame);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.pqnelson.node;
+
+import com.github.pqnelson.expr.Expr;
+import com.github.pqnelson.expr.Vector;
+
+/**
+ * A vector literal whose entries are evaluated.
+ */
+public final class VectorNode extends Node {
+    private final Node[] items;
+
+    public VectorNode(final Node[] items) {
+        this.items = items;
+    }
+
+    @Override
+    public Expr eval(final Frame frame) throws Throwable {
+        Vector result = new Vector();
+        for (Node item : this.items) {
+            result.conj(item.eval(frame));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * Executable node trees produced by the {@code Analyzer}.
+ *
+ * <p>Each top-level form is analyzed once into a tree of {@code Node}
+ * objects, with special forms, call sites, literals, and symbol
+ * references classified up front. Evaluation then walks the tree without
+ * re-inspecting the raw {@code Seq}.</p>
+ *
+ * @since 1.0
+ * @author Alex Nelson
+ * @version 1.0
+ */
+package com.github.pqnelson.node;
@@ -68,8 +68,8 @@ public class AccumulatorReaderMacro<E extends Expr & IObj<E>>
 
     private Map metadata(int line, int offset) {
         HashMap<Expr, Expr> meta = new HashMap<>();
-        meta.put(new Str("line"), new Int(line));
-        meta.put(new Str("offset"), new Int(offset));
+        meta.put(new Str("line"), Int.valueOf(line));
+        meta.put(new Str("offset"), Int.valueOf(offset));
         Map result = new Map(meta);
         assert (null != result);
         return result;
@@ -229,11 +229,14 @@ public class NumberReader extends AbstractReader {
      */
     final Expr floatingPointNumber() {
         boolean mustParseAsFloat = floatMantissa();
+        if (!mustParseAsFloat && isJavascriptBigintSuffix()) {
+            return decimalBigInt();
+        }
         mustParseAsFloat = floatExponent() || mustParseAsFloat;
         if (mustParseAsFloat || preferParsingNumbersAsFloats) {
             return new Float(Double.parseDouble(currentLexeme.toString()));
         } else {
-            return new Int(Long.parseLong(currentLexeme.toString()));
+            return parseLong(currentLexeme.toString(), 10);
         }
     }
 
@@ -298,6 +301,18 @@ public class NumberReader extends AbstractReader {
         return 'n' == peek();
     }
 
+    /**
+     * Consume the {@code n} suffix of a decimal BigInt, whose digits are
+     * the lexeme so far.
+     */
+    private Expr decimalBigInt() {
+        final String digits = currentLexeme.toString();
+        // kept in the lexeme, should this turn out to be a symbol
+        currentLexeme.appendCodePoint(next());
+        checkForValidBreak();
+        return new BigInt(new BigInteger(digits));
+    }
+
     /**
      * Tokenize a number '0[bBoOxX]\d+[n]?'.
      *
@@ -353,6 +368,9 @@ public class NumberReader extends AbstractReader {
             } else if (Character.isDigit(c) &&
                        withinBounds.test((int) c)) {
                 currentLexeme.appendCodePoint(next());
+            } else if (isJavascriptBigintSuffix()) {
+                // just "0n"
+                return decimalBigInt();
             } else {
                 throw new InputMismatchException();
             }
@@ -367,10 +385,13 @@ public class NumberReader extends AbstractReader {
                 if (floatExponent()) {
                     return new Float(Double.parseDouble(currentLexeme.toString()));
                 } else {
-                    return new Int(Long.parseLong(currentLexeme.toString()));
+                    return parseLong(currentLexeme.toString(), 10);
                 }
             }
         }
+        if (isJavascriptBigintSuffix()) {
+            return decimalBigInt();
+        }
         checkForValidBreak();
         return tokenizeRadixNumberLexeme(10, 'd', 'D');
     }
@@ -408,10 +429,10 @@ public class NumberReader extends AbstractReader {
     private final Expr parseLong(final String lexeme, final int base, final int sign) {
         try {
             Long literal = sign*Long.parseLong(lexeme, base);
-            return new Int(literal);
+            return Int.valueOf(literal);
         } catch (NumberFormatException e) {
             final BigInteger literal = new BigInteger(lexeme, base);
-            return new BigInt(-1 == sign ? literal.negate() : literal);
+            return BigInt.valueOf(-1 == sign ? literal.negate() : literal);
         }
     }
 
@@ -427,7 +448,7 @@ public class NumberReader extends AbstractReader {
             || currentLexeme.length() <= 1 + signOffset) {
             final Long literal
                 = Long.parseLong(currentLexeme.toString(), base);
-            return new Int(literal);
+            return Int.valueOf(literal);
         }
         // no? It must be a radix number
         final char radixSpec = currentLexeme.charAt(1+signOffset);
@@ -1130,6 +1130,56 @@ public class CoreTest {
         }
     }
 
+    @Nested
+    public class ConjTest {
+        @Test
+        public void conjVectorTest() throws LispException {
+            Vector v = new Vector();
+            v.conj(new Int(1));
+            Expr result = Core.conj(Seq.of(v, new Int(2), new Int(3)));
+            Vector expected = new Vector();
+            expected.conj(new Int(1));
+            expected.conj(new Int(2));
+            expected.conj(new Int(3));
+            assertEquals(expected, result);
+            assertEquals(1, v.size());
+        }
+        @Test
+        public void conjListTest() throws LispException {
+            Seq s = Seq.of(new Int(1));
+            assertEquals(Seq.of(new Int(3), new Int(2), new Int(1)),
+                         Core.conj(Seq.of(s, new Int(2), new Int(3))));
+            assertEquals(1, s.size());
+        }
+        @Test
+        public void assocVectorTest() throws LispException {
+            Vector v = new Vector();
+            v.conj(new Int(1));
+            v.conj(new Int(2));
+            Vector expected = new Vector();
+            expected.conj(new Int(1));
+            expected.conj(new Keyword("x"));
+            expected.conj(new Keyword("y"));
+            assertEquals(expected,
+                         Core.assoc(Seq.of(v, new Int(1), new Keyword("x"),
+                                           new Int(2), new Keyword("y"))));
+            assertThrows(LispException.class,
+                         () -> Core.assoc(Seq.of(v, new Int(5), new Int(5))));
+        }
+        @Test
+        public void peekAndPopTest() throws LispException {
+            Vector v = new Vector();
+            v.conj(new Int(1));
+            v.conj(new Int(2));
+            assertEquals(new Int(2), Core.peek(Seq.of(v)));
+            Vector expected = new Vector();
+            expected.conj(new Int(1));
+            assertEquals(expected, Core.pop(Seq.of(v)));
+            assertThrows(LispException.class,
+                         () -> Core.pop(Seq.of(new Vector())));
+        }
+    }
+
     @Nested
     public class DissocTest {
         @Test
@@ -1306,4 +1356,77 @@ public class CoreTest {
             }
         }
     }
+
+    @Nested
+    public class FixedArityTest {
+        @Test
+        public void addTwoTest() throws Throwable {
+            assertEquals(new Int(3L), Core.ADD.invoke2(new Int(1L), new Int(2L)));
+        }
+        @Test
+        public void addAgreesWithVariadicTest() throws Throwable {
+            Expr a = new Int(4L);
+            Expr b = new Float(0.5);
+            assertEquals(Core.add(Seq.of(a, b)), Core.ADD.invoke2(a, b));
+            assertEquals(Core.add(Seq.of(a)), Core.ADD.invoke1(a));
+            assertEquals(Core.add(Seq.of()), Core.ADD.invoke0());
+        }
+        @Test
+        public void subtractAgreesWithVariadicTest() throws Throwable {
+            Expr a = new Int(4L);
+            Expr b = new Int(7L);
+            assertEquals(Core.subtract(Seq.of(a, b)), Core.SUBTRACT.invoke2(a, b));
+            assertEquals(Core.subtract(Seq.of(a)), Core.SUBTRACT.invoke1(a));
+        }
+        @Test
+        public void divideOneArgTest() throws Throwable {
+            Expr a = new Float(4.0);
+            assertEquals(Core.divide(Seq.of(a)), Core.DIVIDE.invoke1(a));
+        }
+        @Test
+        public void threeArgsFallBackToVariadicTest() throws Throwable {
+            assertEquals(new Int(6L),
+                         Core.MULTIPLY.invoke3(new Int(1L), new Int(2L), new Int(3L)));
+        }
+        @Test
+        public void lessThanTest() throws Throwable {
+            assertEquals(Literal.T, Core.LESS_THAN.invoke2(new Int(1L), new Int(2L)));
+            assertEquals(Literal.F, Core.GREATER_OR_EQUAL.invoke2(new Int(1L), new Int(2L)));
+        }
+        @Test
+        public void compareNonNumbersTest() {
+            Exception e = assertThrows(LispException.class,
+                                       () -> Core.LESS_OR_EQUAL.invoke2(new Int(1L), new Keyword("a")));
+            assertEquals("<= works on numbers", e.getMessage());
+        }
+        @Test
+        public void equalityTest() throws Throwable {
+            assertEquals(Literal.T, Core.EQUALITY.invoke2(new Keyword("a"), new Keyword("a")));
+            assertEquals(Literal.F, Core.EQUALITY.invoke2(new Keyword("a"), new Keyword("b")));
+        }
+        @Test
+        public void firstTest() throws Throwable {
+            Expr coll = Seq.of(new Int(1L), new Int(2L));
+            assertEquals(new Int(1L), Core.FIRST.invoke1(coll));
+            assertEquals(Literal.NIL, Core.FIRST.invoke1(Literal.NIL));
+        }
+        @Test
+        public void countTest() throws Throwable {
+            assertEquals(new Int(2L), Core.COUNT.invoke1(Seq.of(new Int(1L), new Int(2L))));
+        }
+        @Test
+        public void getMissingKeyTest() throws Throwable {
+            assertEquals(Literal.NIL, Core.GET.invoke2(new Map(), new Keyword("a")));
+        }
+        @Test
+        public void predicateTest() throws Throwable {
+            assertEquals(Literal.T, Core.nil_QMARK_.invoke1(Literal.NIL));
+            assertEquals(Literal.F, Core.nil_QMARK_.invoke1(new Int(1L)));
+        }
+        @Test
+        public void funDispatchesOnArityTest() throws Throwable {
+            Fun plus = new Fun(Core.ADD, 0, true, new Symbol("+"));
+            assertEquals(new Int(5L), plus.invoke2(new Int(2L), new Int(3L)));
+        }
+    }
 }
@@ -33,6 +33,9 @@ import com.github.pqnelson.expr.Seq;
 import com.github.pqnelson.expr.Str;
 import com.github.pqnelson.expr.Symbol;
 import com.github.pqnelson.expr.Vector;
+import com.github.pqnelson.node.ConstantNode;
+import com.github.pqnelson.node.GuardNode;
+import com.github.pqnelson.node.Node;
 
 import java.io.BufferedReader;
 import java.io.File;
@@ -875,4 +878,370 @@ public class EvaluatorTest {
             assertEquals(Literal.T, env.get(s), "Fail: "+name);
         }
     }
+    @Nested
+    class TailCallTest {
+        static Env env;
+        @BeforeAll
+        static void loadTco() throws Throwable {
+            env = loadResource("tco.wol", false);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"t1", "t2", "t3", "t4", "t5", "t6", "t7", "t8",
+            "t9", "t10", "t11", "t12", "t13", "t14"})
+        public void tailCallTests(String name) {
+            Symbol s = new Symbol(name);
+            assertEquals(Literal.T, env.get(s), "Fail: "+name);
+        }
+    }
+    @Nested
+    class LoopTest {
+        static Env env;
+        @BeforeAll
+        static void loadLoop() throws Throwable {
+            env = loadResource("loop.wol", false);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"t1", "t2", "t3", "t4", "t5", "t6", "t7",
+            "t8", "t9", "t10", "t11"})
+        public void loopTests(String name) {
+            Symbol s = new Symbol(name);
+            assertEquals(Literal.T, env.get(s), "Fail: "+name);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"(recur 1)",
+            "(loop* [i 0] (+ 1 (recur i)))",
+            "(loop* [i 0] (if (recur i) 1 2))",
+            "(fn* [x] (fn* [] (recur x)))",
+            "(loop* [i 0] (do (recur i) 1))"})
+        public void recurOutsideTailPositionTest(String source) {
+            ReadTable reader = new ReadTable(source);
+            assertThrows(LispException.class,
+                         () -> Evaluator.eval(reader.read(), env));
+        }
+
+        @Test
+        public void recurArityMismatchTest() {
+            ReadTable reader = new ReadTable("(loop* [i 0 j 1] (recur 1))");
+            assertThrows(LispException.class,
+                         () -> Evaluator.eval(reader.read(), env));
+        }
+    }
+    @Nested
+    class MacroCacheTest {
+        static Env env;
+        @BeforeAll
+        static void loadMacroCache() throws Throwable {
+            env = loadResource("macro-cache.wol", false);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"t1", "t2", "t3", "t4", "t5", "t6", "t7",
+            "t8", "t9"})
+        public void macroCacheTests(String name) {
+            Symbol s = new Symbol(name);
+            assertEquals(Literal.T, env.get(s), "Fail: "+name);
+        }
+    }
+    @Nested
+    class FoldTest {
+        static Env env;
+        @BeforeAll
+        static void loadFold() throws Throwable {
+            env = loadResource("fold.wol", false);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"t1", "t2", "t3", "t4", "t5", "t6", "t7",
+            "t8", "t9", "t10"})
+        public void foldTests(String name) {
+            Symbol s = new Symbol(name);
+            assertEquals(Literal.T, env.get(s), "Fail: "+name);
+        }
+
+        @Test
+        public void foldedCallIsConstantTest() throws Throwable {
+            Env env = Evaluator.initialEnv();
+            ReadTable reader = new ReadTable("(* 60 60 24)");
+            reader.preferParsingNumbersAsFloats = false;
+            Node node = Analyzer.analyze(reader.read(), env);
+            assertInstanceOf(GuardNode.class, node);
+            assertEquals(new Int(86400),
+                         ((ConstantNode) ((GuardNode) node).fast()).value());
+        }
+
+        @Test
+        public void shadowedPrimitiveIsNotFoldedTest() throws Throwable {
+            Env env = Evaluator.initialEnv();
+            ReadTable reader = new ReadTable("(fn* [*] (* 2 3))");
+            reader.preferParsingNumbersAsFloats = false;
+            Expr f = Evaluator.eval(reader.read(), env);
+            Fun plus = (Fun) env.get(new Symbol("+"));
+            assertEquals(new Int(5), ((Fun) f).invoke(Seq.of(plus)));
+        }
+    }
+    @Nested
+    class ScopeTest {
+        static Env env;
+        @BeforeAll
+        static void loadScope() throws Throwable {
+            env = loadResource("scope.wol", false);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"t1", "t2", "t3", "t4", "t5", "t6", "t7",
+            "t8", "t9"})
+        public void scopeTests(String name) {
+            Symbol s = new Symbol(name);
+            assertEquals(Literal.T, env.get(s), "Fail: "+name);
+        }
+    }
+    @Nested
+    class ListTest {
+        static Env env;
+        @BeforeAll
+        static void loadList() throws Throwable {
+            env = loadResource("list.wol", false);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"t1", "t2", "t3", "t4", "t5", "t6", "t7",
+            "t8", "t9", "t10"})
+        public void listTests(String name) {
+            Symbol s = new Symbol(name);
+            assertEquals(Literal.T, env.get(s), "Fail: "+name);
+        }
+    }
+    @Nested
+    class NumberTest {
+        static Env env;
+        @BeforeAll
+        static void loadNumbers() throws Throwable {
+            env = loadResource("numbers.wol", false);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"t1", "t2", "t3", "t4", "t5", "t6", "t7",
+            "t8", "t9", "t10", "t11", "t12", "t13"})
+        public void numberTests(String name) {
+            Symbol s = new Symbol(name);
+            assertEquals(Literal.T, env.get(s), "Fail: "+name);
+        }
+    }
+
+    @Nested
+    class LazySeqTest {
+        static Env env;
+        @BeforeAll
+        static void loadLazySeq() throws Throwable {
+            env = loadResource("lazy.wol", false);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"t1", "t2", "t3", "t4", "t5", "t6", "t7",
+            "t8", "t9", "t10", "t11", "t12", "t13", "t14", "t15", "t16",
+            "t17", "t18", "t19", "t20", "t21", "t22", "t23", "t24", "t25",
+            "t26", "t27"})
+        public void lazySeqTests(String name) {
+            Symbol s = new Symbol(name);
+            assertEquals(Literal.T, env.get(s), "Fail: "+name);
+        }
+    }
+    @Nested
+    class TransientTest {
+        static Env env;
+        @BeforeAll
+        static void loadTransient() throws Throwable {
+            env = loadResource("transient.wol", false);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"t1", "t2", "t3", "t4", "t5", "t6", "t7",
+            "t8", "t9", "t10", "t11", "t12"})
+        public void transientTests(String name) {
+            Symbol s = new Symbol(name);
+            assertEquals(Literal.T, env.get(s), "Fail: "+name);
+        }
+    }
+    @Nested
+    class SeqViewTest {
+        static Env env;
+        @BeforeAll
+        static void loadSeqViews() throws Throwable {
+            env = loadResource("seqviews.wol", false);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"t1", "t2", "t3", "t4", "t5", "t6", "t7",
+            "t8", "t9", "t10", "t11", "t12", "t13"})
+        public void seqViewTests(String name) {
+            Symbol s = new Symbol(name);
+            assertEquals(Literal.T, env.get(s), "Fail: "+name);
+        }
+    }
+    @Nested
+    class ReduceTest {
+        static Env env;
+        @BeforeAll
+        static void loadReduce() throws Throwable {
+            env = loadResource("reduce.wol", false);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"t1", "t2", "t3", "t4", "t5", "t6", "t7",
+            "t8", "t9", "t10", "t11", "t12", "t13", "t14", "t15", "t16",
+            "t17", "t18", "t19", "t20", "t21", "t22", "t23", "t24", "t25",
+            "t26", "t27"})
+        public void reduceTests(String name) {
+            Symbol s = new Symbol(name);
+            assertEquals(Literal.T, env.get(s), "Fail: "+name);
+        }
+    }
+    @Nested
+    class ParallelFoldTest {
+        static Env env;
+        @BeforeAll
+        static void loadParallelFold() throws Throwable {
+            env = loadResource("parallel-fold.wol", false);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"t1", "t2", "t3", "t4", "t5", "t6", "t7",
+            "t8", "t9"})
+        public void parallelFoldTests(String name) {
+            Symbol s = new Symbol(name);
+            assertEquals(Literal.T, env.get(s), "Fail: "+name);
+        }
+    }
+    @Nested
+    class FutureTest {
+        static Env env;
+        @BeforeAll
+        static void loadFuture() throws Throwable {
+            env = loadResource("future.wol", false);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"t1", "t2", "t3", "t4", "t5", "t6", "t7",
+            "t8", "t9", "t10", "t11", "t12", "t13", "t14", "t15", "t16",
+            "t17"})
+        public void futureTests(String name) {
+            Symbol s = new Symbol(name);
+            assertEquals(Literal.T, env.get(s), "Fail: "+name);
+        }
+    }
+    @Nested
+    class SharedEnvTest {
+        private Expr eval(String source, Env env) throws Throwable {
+            ReadTable reader = new ReadTable(source);
+            reader.preferParsingNumbersAsFloats = false;
+            return Evaluator.eval(reader.read(), env);
+        }
+
+        @Test
+        public void concurrentDefsTest() throws Throwable {
+            final Env env = Evaluator.initialEnv();
+            eval("(def add (fn* [a b] (+ a b)))", env);
+            final int threads = 8;
+            final int defs = 500;
+            java.util.concurrent.ExecutorService pool
+                = java.util.concurrent.Executors.newFixedThreadPool(threads);
+            try {
+                java.util.List<java.util.concurrent.Future<Expr>> results
+                    = new java.util.ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    final int id = t;
+                    results.add(pool.submit(() -> {
+                        try {
+                            for (int i = 0; i < defs; i++) {
+                                eval("(def g" + id + "-" + i + " " + i + ")",
+                                     env);
+                                eval("(def counter " + i + ")", env);
+                                eval("(add g" + id + "-" + i + " 1)", env);
+                            }
+                            return Literal.T;
+                        } catch (Throwable e) {
+                            throw new RuntimeException(e);
+                        }
+                    }));
+                }
+                for (java.util.concurrent.Future<Expr> r : results) {
+                    assertEquals(Literal.T, r.get());
+                }
+            } finally {
+                pool.shutdown();
+            }
+            for (int t = 0; t < threads; t++) {
+                for (int i = 0; i < defs; i++) {
+                    assertEquals(new Int(i),
+                                 env.get(new Symbol("g" + t + "-" + i)));
+                }
+            }
+            assertEquals(new Int(defs - 1), env.get(new Symbol("counter")));
+        }
+
+        @Test
+        public void redefinitionIsSeenTest() throws Throwable {
+            final Env env = Evaluator.initialEnv();
+            eval("(def x 1)", env);
+            eval("(def get-x (fn* [] x))", env);
+            assertEquals(new Int(1), eval("(get-x)", env));
+            eval("(def x 2)", env);
+            assertEquals(new Int(2), eval("(get-x)", env));
+            assertEquals(new Int(2), eval("@(future (get-x))", env));
+        }
+    }
+    @Nested
+    class AtomTest {
+        static Env env;
+        @BeforeAll
+        static void loadAtom() throws Throwable {
+            env = loadResource("atom.wol", false);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"t1", "t2", "t3", "t4", "t5", "t6", "t7",
+            "t8", "t9", "t10", "t11", "t12", "t13", "t14", "t15", "t16"})
+        public void atomTests(String name) {
+            Symbol s = new Symbol(name);
+            assertEquals(Literal.T, env.get(s), "Fail: "+name);
+        }
+    }
+
+    @Nested
+    class StmTest {
+        static Env env;
+        @BeforeAll
+        static void loadStm() throws Throwable {
+            env = loadResource("stm.wol", false);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"t1", "t2", "t3", "t4", "t5", "t6", "t7",
+            "t8", "t9", "t10", "t11", "t12", "t13", "t14", "t15", "t16",
+            "t17", "t18", "t19", "t20", "t21", "t22"})
+        public void stmTests(String name) {
+            Symbol s = new Symbol(name);
+            assertEquals(Literal.T, env.get(s), "Fail: "+name);
+        }
+    }
+    @Nested
+    class ChannelTest {
+        static Env env;
+        @BeforeAll
+        static void loadChannels() throws Throwable {
+            env = loadResource("channels.wol", false);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"t1", "t2", "t3", "t4", "t5", "t6", "t7",
+            "t8", "t9", "t10", "t11", "t12", "t13", "t14", "t15", "t16",
+            "t17", "t18", "t19", "t20"})
+        public void channelTests(String name) {
+            Symbol s = new Symbol(name);
+            assertEquals(Literal.T, env.get(s), "Fail: "+name);
+        }
+    }
 }
@@ -116,6 +116,15 @@ public class ReadTableTest {
             expected.conj(new Seq(coll));
             assertEquals(expected, r.read());
         }
+
+        @Test
+        public void readDerefTest() {
+            ReadTable r = new ReadTable("@foo");
+            Seq expected = new Seq();
+            expected.conj(new Symbol("deref"));
+            expected.conj(new Symbol("foo"));
+            assertEquals(expected, r.read());
+        }
     }
 
     @Nested
@@ -480,6 +489,69 @@ public class ReadTableTest {
             }
         }
 
+        @Nested
+        class decimalTests {
+            @Test
+            public void readLongMaxTest() {
+                ReadTable r = new ReadTable("9223372036854775807");
+                r.preferParsingNumbersAsFloats = false;
+                assertEquals(new Int(Long.MAX_VALUE), r.read());
+            }
+
+            @ParameterizedTest
+            @ValueSource(strings = {"9223372036854775808",
+                                    "-9223372036854775809",
+                                    "123456789012345678901234567890"})
+            public void readOversizedAsBigIntTest(String lexeme) {
+                ReadTable r = new ReadTable(lexeme);
+                r.preferParsingNumbersAsFloats = false;
+                Expr expected = new BigInt(new BigInteger(lexeme));
+                assertEquals(expected, r.read());
+            }
+
+            @Test
+            public void readOversizedAfterZeroAsBigIntTest() {
+                String lexeme = "09223372036854775808";
+                ReadTable r = new ReadTable(lexeme);
+                r.preferParsingNumbersAsFloats = false;
+                Expr expected = new BigInt(new BigInteger(lexeme));
+                assertEquals(expected, r.read());
+            }
+
+            @ParameterizedTest
+            @ValueSource(strings = {"123n", "-123n", "+123n", "7n", "0n",
+                                    "09n", "9223372036854775808n"})
+            public void readSuffixedAsBigIntTest(String lexeme) {
+                ReadTable r = new ReadTable(lexeme);
+                Expr expected = new BigInt(new BigInteger(
+                    lexeme.substring(0, lexeme.length() - 1)));
+                assertEquals(expected, r.read());
+            }
+
+            @Test
+            public void readSuffixedAsBigIntPreferringIntsTest() {
+                ReadTable r = new ReadTable("123n");
+                r.preferParsingNumbersAsFloats = false;
+                assertEquals(new BigInt(BigInteger.valueOf(123)), r.read());
+            }
+
+            @Test
+            public void readSuffixedInListTest() {
+                ReadTable r = new ReadTable("(+ 1n 2)");
+                r.preferParsingNumbersAsFloats = false;
+                assertEquals(Seq.of(new Symbol("+"),
+                                    new BigInt(BigInteger.ONE),
+                                    new Int(2L)),
+                             r.read());
+            }
+
+            @Test
+            public void readSuffixThenLettersAsSymbolTest() {
+                ReadTable r = new ReadTable("12nd");
+                assertEquals(new Symbol("12nd"), r.read());
+            }
+        }
+
         @Nested
         class hexadecimalTests {
             @Test
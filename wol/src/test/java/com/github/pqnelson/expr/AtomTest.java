@@ -0,0 +1,57 @@
+package com.github.pqnelson.expr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class AtomTest
+{
+    private static final IFn INC = new IFn() {
+        @Override
+        public Expr invoke(Seq args) {
+            return invoke1(args.first());
+        }
+
+        @Override
+        public Expr invoke1(Expr x) {
+            return new Int(((Int) x).value() + 1);
+        }
+    };
+
+    @Test
+    public void concurrentSwapTest() throws Throwable {
+        final Atom a = new Atom(new Int(0));
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 10000; i++) {
+                            a.swap(INC);
+                        }
+                    } catch (Throwable e) {
+                        throw new RuntimeException(e);
+                    }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(new Int(80000), a.deref());
+    }
+
+    @Test
+    public void rejectedSwapLeavesValueTest() throws Throwable {
+        final Atom a = new Atom(new Int(0));
+        a.setValidator(new Fun(args -> (new Int(0).equals(args.first())
+                                        ? Literal.T
+                                        : Literal.F), 1, false));
+        assertThrows(IllegalStateException.class, () -> a.swap(INC));
+        assertEquals(new Int(0), a.deref());
+    }
+}
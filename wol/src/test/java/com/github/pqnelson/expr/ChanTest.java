@@ -0,0 +1,99 @@
+package com.github.pqnelson.expr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+public class ChanTest
+{
+    @Test
+    public void unbufferedPutWaitsForTakeTest() throws Throwable {
+        final Chan c = new Chan();
+        final AtomicBoolean done = new AtomicBoolean(false);
+        final Thread producer = new Thread(() -> {
+                try {
+                    c.put(new Int(1));
+                    done.set(true);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+        });
+        producer.start();
+        Thread.sleep(50);
+        assertFalse(done.get());
+        assertEquals(new Int(1), c.take());
+        producer.join();
+        assertTrue(done.get());
+    }
+
+    @Test
+    public void unbufferedOfferNeedsTakerTest() {
+        final Chan c = new Chan();
+        assertNull(c.offer(new Int(1)));
+        assertNull(c.poll());
+    }
+
+    @Test
+    public void fullBufferHoldsBackProducerTest() throws Throwable {
+        final Chan c = new Chan(4, Chan.Policy.FIXED);
+        final Thread producer = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 1000; i++) {
+                        c.put(new Int(i));
+                    }
+                    c.close();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+        });
+        producer.start();
+        long sum = 0;
+        for (Expr x = c.take(); !x.isNil(); x = c.take()) {
+            sum += ((Int) x).value();
+        }
+        producer.join();
+        assertEquals(499500, sum);
+    }
+
+    @Test
+    public void closeWakesTakerTest() throws Throwable {
+        final Chan c = new Chan();
+        final Thread closer = new Thread(() -> {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                c.close();
+        });
+        closer.start();
+        assertEquals(Literal.NIL, c.take());
+        closer.join();
+    }
+
+    @Test
+    public void altsPutMeetsAltsTakeTest() throws Throwable {
+        final Chan c = new Chan();
+        final Chan other = new Chan();
+        final Thread putter = new Thread(() -> {
+                try {
+                    Chan.alts(List.of(new Vector().conjoin(c)
+                                      .conjoin(new Int(7)), other),
+                              false, null);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+        });
+        putter.start();
+        final Vector result = Chan.alts(List.of(c), false, null);
+        putter.join();
+        assertEquals(new Int(7), result.get(0));
+        assertEquals(c, result.get(1));
+    }
+}
@@ -58,6 +58,32 @@ public class FunTest
         assertEquals(new Int(3), f.arities().get(0));
     }
     @Test
+    public void aritiesAscendingTest() {
+        Fun f = new Fun(new Symbol("f"));
+        f.addMethod((args) -> new Int(3), 3, false);
+        f.addMethod((args) -> new Int(0), 0, false);
+        f.addMethod((args) -> new Int(5), 5, true);
+        Vector expected = new Vector();
+        expected.conj(new Int(5));
+        expected.conj(new Int(0));
+        expected.conj(new Int(3));
+        assertEquals(expected, f.arities());
+    }
+    @Test
+    public void arityDispatchTest() throws Throwable {
+        Fun f = new Fun(new Symbol("f"));
+        f.addMethod((args) -> new Int(3), 3, false);
+        f.addMethod((args) -> new Int(0), 0, false);
+        f.addMethod((args) -> new Int(5), 5, true);
+        assertEquals(new Int(0), f.invoke0());
+        assertEquals(new Int(3), f.invoke3(Literal.T, Literal.T, Literal.T));
+        assertEquals(new Int(5), f.invoke(Seq.of(Literal.T, Literal.T, Literal.T,
+                                                 Literal.T, Literal.T, Literal.T)));
+        Exception e = assertThrows(RuntimeException.class,
+                                   () -> f.invoke4(Literal.T, Literal.T, Literal.T, Literal.T));
+        assertEquals("Wrong number of args (4) passed to f", e.getMessage());
+    }
+    @Test
     public void cloneTest1() {
         Seq body = new Seq();
         body.conj(Literal.T);
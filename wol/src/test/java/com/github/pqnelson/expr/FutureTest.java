@@ -0,0 +1,79 @@
+package com.github.pqnelson.expr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.github.pqnelson.Printer;
+
+public class FutureTest
+{
+    @Test
+    public void derefWaitsTest() throws Throwable {
+        Future f = new Future(args -> new Int(42));
+        assertEquals(new Int(42), f.deref());
+        assertTrue(f.isRealized());
+    }
+
+    @Test
+    public void waitsOverlapTest() throws Throwable {
+        final long start = System.nanoTime();
+        List<Future> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(new Future(args -> {
+                        Thread.sleep(200);
+                        return Literal.T;
+            }));
+        }
+        for (Future f : futures) {
+            assertEquals(Literal.T, f.deref());
+        }
+        final long elapsedMs = (System.nanoTime() - start) / 1000000;
+        assertTrue(elapsedMs < 2000, "took " + elapsedMs + "ms");
+    }
+
+    @Test
+    public void derefRethrowsTest() {
+        Future f = new Future(args -> {
+                throw new LispException("boom");
+        });
+        LispException e = assertThrows(LispException.class, f::deref);
+        assertEquals("boom", e.getMessage());
+    }
+
+    @Test
+    public void derefTimesOutTest() throws Throwable {
+        Promise p = new Promise();
+        Future f = new Future(args -> p.deref());
+        assertEquals(Literal.F, f.deref(10, Literal.F));
+        p.deliver(Literal.T);
+        assertEquals(Literal.T, f.deref());
+    }
+
+    @Nested
+    class PromiseTests {
+        @Test
+        public void deliverOnceTest() throws Throwable {
+            Promise p = new Promise();
+            assertFalse(p.isRealized());
+            assertTrue(p.deliver(new Int(1)));
+            assertFalse(p.deliver(new Int(2)));
+            assertEquals(new Int(1), p.deref());
+        }
+
+        @Test
+        public void printTest() {
+            Promise p = new Promise();
+            assertEquals("#<Promise pending>", Printer.print(p));
+            p.deliver(new Int(1));
+            assertEquals("#<Promise 1>", Printer.print(p));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.pqnelson.expr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class IntTest {
+    @Test
+    public void smallValuesAreSharedTest() {
+        assertSame(Int.valueOf(-1024), Int.valueOf(-1024));
+        assertSame(Int.valueOf(0), Int.valueOf(0));
+        assertSame(Int.valueOf(1024), Int.valueOf(1024));
+        assertNotSame(Int.valueOf(1025), Int.valueOf(1025));
+        assertEquals(Int.valueOf(1025), Int.valueOf(1025));
+    }
+
+    @Test
+    public void smallArithmeticAllocatesNothingTest() {
+        final Int two = Int.valueOf(2);
+        final Int three = Int.valueOf(3);
+        assertSame(Int.valueOf(5), two.add(three));
+        assertSame(Int.valueOf(-1), two.subtract(three));
+        assertSame(Int.valueOf(6), two.multiply(three));
+        assertSame(Int.valueOf(1), three.divide(two));
+    }
+
+    @Test
+    public void equalsNewIntTest() {
+        assertEquals(new Int(7), Int.valueOf(7));
+        assertEquals(new Int(7).hashCode(), Int.valueOf(7).hashCode());
+        assertEquals(Long.valueOf(7), Int.valueOf(7).value());
+        assertEquals(7L, Int.valueOf(7).longValue());
+    }
+
+    @Test
+    public void compareFarApartTest() {
+        // the difference of these does not fit in an int
+        assertTrue(Int.valueOf(0).compareTo(Int.valueOf(1L << 32)) < 0);
+        assertTrue(Int.valueOf(Long.MAX_VALUE)
+                   .compareTo(Int.valueOf(Long.MIN_VALUE)) > 0);
+    }
+
+    @Test
+    public void compareMixedTest() {
+        assertTrue(Int.valueOf(1).compareTo(new Float(1.5)) < 0);
+        assertEquals(0, Int.valueOf(2).compareTo(new Float(2.0)));
+        assertTrue(Int.valueOf(1)
+                   .compareTo(new BigInt(BigInteger.TEN.pow(30))) < 0);
+    }
+
+    @Test
+    public void overflowPromotesTest() {
+        final Int max = Int.valueOf(Long.MAX_VALUE);
+        final Int min = Int.valueOf(Long.MIN_VALUE);
+        final BigInteger bigMax = BigInteger.valueOf(Long.MAX_VALUE);
+        final BigInteger bigMin = BigInteger.valueOf(Long.MIN_VALUE);
+        assertEquals(new BigInt(bigMax.add(BigInteger.ONE)),
+                     max.add(Int.valueOf(1)));
+        assertEquals(new BigInt(bigMin.subtract(BigInteger.ONE)),
+                     min.subtract(Int.valueOf(1)));
+        assertEquals(new BigInt(bigMax.multiply(BigInteger.TWO)),
+                     max.multiply(Int.valueOf(2)));
+        assertEquals(new BigInt(bigMin.multiply(bigMin)),
+                     min.multiply(min));
+        assertEquals(new BigInt(bigMin.negate()),
+                     min.divide(Int.valueOf(-1)));
+    }
+
+    @Test
+    public void noOverflowStaysIntTest() {
+        final Int max = Int.valueOf(Long.MAX_VALUE);
+        final Int min = Int.valueOf(Long.MIN_VALUE);
+        assertEquals(Int.valueOf(-1), max.add(min));
+        assertEquals(min, min.multiply(Int.valueOf(1)));
+        assertEquals(Int.valueOf(-Long.MAX_VALUE),
+                     max.multiply(Int.valueOf(-1)));
+        assertEquals(Int.valueOf(0), min.subtract(min));
+    }
+
+    @Test
+    public void bigIntDemotesTest() {
+        final Number big = Int.valueOf(Long.MAX_VALUE).add(Int.valueOf(1));
+        assertTrue(big.isBigInt());
+        assertEquals(Int.valueOf(Long.MAX_VALUE), big.subtract(Int.valueOf(1)));
+        assertEquals(Int.valueOf(3),
+                     new BigInt(BigInteger.ONE).add(new BigInt(BigInteger.TWO)));
+        assertTrue(big.compareTo(Int.valueOf(Long.MAX_VALUE)) > 0);
+        assertTrue(Int.valueOf(Long.MAX_VALUE).compareTo(big) < 0);
+    }
+
+    @Test
+    public void equalAcrossClassesTest() {
+        final BigInt three = new BigInt(BigInteger.valueOf(3));
+        assertEquals(Int.valueOf(3), three);
+        assertEquals(three, Int.valueOf(3));
+        assertEquals(Int.valueOf(3).hashCode(), three.hashCode());
+        assertEquals(three, new BigInt(BigInteger.ONE).add(new BigInt(BigInteger.TWO)));
+        final BigInteger past = BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE);
+        assertNotEquals(Int.valueOf(Long.MIN_VALUE), new BigInt(past));
+        assertNotEquals(new BigInt(past), Int.valueOf(Long.MIN_VALUE));
+    }
+}
@@ -4,12 +4,17 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.util.HashMap;
+
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import com.github.pqnelson.expr.Keyword;
 import com.github.pqnelson.expr.Map;
@@ -91,6 +96,197 @@ public class MapTest
         assertEquals (m.keys().sort(), keys.sort());
     }
 
+    @Nested
+    class persistentTests {
+        @ParameterizedTest
+        @ValueSource(ints = {0, 1, 31, 32, 33, 1024, 5000})
+        public void associateTest(int n) {
+            Map m = new Map();
+            for (int i = 0; i < n; i++) {
+                m = m.associate(new Int(i), new Int(2*i));
+            }
+            assertEquals(n, m.size());
+            for (int i = 0; i < n; i++) {
+                assertEquals(new Int(2*i), m.get(new Int(i)));
+            }
+            assertFalse(m.contains(new Int(n)));
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = {1, 31, 32, 33, 1024, 5000})
+        public void dissociateTest(int n) {
+            Map m = new Map();
+            for (int i = 0; i < n; i++) {
+                m = m.associate(new Int(i), new Int(i));
+            }
+            for (int i = 0; i < n; i += 2) {
+                m = m.dissociate(new Int(i));
+            }
+            assertEquals(n/2, m.size());
+            for (int i = 0; i < n; i++) {
+                assertEquals(1 == i % 2, m.contains(new Int(i)));
+            }
+        }
+
+        @Test
+        public void associateLeavesOriginalTest() {
+            Map original = new Map(new Keyword("a"), new Int(1));
+            Map updated = original.associate(new Keyword("a"), new Int(2))
+                .associate(new Keyword("b"), new Int(3));
+            assertEquals(1, original.size());
+            assertEquals(new Int(1), original.get(new Keyword("a")));
+            assertEquals(2, updated.size());
+            assertEquals(new Int(2), updated.get(new Keyword("a")));
+        }
+
+        @Test
+        public void dissociateLeavesOriginalTest() {
+            Map original = new Map(new Keyword("a"), new Int(1));
+            Map updated = original.dissociate(new Keyword("a"));
+            assertTrue(updated.isEmpty());
+            assertTrue(original.contains(new Keyword("a")));
+        }
+
+        @Test
+        public void dissociateMissingKeyIsIdentityTest() {
+            Map m = new Map(new Keyword("a"), new Int(1));
+            assertTrue(m == m.dissociate(new Keyword("b")));
+        }
+
+        @Test
+        public void legacyAssocDoesNotLeakTest() {
+            Map original = new Map(new Keyword("a"), new Int(1));
+            Map copy = new Map(original);
+            copy.assoc(new Keyword("b"), new Int(2));
+            copy.dissoc(new Keyword("a"));
+            assertEquals(1, original.size());
+            assertTrue(original.contains(new Keyword("a")));
+        }
+
+        @Test
+        public void immutableCopyRefusesAssocTest() {
+            Map m = new Map(new Keyword("a"), new Int(1)).immutableCopy();
+            assertThrows(RuntimeException.class,
+                         () -> m.assoc(new Keyword("b"), new Int(2)));
+            assertEquals(2, m.associate(new Keyword("b"), new Int(2)).size());
+        }
+
+        @Test
+        public void collidingKeysTest() {
+            // "Aa" and "BB" share a String hash code
+            Str aa = new Str("Aa");
+            Str bb = new Str("BB");
+            assertEquals(aa.hashCode(), bb.hashCode());
+            Map m = new Map().associate(aa, new Int(1)).associate(bb, new Int(2));
+            assertEquals(2, m.size());
+            assertEquals(new Int(1), m.get(aa));
+            assertEquals(new Int(2), m.get(bb));
+            Map n = m.dissociate(aa);
+            assertEquals(1, n.size());
+            assertFalse(n.contains(aa));
+            assertEquals(new Int(2), n.get(bb));
+            assertEquals(m, new Map().associate(bb, new Int(2))
+                         .associate(aa, new Int(1)));
+        }
+
+        @Test
+        public void nullValueIsNotAbsentTest() {
+            Map m = new Map().associate(new Keyword("a"), null);
+            assertTrue(m.contains(new Keyword("a")));
+            assertNull(m.get(new Keyword("a"), Literal.T));
+            assertEquals(Literal.T, m.get(new Keyword("b"), Literal.T));
+        }
+
+        @Test
+        public void hashCodeMatchesJavaMapTest() {
+            HashMap<Expr, Expr> table = new HashMap<>();
+            Map m = new Map();
+            for (int i = 0; i < 100; i++) {
+                table.put(new Int(i), new Str("v" + i));
+                m = m.associate(new Int(i), new Str("v" + i));
+            }
+            assertEquals(table.hashCode(), m.hashCode());
+            assertEquals(new Map(table), m);
+        }
+    }
+
+    @Nested
+    class TransientTests {
+        @ParameterizedTest
+        @ValueSource(ints = {0, 1, 31, 32, 33, 1024, 50000})
+        public void assocTest(int n) {
+            Map.TransientMap t = new Map().asTransient();
+            for (int i = 0; i < n; i++) {
+                t = t.assoc(new Int(i), new Int(2*i));
+            }
+            assertEquals(n, t.size());
+            Map m = t.persistent();
+            Map expected = new Map();
+            for (int i = 0; i < n; i++) {
+                expected = expected.associate(new Int(i), new Int(2*i));
+            }
+            assertEquals(expected, m);
+            assertEquals(expected.hashCode(), m.hashCode());
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = {1, 31, 32, 33, 1024, 50000})
+        public void dissocTest(int n) {
+            Map.TransientMap t = new Map().asTransient();
+            for (int i = 0; i < n; i++) {
+                t = t.assoc(new Int(i), new Int(i));
+            }
+            for (int i = 0; i < n; i += 2) {
+                t = t.dissoc(new Int(i));
+            }
+            t = t.dissoc(new Int(-1));
+            Map m = t.persistent();
+            assertEquals(n - (n + 1)/2, m.size());
+            for (int i = 0; i < n; i++) {
+                assertEquals(1 == i % 2, m.contains(new Int(i)));
+            }
+        }
+
+        @Test
+        public void originalIsUnchangedTest() {
+            Map m = new Map();
+            for (int i = 0; i < 100; i++) {
+                m = m.associate(new Int(i), new Int(i));
+            }
+            Map.TransientMap t = m.asTransient();
+            for (int i = 0; i < 100; i++) {
+                t = t.assoc(new Int(i), new Int(-i));
+            }
+            t = t.dissoc(new Int(7));
+            assertEquals(new Int(5), m.get(new Int(5)));
+            assertTrue(m.contains(new Int(7)));
+            assertEquals(100, m.size());
+            assertEquals(new Int(-5), t.persistent().get(new Int(5)));
+        }
+
+        @Test
+        public void collidingKeysTest() {
+            Str aa = new Str("Aa");
+            Str bb = new Str("BB");
+            Map.TransientMap t = new Map().asTransient();
+            t.assoc(aa, new Int(1)).assoc(bb, new Int(2));
+            t.assoc(aa, new Int(3));
+            assertEquals(2, t.size());
+            t.dissoc(bb);
+            Map m = t.persistent();
+            assertEquals(1, m.size());
+            assertEquals(new Int(3), m.get(aa));
+        }
+
+        @Test
+        public void usedAfterPersistentTest() {
+            Map.TransientMap t = new Map().asTransient();
+            t.persistent();
+            assertThrows(IllegalStateException.class,
+                         () -> t.assoc(new Int(1), new Int(1)));
+        }
+    }
+
     @Test
     public void typeTest() {
         Map s = new Map();
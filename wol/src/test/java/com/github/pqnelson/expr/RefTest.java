@@ -0,0 +1,178 @@
+package com.github.pqnelson.expr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class RefTest
+{
+    private static IFn add(final long n) {
+        return new IFn() {
+            @Override
+            public Expr invoke(Seq args) {
+                return invoke1(args.first());
+            }
+
+            @Override
+            public Expr invoke1(Expr x) {
+                return new Int(((Int) x).value() + n);
+            }
+        };
+    }
+
+    private static long retries() {
+        return ((Int) Transaction.stats().get(new Keyword("retries")))
+            .value();
+    }
+
+    private static void runAll(final List<Thread> threads)
+            throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    @Test
+    public void concurrentTransfersConserveTotalTest() throws Throwable {
+        final Ref[] accounts = new Ref[4];
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i] = new Ref(new Int(1000));
+        }
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final int seed = t;
+            threads.add(new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 2000; i++) {
+                            final Ref from = accounts[(seed + i) % 4];
+                            final Ref to = accounts[(seed + 2 * i + 1) % 4];
+                            Transaction.run(args -> {
+                                    Transaction.alter(from, add(-1));
+                                    Transaction.alter(to, add(1));
+                                    return Literal.NIL;
+                                });
+                        }
+                    } catch (Throwable e) {
+                        throw new RuntimeException(e);
+                    }
+            }));
+        }
+        runAll(threads);
+        long total = 0;
+        for (Ref r : accounts) {
+            total += ((Int) r.deref()).value();
+        }
+        assertEquals(4000, total);
+    }
+
+    @Test
+    public void conflictRetriesTest() throws Throwable {
+        final Ref r = new Ref(new Int(0));
+        final long before = retries();
+        final int[] runs = {0};
+        Transaction.run(args -> {
+                if (0 == runs[0]++) {
+                    final Thread other = new Thread(() -> {
+                            try {
+                                Transaction.run(xs ->
+                                                Transaction.alter(r, add(10)));
+                            } catch (Throwable e) {
+                                throw new RuntimeException(e);
+                            }
+                    });
+                    other.start();
+                    other.join();
+                }
+                return Transaction.alter(r, add(1));
+            });
+        assertEquals(2, runs[0]);
+        assertEquals(new Int(11), r.deref());
+        assertTrue(retries() > before);
+    }
+
+    @Test
+    public void concurrentCommutesTest() throws Throwable {
+        final Ref counter = new Ref(new Int(0));
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 1000; i++) {
+                            Transaction.run(args ->
+                                            Transaction.commute(counter,
+                                                                add(1)));
+                        }
+                    } catch (Throwable e) {
+                        throw new RuntimeException(e);
+                    }
+            }));
+        }
+        runAll(threads);
+        assertEquals(new Int(8000), counter.deref());
+    }
+
+    @Test
+    public void retryInsideLazySeqTest() throws Throwable {
+        final Ref r = new Ref(new Int(0));
+        final int[] runs = {0};
+        final Expr result = Transaction.run(args -> {
+                if (0 == runs[0]++) {
+                    final Thread other = new Thread(() -> {
+                            try {
+                                Transaction.run(xs ->
+                                                Transaction.alter(r, add(1)));
+                            } catch (Throwable e) {
+                                throw new RuntimeException(e);
+                            }
+                    });
+                    other.start();
+                    other.join();
+                }
+                // the conflict is found while the seq is being realized
+                return new LazySeq(xs -> Seq.of(Transaction.alter(r, add(10))))
+                    .first();
+            });
+        assertEquals(2, runs[0]);
+        assertEquals(new Int(11), result);
+        assertEquals(new Int(11), r.deref());
+    }
+
+    @Test
+    public void repeatableReadTest() throws Throwable {
+        final Ref r = new Ref(new Int(1));
+        final int[] runs = {0};
+        final Expr seen = Transaction.run(args -> {
+                final Expr first = r.deref();
+                if (0 == runs[0]++) {
+                    final Thread other = new Thread(() -> {
+                            try {
+                                Transaction.run(xs ->
+                                                Transaction.alter(r, add(1)));
+                            } catch (Throwable e) {
+                                throw new RuntimeException(e);
+                            }
+                    });
+                    other.start();
+                    other.join();
+                }
+                return new Vector().conjoin(first).conjoin(r.deref());
+            });
+        assertEquals(new Vector().conjoin(new Int(2)).conjoin(new Int(2)),
+                     seen);
+    }
+
+    @Test
+    public void alterOutsideTransactionTest() {
+        final Ref r = new Ref(new Int(0));
+        assertThrows(IllegalStateException.class,
+                     () -> Transaction.alter(r, add(1)));
+    }
+}
@@ -55,4 +55,292 @@ public class SeqTest
         expected.conj(new Str("1"));
         assertEquals(expected, lhs.concat(rhs));
     }
-}
\ No newline at end of file
+
+    @Nested
+    class ConsTests {
+        @Test
+        public void consDoesNotCopyTest() {
+            Seq tail = Seq.of(new Int(2), new Int(3));
+            Seq list = tail.cons(new Int(1));
+            assertInstanceOf(Cons.class, list);
+            assertEquals(tail, list.rest());
+            assertEquals(Seq.of(new Int(1), new Int(2), new Int(3)), list);
+            assertEquals(Seq.of(new Int(2), new Int(3)), tail);
+        }
+
+        @Test
+        public void consListCountTest() {
+            Seq list = new Seq();
+            for (int i = 0; i < 100000; i++) {
+                list = list.cons(new Int(i));
+            }
+            assertEquals(100000, list.size());
+            assertEquals(new Int(99999), list.first());
+            assertEquals(new Int(0), list.last());
+            assertEquals(99999, list.rest().size());
+        }
+
+        @Test
+        public void consListGetTest() {
+            Seq list = Seq.of(new Int(3), new Int(4)).cons(new Int(2))
+                .cons(new Int(1));
+            for (int i = 0; i < 4; i++) {
+                assertEquals(new Int(i + 1), list.get(i));
+            }
+            assertEquals(Seq.of(new Int(3), new Int(4)), list.slice(2));
+            assertEquals(Seq.of(new Int(2), new Int(3)), list.slice(1, 3));
+        }
+
+        @Test
+        public void consListHashCodeTest() {
+            Seq list = Seq.of(new Int(2)).cons(new Int(1));
+            assertEquals(Seq.of(new Int(1), new Int(2)).hashCode(),
+                         list.hashCode());
+        }
+
+        @Test
+        public void consListRefusesConjTest() {
+            Seq list = new Seq().cons(new Int(1));
+            assertThrows(UnsupportedOperationException.class,
+                         () -> list.conj(new Int(2)));
+        }
+
+        @Test
+        public void conjAfterConsDoesNotLeakTest() {
+            Seq tail = Seq.of(new Int(2));
+            Seq list = tail.cons(new Int(1));
+            tail.conj(new Int(3));
+            assertEquals(2, list.size());
+            assertEquals(Seq.of(new Int(1), new Int(2)), list);
+        }
+    }
+
+    @Nested
+    class RestTests {
+        @Test
+        public void repeatedRestTest() {
+            Seq list = new Seq();
+            for (int i = 0; i < 10000; i++) {
+                list.conj(new Int(i));
+            }
+            Seq s = list;
+            for (int i = 0; i < 9999; i++) {
+                s = s.rest();
+            }
+            assertEquals(Seq.of(new Int(9999)), s);
+            assertTrue(s.rest().isEmpty());
+        }
+
+        @Test
+        public void conjOntoRestDoesNotLeakTest() {
+            Seq list = Seq.of(new Int(1), new Int(2));
+            Seq rest = list.rest();
+            rest.conj(new Int(3));
+            list.conj(new Int(4));
+            assertEquals(Seq.of(new Int(2), new Int(3)), rest);
+            assertEquals(Seq.of(new Int(1), new Int(2), new Int(4)), list);
+        }
+    }
+
+    @Nested
+    class LazySeqTests {
+        @Test
+        public void bodyIsCalledOnceTest() {
+            int[] calls = {0};
+            Seq xs = new LazySeq(args -> {
+                    calls[0]++;
+                    return Seq.of(new Int(1));
+            });
+            assertEquals(0, calls[0]);
+            assertEquals(new Int(1), xs.first());
+            assertEquals(1, xs.size());
+            assertEquals(1, calls[0]);
+        }
+
+        @Test
+        public void nestedLazySeqsTakeNoStackTest() {
+            Seq xs = Seq.of(new Int(7));
+            for (int i = 0; i < 100000; i++) {
+                final Seq inner = xs;
+                xs = new LazySeq(args -> inner);
+            }
+            assertEquals(new Int(7), xs.first());
+        }
+
+        @Test
+        public void unboundedRangeTest() {
+            Seq xs = Range.from(0L, 1L);
+            assertEquals(new Int(1000000), xs.get(1000000));
+            assertEquals(new Int(3), xs.rest().rest().rest().first());
+        }
+
+        @Test
+        public void chunkedVectorTest() {
+            Vector v = new Vector();
+            for (int i = 0; i < 100; i++) {
+                v = v.conjoin(new Int(i));
+            }
+            Seq xs = LazySeq.chunked(v, 0);
+            assertInstanceOf(ChunkedCons.class, xs);
+            assertEquals(100, xs.size());
+            assertEquals(new Int(64), xs.get(64));
+            assertEquals(v.seq(), xs);
+        }
+    }
+
+    @Nested
+    class RangeTests {
+        @Test
+        public void countWithoutWalkingTest() {
+            Seq xs = Range.of(0L, 100000000L, 1L);
+            assertTrue(xs.counted());
+            assertEquals(100000000, xs.size());
+            assertEquals(1000000000, Range.of(0L, 2000000000L, 2L).size());
+            assertEquals(4, Range.of(0L, 10L, 3L).size());
+            assertEquals(3, Range.of(5L, 2L, -1L).size());
+        }
+
+        @Test
+        public void indexWithoutWalkingTest() {
+            assertEquals(new Int(99999999),
+                         Range.of(0L, 100000000L, 1L).get(99999999));
+            assertEquals(new Int(30000000), Range.from(0L, 1L).get(30000000));
+            assertEquals(Literal.NIL, Range.of(0L, 10L, 1L).get(10, Literal.NIL));
+            assertThrows(IndexOutOfBoundsException.class,
+                         () -> Range.of(0L, 10L, 1L).get(10));
+            assertEquals(Seq.of(new Int(8), new Int(9)),
+                         Range.of(0L, 10L, 1L).drop(8));
+            assertTrue(Range.of(0L, 10L, 1L).drop(10).isEmpty());
+        }
+
+        @Test
+        public void elementsTest() {
+            assertEquals(Seq.of(new Int(0), new Int(3), new Int(6), new Int(9)),
+                         Range.of(0L, 10L, 3L));
+            assertEquals(Seq.of(new Int(5), new Int(4), new Int(3)),
+                         Range.of(5L, 2L, -1L));
+            assertTrue(Range.of(3L, 3L, 1L).isEmpty());
+            assertTrue(Range.of(3L, 0L, 1L).isEmpty());
+        }
+
+        @Test
+        public void extremeBoundsTest() {
+            // the distance between the bounds does not fit in a long
+            final Seq xs = Range.of(Long.MIN_VALUE, Long.MAX_VALUE,
+                                    Long.MAX_VALUE);
+            assertEquals(Seq.of(new Int(Long.MIN_VALUE), new Int(-1L),
+                                new Int(Long.MAX_VALUE - 1)), xs);
+            assertEquals(3, xs.size());
+            assertEquals(1, Range.of(0L, Long.MIN_VALUE, Long.MIN_VALUE).size());
+        }
+
+        @Test
+        public void reduceLargerThanHeapTest() throws Throwable {
+            // held as cells, this many elements would not fit in the heap
+            final long n = Runtime.getRuntime().maxMemory() / 8;
+            IFn add = new IFn() {
+                @Override
+                public Expr invoke(Seq args) {
+                    return invoke2(args.first(), args.get(1));
+                }
+
+                @Override
+                public Expr invoke2(Expr acc, Expr x) {
+                    return Int.valueOf(((Int) acc).longValue()
+                                       + ((Int) x).longValue());
+                }
+            };
+            assertEquals(new Int(n * (n - 1) / 2),
+                         Range.of(0L, n, 1L).reduce(add, new Int(0)));
+        }
+
+        @Test
+        public void reducedStopsUnboundedTest() throws Throwable {
+            Expr result = Range.from(0L, 1L).reduce(args -> {
+                    final Expr x = args.get(1);
+                    return (new Int(1000).equals(x) ? new Reduced(x) : x);
+                }, Literal.NIL);
+            assertEquals(new Int(1000), result);
+        }
+
+        @Test
+        public void countPastAnIntTest() {
+            final Seq xs = Range.of(0L, Long.MAX_VALUE, 1L);
+            assertFalse(xs.counted());
+            assertThrows(ArithmeticException.class, () -> xs.size());
+            assertEquals(new Int(0), xs.cons(new Int(0)).first());
+        }
+    }
+
+    @Nested
+    class ViewTests {
+        @Test
+        public void vectorViewTest() {
+            Vector v = new Vector();
+            for (int i = 0; i < 1000; i++) {
+                v = v.conjoin(new Int(i));
+            }
+            Seq xs = (Seq) v.seq();
+            assertInstanceOf(VectorSeq.class, xs);
+            assertEquals(1000, xs.size());
+            assertEquals(new Int(1), xs.rest().first());
+            assertEquals(999, xs.rest().size());
+            assertEquals(new Int(700), xs.get(700));
+            assertEquals(new Int(900), xs.drop(500).get(400));
+            assertEquals(LazySeq.chunked(v, 0), xs);
+        }
+
+        @Test
+        public void vectorViewEndsInEmptyListTest() {
+            Seq xs = (Seq) new Vector(java.util.List.of(new Int(1))).seq();
+            assertTrue(xs.rest().isEmpty());
+            assertEquals(Literal.NIL, new Vector().seq());
+        }
+
+        @Test
+        public void strViewTest() {
+            Seq xs = (Seq) new Str("abc").seq();
+            assertInstanceOf(StrSeq.class, xs);
+            assertEquals(3, xs.size());
+            assertEquals(new Str("b"), xs.rest().first());
+            assertEquals(Seq.of(new Str("a"), new Str("b"), new Str("c")), xs);
+            assertEquals(Literal.NIL, new Str("").seq());
+        }
+
+        @Test
+        public void mapViewTest() {
+            Map m = new Map();
+            for (int i = 0; i < 5000; i++) {
+                m = m.associate(new Int(i), new Int(-i));
+            }
+            Seq entries = (Seq) m.seq();
+            assertEquals(5000, entries.size());
+            java.util.Set<Expr> keys = new java.util.HashSet<>();
+            for (Expr k : m.keys()) {
+                keys.add(k);
+            }
+            assertEquals(5000, keys.size());
+            long total = 0;
+            for (Expr val : m.values()) {
+                total += ((Int) val).value().longValue();
+            }
+            assertEquals(-12497500L, total);
+            Seq s = entries;
+            int n = 0;
+            while (!s.isEmpty()) {
+                Vector kv = (Vector) s.first();
+                assertEquals(m.get(kv.get(0)), kv.get(1));
+                s = s.rest();
+                n++;
+            }
+            assertEquals(5000, n);
+        }
+
+        @Test
+        public void emptyMapViewTest() {
+            assertEquals(Literal.NIL, new Map().seq());
+            assertTrue(new Map().keys().isEmpty());
+            assertTrue(new Map().values().isEmpty());
+        }
+    }
+}
@@ -3,12 +3,15 @@ package com.github.pqnelson.expr;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import com.github.pqnelson.expr.Literal;
 import com.github.pqnelson.expr.Str;
@@ -39,4 +42,265 @@ public class VectorTest
         v.conj(new Symbol("rest"));
         assertTrue(v.contains(new Symbol("&")));
     }
+
+    static Vector range(int n) {
+        Vector v = new Vector();
+        for (int i = 0; i < n; i++) {
+            v = v.conjoin(new Int(i));
+        }
+        return v;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 31, 32, 33, 1024, 1056, 1057, 32768, 33000})
+    public void conjoinAndGetTest(int n) {
+        Vector v = range(n);
+        assertEquals(n, v.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(new Int(i), v.get(i));
+        }
+        int i = 0;
+        for (Expr e : v) {
+            assertEquals(new Int(i++), e);
+        }
+        assertEquals(n, i);
+    }
+
+    @Test
+    public void conjoinLeavesOriginalTest() {
+        Vector v = range(100);
+        Vector w = v.conjoin(new Keyword("x"));
+        assertEquals(100, v.size());
+        assertEquals(101, w.size());
+        assertEquals(new Keyword("x"), w.last());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 5, 31, 32, 999, 1023, 1024, 1099})
+    public void assocNLeavesOriginalTest(int index) {
+        Vector v = range(1100);
+        Vector w = v.assocN(index, new Keyword("x"));
+        assertEquals(new Int(index), v.get(index));
+        assertEquals(new Keyword("x"), w.get(index));
+        assertEquals(v.size(), w.size());
+        assertNotEquals(v, w);
+        assertEquals(v, w.assocN(index, new Int(index)));
+    }
+
+    @Test
+    public void assocNOutOfBoundsTest() {
+        Vector v = range(3);
+        assertEquals(4, v.assocN(3, new Int(3)).size());
+        assertThrows(IndexOutOfBoundsException.class,
+                     () -> v.assocN(4, new Int(4)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 32, 33, 64, 1025, 1057, 32801})
+    public void popTest(int n) {
+        Vector v = range(n);
+        for (int size = n - 1; size >= 0; size--) {
+            v = v.pop();
+            assertEquals(size, v.size());
+            if (0 < size) {
+                assertEquals(new Int(size - 1), v.last());
+            }
+        }
+        assertEquals(new Vector(), v);
+        assertThrows(IllegalStateException.class, v::pop);
+    }
+
+    @Test
+    public void conjInPlaceDoesNotLeakTest() {
+        Vector v = range(40);
+        Vector copy = new Vector(v);
+        v.conj(new Keyword("x"));
+        assertEquals(41, v.size());
+        assertEquals(40, copy.size());
+        assertEquals(range(40), copy);
+    }
+
+    @Test
+    public void hashCodeMatchesListTest() {
+        Vector v = range(50);
+        java.util.List<Expr> list = new java.util.ArrayList<>();
+        for (Expr e : v) {
+            list.add(e);
+        }
+        assertEquals(list.hashCode(), v.hashCode());
+        assertEquals(new Vector(list), v);
+        assertEquals(v.hashCode(), new Vector(list).hashCode());
+    }
+
+    @Nested
+    class TransientTests {
+        @ParameterizedTest
+        @ValueSource(ints = {0, 1, 32, 33, 1056, 1057, 40000})
+        public void conjTest(int n) {
+            Vector.TransientVector t = new Vector().asTransient();
+            for (int i = 0; i < n; i++) {
+                t = t.conj(new Int(i));
+            }
+            Vector v = t.persistent();
+            assertEquals(n, v.size());
+            Vector expected = new Vector();
+            for (int i = 0; i < n; i++) {
+                expected = expected.conjoin(new Int(i));
+            }
+            assertEquals(expected, v);
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = {1, 32, 33, 1056, 1057, 40000})
+        public void popTest(int n) {
+            Vector.TransientVector t = new Vector().asTransient();
+            for (int i = 0; i < n; i++) {
+                t = t.conj(new Int(i));
+            }
+            for (int i = n - 1; i >= n / 2; i--) {
+                assertEquals(new Int(i), t.get(i));
+                t = t.pop();
+            }
+            Vector v = t.persistent();
+            assertEquals(n / 2, v.size());
+            for (int i = 0; i < n / 2; i++) {
+                assertEquals(new Int(i), v.get(i));
+            }
+        }
+
+        @Test
+        public void originalIsUnchangedTest() {
+            Vector v = new Vector();
+            for (int i = 0; i < 100; i++) {
+                v = v.conjoin(new Int(i));
+            }
+            Vector.TransientVector t = v.asTransient();
+            for (int i = 0; i < 100; i++) {
+                t = t.assocN(i, new Int(-i));
+            }
+            t.conj(new Int(100));
+            assertEquals(new Int(5), v.get(5));
+            assertEquals(100, v.size());
+            assertEquals(new Int(-5), t.persistent().get(5));
+        }
+
+        @Test
+        public void persistentVectorIsUnchangedByLaterUseTest() {
+            Vector.TransientVector t = new Vector().asTransient();
+            t.conj(new Int(1));
+            Vector v = t.persistent();
+            Vector.TransientVector u = v.asTransient();
+            u.assocN(0, new Int(2));
+            assertEquals(new Int(1), v.get(0));
+        }
+
+        @Test
+        public void usedAfterPersistentTest() {
+            Vector.TransientVector t = new Vector().asTransient();
+            t.persistent();
+            assertThrows(IllegalStateException.class,
+                         () -> t.conj(new Int(1)));
+        }
+
+        @Test
+        public void usedByAnotherThreadTest() throws InterruptedException {
+            Vector.TransientVector t = new Vector().asTransient();
+            Throwable[] thrown = new Throwable[1];
+            Thread other = new Thread(() -> {
+                    try {
+                        t.conj(new Int(1));
+                    } catch (Throwable e) {
+                        thrown[0] = e;
+                    }
+            });
+            other.start();
+            other.join();
+            assertInstanceOf(IllegalStateException.class, thrown[0]);
+        }
+    }
+
+    @Nested
+    class ReduceTests {
+        @ParameterizedTest
+        @ValueSource(ints = {0, 1, 32, 33, 1056, 1057, 40000})
+        public void reduceTest(int n) throws Throwable {
+            Vector v = new Vector();
+            for (int i = 0; i < n; i++) {
+                v = v.conjoin(new Int(i));
+            }
+            IFn add = new IFn() {
+                @Override
+                public Expr invoke(Seq args) {
+                    return invoke2(args.first(), args.get(1));
+                }
+
+                @Override
+                public Expr invoke2(Expr acc, Expr x) {
+                    return new Int(((Int) acc).value() + ((Int) x).value());
+                }
+            };
+            assertEquals(new Int(((long) n) * (n - 1) / 2),
+                         v.reduce(add, new Int(0)));
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = {0, 1, 64, 1000, 40000})
+        public void foldTest(int n) throws Throwable {
+            Vector v = new Vector();
+            for (int i = 0; i < n; i++) {
+                v = v.conjoin(new Int(i));
+            }
+            IFn add = new IFn() {
+                @Override
+                public Expr invoke(Seq args) {
+                    if (args.isEmpty()) {
+                        return new Int(0);
+                    }
+                    return invoke2(args.first(), args.get(1));
+                }
+
+                @Override
+                public Expr invoke2(Expr acc, Expr x) {
+                    return new Int(((Int) acc).value() + ((Int) x).value());
+                }
+            };
+            assertEquals(new Int(((long) n) * (n - 1) / 2),
+                         v.fold(32, add, add));
+        }
+
+        @Test
+        public void foldRethrowsTest() {
+            Vector v = new Vector();
+            for (int i = 0; i < 10000; i++) {
+                v = v.conjoin(new Int(i));
+            }
+            final Vector w = v;
+            IFn fail = args -> {
+                if (!args.isEmpty() && new Int(5000).equals(args.get(1))) {
+                    throw new LispException("boom");
+                }
+                return Literal.NIL;
+            };
+            LispException e = assertThrows(LispException.class,
+                                           () -> w.fold(100, fail, fail));
+            assertEquals("boom", e.getMessage());
+        }
+
+        @Test
+        public void reducedStopsEarlyTest() throws Throwable {
+            Vector v = new Vector();
+            for (int i = 0; i < 100; i++) {
+                v = v.conjoin(new Int(i));
+            }
+            int[] calls = {0};
+            Expr result = v.reduce(args -> {
+                    calls[0]++;
+                    return (5 == calls[0]
+                            ? new Reduced(args.get(1))
+                            : args.get(1));
+                }, Literal.NIL);
+            assertEquals(new Int(4), result);
+            assertEquals(5, calls[0]);
+        }
+    }
 }
@@ -0,0 +1,139 @@
+package com.github.pqnelson.jvm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.github.pqnelson.Analyzer;
+import com.github.pqnelson.Env;
+import com.github.pqnelson.Evaluator;
+import com.github.pqnelson.ReadTable;
+import com.github.pqnelson.expr.Expr;
+import com.github.pqnelson.expr.Fun;
+import com.github.pqnelson.expr.Int;
+import com.github.pqnelson.expr.Keyword;
+import com.github.pqnelson.expr.Literal;
+import com.github.pqnelson.expr.Symbol;
+import com.github.pqnelson.node.ExpansionNode;
+import com.github.pqnelson.node.GuardNode;
+import com.github.pqnelson.node.Node;
+
+public class BytecodeCompilerTest {
+    static boolean wasEnabled;
+
+    @BeforeAll
+    static void enable() {
+        wasEnabled = BytecodeCompiler.enabled;
+        BytecodeCompiler.enabled = true;
+    }
+
+    @AfterAll
+    static void restore() {
+        BytecodeCompiler.enabled = wasEnabled;
+    }
+
+    static Expr read(String source) throws Throwable {
+        ReadTable reader = new ReadTable(new StringReader(source));
+        reader.preferParsingNumbersAsFloats = false;
+        return reader.read();
+    }
+
+    static Expr eval(String source, Env env) throws Throwable {
+        return Evaluator.eval(read(source), env);
+    }
+
+    /**
+     * Whether the interpreter is running a node of the given class,
+     * somewhere up the stack.
+     */
+    static boolean interpreting(Class<? extends Node> nodeClass) {
+        return StackWalker.getInstance().walk(frames -> frames.anyMatch(
+            f -> f.getClassName().equals(nodeClass.getName())
+                 && f.getMethodName().equals("eval")));
+    }
+
+    /**
+     * Bind {@code (probe)} to record whether it was called from the
+     * interpreter running a node of the given class.
+     */
+    static boolean[] probe(Env env, Class<? extends Node> nodeClass) {
+        boolean[] interpreted = {false};
+        env.set(new Symbol("probe"), new Fun(args -> {
+                    interpreted[0] = interpreting(nodeClass);
+                    return Literal.T;
+                }, 0, false, new Symbol("probe")));
+        return interpreted;
+    }
+
+    @Test
+    public void compiledBodyIsHiddenClassTest() throws Throwable {
+        Env env = Evaluator.initialEnv();
+        Node body = BytecodeCompiler.compile(Analyzer.analyze(read("(+ 1 2)"), env));
+        assertTrue(body.getClass().isHidden());
+        assertEquals(new Int(3), body.eval(null));
+    }
+
+    @Test
+    public void recursionTest() throws Throwable {
+        Env env = Evaluator.initialEnv();
+        eval("(def fact (fn* [n] (if (= n 0) 1 (* n (fact (- n 1))))))", env);
+        assertEquals(new Int(120), eval("(fact 5)", env));
+    }
+
+    @Test
+    public void tailCallTest() throws Throwable {
+        Env env = Evaluator.initialEnv();
+        eval("(def count-down (fn* [n] (if (= n 0) :done (count-down (- n 1)))))", env);
+        assertEquals(new Keyword("done"), eval("(count-down 100000)", env));
+    }
+
+    @Test
+    public void closureTest() throws Throwable {
+        Env env = Evaluator.initialEnv();
+        eval("(def adder (fn* [a] (fn* [b] (let* [c (+ a b)] c))))", env);
+        assertEquals(new Int(5), eval("((adder 2) 3)", env));
+    }
+
+    @Test
+    public void macroAtCallSiteTest() throws Throwable {
+        Env env = Evaluator.initialEnv();
+        eval("(def f (fn* [] (later 1)))", env);
+        eval("(defmacro later [x] (list (quote =) x 1))", env);
+        assertEquals(Literal.T, eval("(f)", env));
+    }
+
+    @Test
+    public void expansionStaysCompiledAfterOtherMacroTest() throws Throwable {
+        Env env = Evaluator.initialEnv();
+        boolean[] interpreted = probe(env, ExpansionNode.class);
+        eval("(defmacro check [] (list (quote probe)))", env);
+        eval("(def f (fn* [] (check)))", env);
+        assertEquals(Literal.T, eval("(f)", env));
+        assertFalse(interpreted[0]);
+        eval("(defmacro unrelated [] nil)", env);
+        assertEquals(Literal.T, eval("(f)", env));
+        assertFalse(interpreted[0]);
+        eval("(defmacro check [] :redefined)", env);
+        assertEquals(new Keyword("redefined"), eval("(f)", env));
+    }
+
+    @Test
+    public void foldStaysCompiledAfterOtherPureFnTest() throws Throwable {
+        Env env = Evaluator.initialEnv();
+        boolean[] interpreted = probe(env, GuardNode.class);
+        eval("(def g (fn* [] (if (< 1 2) (probe) :no)))", env);
+        assertEquals(Literal.T, eval("(g)", env));
+        assertFalse(interpreted[0]);
+        eval("(def my+ +)", env);
+        assertEquals(Literal.T, eval("(g)", env));
+        assertFalse(interpreted[0]);
+        eval("(def < >)", env);
+        assertEquals(new Keyword("no"), eval("(g)", env));
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.pqnelson.jvm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.pqnelson.Env;
+import com.github.pqnelson.Evaluator;
+import com.github.pqnelson.ReadTable;
+import com.github.pqnelson.expr.Expr;
+import com.github.pqnelson.expr.Int;
+import com.github.pqnelson.expr.Keyword;
+
+public class TieringTest {
+    boolean wasEnabled;
+    boolean wasCompiling;
+    int invocationThreshold;
+    int backEdgeThreshold;
+    List<Tiering.Promotion> events;
+    Consumer<Tiering.Promotion> listener;
+
+    @BeforeEach
+    void setUp() {
+        wasEnabled = Tiering.enabled;
+        wasCompiling = BytecodeCompiler.enabled;
+        invocationThreshold = Tiering.invocationThreshold;
+        backEdgeThreshold = Tiering.backEdgeThreshold;
+        Tiering.enabled = true;
+        BytecodeCompiler.enabled = false;
+        events = new ArrayList<>();
+        listener = events::add;
+        Tiering.addListener(listener);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Tiering.removeListener(listener);
+        Tiering.enabled = wasEnabled;
+        BytecodeCompiler.enabled = wasCompiling;
+        Tiering.invocationThreshold = invocationThreshold;
+        Tiering.backEdgeThreshold = backEdgeThreshold;
+    }
+
+    static Expr eval(String source, Env env) throws Throwable {
+        ReadTable reader = new ReadTable(new StringReader(source));
+        reader.preferParsingNumbersAsFloats = false;
+        return Evaluator.eval(reader.read(), env);
+    }
+
+    @Test
+    public void coldFunctionStaysInterpretedTest() throws Throwable {
+        Tiering.invocationThreshold = 10;
+        Env env = Evaluator.initialEnv();
+        eval("(def inc (fn* inc [x] (+ x 1)))", env);
+        for (int i = 0; i < 9; i++) {
+            eval("(inc 1)", env);
+        }
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void hotFunctionIsPromotedTest() throws Throwable {
+        Tiering.invocationThreshold = 10;
+        Env env = Evaluator.initialEnv();
+        eval("(def inc (fn* inc [x] (+ x 1)))", env);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(new Int(i + 1), eval("(inc " + i + ")", env));
+        }
+        assertEquals(1, events.size());
+        assertEquals("inc", events.get(0).name());
+        assertEquals(Tiering.Reason.INVOCATIONS, events.get(0).reason());
+    }
+
+    @Test
+    public void loopingFunctionIsPromotedTest() throws Throwable {
+        Tiering.backEdgeThreshold = 100;
+        Env env = Evaluator.initialEnv();
+        eval("(def count-down (fn* count-down [n] (if (= n 0) :done (count-down (- n 1)))))", env);
+        assertEquals(new Keyword("done"), eval("(count-down 1000)", env));
+        assertEquals(1, events.size());
+        assertEquals(Tiering.Reason.BACK_EDGES, events.get(0).reason());
+        assertEquals(100, events.get(0).backEdges());
+    }
+
+    @Test
+    public void recurringFunctionIsPromotedTest() throws Throwable {
+        Tiering.backEdgeThreshold = 100;
+        Env env = Evaluator.initialEnv();
+        eval("(def sum-to (fn* [n] (loop* [i 0 acc 0] (if (> i n) acc (recur (+ i 1) (+ acc i))))))", env);
+        assertEquals(new Int(5050), eval("(sum-to 100)", env));
+        assertTrue(events.isEmpty());
+        assertEquals(new Int(5050), eval("(sum-to 100)", env));
+        assertEquals(1, events.size());
+        assertEquals(Tiering.Reason.BACK_EDGES, events.get(0).reason());
+    }
+
+    @Test
+    public void disabledTieringNeverPromotesTest() throws Throwable {
+        Tiering.enabled = false;
+        Tiering.invocationThreshold = 1;
+        Env env = Evaluator.initialEnv();
+        eval("(def inc (fn* [x] (+ x 1)))", env);
+        eval("(inc 1)", env);
+        assertTrue(events.isEmpty());
+    }
+}